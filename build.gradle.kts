@@ -54,6 +54,10 @@ dependencies {
     // Spring AI MCP Server
     implementation("org.springframework.ai:spring-ai-starter-mcp-server")
 
+    // Кэширование результатов инструментов
+    implementation("org.springframework.boot:spring-boot-starter-cache")
+    implementation("com.github.ben-manes.caffeine:caffeine")
+
     // HBK  
     implementation("com.github._1c_syntax.bsl:bsl-context:1.0-SNAPSHOT")
 
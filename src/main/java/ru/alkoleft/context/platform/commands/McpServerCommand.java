@@ -24,6 +24,12 @@ public class McpServerCommand implements Callable<Integer> {
   )
   private String platformPath;
 
+  @CommandLine.Option(
+          names = {"--platform-version"},
+          description = "Версия платформы, если в каталоге установлено несколько (по умолчанию - наибольшая)"
+  )
+  private String platformVersion;
+
   @CommandLine.Option(
           names = {"-v", "--verbose"},
           description = "Включить отладочное логирование"
@@ -35,6 +41,9 @@ public class McpServerCommand implements Callable<Integer> {
     try {
       // Настройка системных свойств для Spring Boot
       System.setProperty("platform.context.path", platformPath);
+      if (platformVersion != null) {
+        System.setProperty("platform.context.version", platformVersion);
+      }
 
       if (verbose) {
         System.setProperty("logging.level.ru.alkoleft.context.platform.mcp", "DEBUG");
@@ -1,6 +1,5 @@
 package ru.alkoleft.context.platform.commands;
 
-import com.github._1c_syntax.bsl.context.PlatformContextGrabber;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
@@ -12,8 +11,9 @@ import ru.alkoleft.context.platform.exporter.Exporter;
 import ru.alkoleft.context.platform.exporter.JsonExporter;
 import ru.alkoleft.context.platform.exporter.MarkdownExporter;
 import ru.alkoleft.context.platform.exporter.XmlExporter;
+import ru.alkoleft.context.platform.mcp.ContextFileLocator;
+import ru.alkoleft.context.platform.mcp.PlatformContextLoader;
 
-import java.io.FileNotFoundException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -29,31 +29,19 @@ public class PlatformContext implements Runnable {
   private Path output;
   @CommandLine.Option(names = "--format", description = "Output format: json, markdown, xml, context (default: ${DEFAULT-VALUE})", defaultValue = "json")
   private String format;
+  @CommandLine.Option(names = "--platform-version", description = "Platform version to export when several are installed, e.g. 8.3.23.1912 (default: the highest)")
+  private String platformVersion;
 
   @Override
   @SneakyThrows
   public void run() {
-    Path syntaxContextFile;
-    var fileName = "shcntx_ru.hbk";
-    try (var walk = Files.walk(path)) {
-      syntaxContextFile = walk.filter(p -> p.toFile().isFile())
-              .filter(p -> p.toString().endsWith(fileName))
-              .findAny()
-              .orElse(null);
-    }
-
-    if (syntaxContextFile == null) {
-      throw new FileNotFoundException(String.format("Не удалось найти файл %s в каталоге %s", fileName, path));
-    }
+    var loader = new PlatformContextLoader(new ContextFileLocator(platformVersion, 0, null));
+    Path syntaxContextFile = loader.findContextFile(path);
 
     Files.createDirectories(output);
 
-    var tmpDir = Files.createTempDirectory("test");
-
-    var grabber = new PlatformContextGrabber(syntaxContextFile, tmpDir);
-    grabber.parse();
-
-    var provider = grabber.getProvider();
+    // Справка распаковывается в каталог в памяти, если он доступен, и удаляется после разбора
+    var provider = loader.loadContextFile(syntaxContextFile);
 
     Exporter exporter = switch (format.toLowerCase()) {
       case "json" -> new JsonExporter();
@@ -0,0 +1,106 @@
+package ru.alkoleft.context.platform.dto;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Объединение описаний контекста из файлов справки на русском и английском языках.
+ * <p>
+ * Основой служит русское описание. Элемент, для которого в русской справке не указано
+ * английское имя, получает его из английской справки. Соответствие элементов устанавливается
+ * по имени или синониму без учета регистра: типы - среди типов, члены - среди членов
+ * соответствующего английского типа.
+ */
+@UtilityClass
+public class BilingualNames {
+
+  /**
+   * Дополняет русское описание английскими именами
+   *
+   * @param russian описание из файла справки на русском языке
+   * @param english описание из файла справки на английском языке
+   * @return описание, элементы которого содержат русские и английские имена
+   */
+  public PlatformContextDefinition merge(PlatformContextDefinition russian, PlatformContextDefinition english) {
+    return new PlatformContextDefinition(
+            methods(russian.globalMethods(), english.globalMethods()),
+            properties(russian.globalProperties(), english.globalProperties()),
+            types(russian.types(), english.types())
+    );
+  }
+
+  private List<PlatformTypeDefinition> types(List<PlatformTypeDefinition> russian, List<PlatformTypeDefinition> english) {
+    Map<String, PlatformTypeDefinition> byName = byNames(english, PlatformTypeDefinition::name, PlatformTypeDefinition::nameEn);
+    return russian.stream()
+            .map(type -> {
+              PlatformTypeDefinition match = byName.get(type.name().toLowerCase());
+              if (match == null) {
+                return type;
+              }
+              return new PlatformTypeDefinition(
+                      type.name(),
+                      type.nameEn() != null ? type.nameEn() : otherName(type.name(), match.name(), match.nameEn()),
+                      type.description(),
+                      methods(type.methods(), match.methods()),
+                      properties(type.properties(), match.properties()),
+                      type.constructors()
+              );
+            })
+            .toList();
+  }
+
+  private List<MethodDefinition> methods(List<MethodDefinition> russian, List<MethodDefinition> english) {
+    Map<String, MethodDefinition> byName = byNames(english, MethodDefinition::name, MethodDefinition::nameEn);
+    return russian.stream()
+            .map(method -> {
+              MethodDefinition match = byName.get(method.name().toLowerCase());
+              if (method.nameEn() != null || match == null) {
+                return method;
+              }
+              return new MethodDefinition(method.name(), otherName(method.name(), match.name(), match.nameEn()),
+                      method.description(), method.signature(), method.returnType());
+            })
+            .toList();
+  }
+
+  private List<PropertyDefinition> properties(List<PropertyDefinition> russian, List<PropertyDefinition> english) {
+    Map<String, PropertyDefinition> byName = byNames(english, PropertyDefinition::name, PropertyDefinition::nameEn);
+    return russian.stream()
+            .map(property -> {
+              PropertyDefinition match = byName.get(property.name().toLowerCase());
+              if (property.nameEn() != null || match == null) {
+                return property;
+              }
+              return new PropertyDefinition(property.name(), otherName(property.name(), match.name(), match.nameEn()),
+                      property.description(), property.readonly(), property.type());
+            })
+            .toList();
+  }
+
+  /**
+   * Элементы английской справки по имени и синониму в нижнем регистре
+   */
+  private <T> Map<String, T> byNames(List<T> items, Function<T, String> name, Function<T, String> nameEn) {
+    Map<String, T> result = new HashMap<>(items.size() * 8 / 3 + 1);
+    for (T item : items) {
+      result.putIfAbsent(name.apply(item).toLowerCase(), item);
+      if (nameEn.apply(item) != null) {
+        result.putIfAbsent(nameEn.apply(item).toLowerCase(), item);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Имя найденного элемента, отличное от русского: в английской справке имя и синоним
+   * могут быть переставлены местами
+   */
+  private String otherName(String russianName, String name, String alias) {
+    String candidate = name.equalsIgnoreCase(russianName) ? alias : name;
+    return candidate == null || candidate.equalsIgnoreCase(russianName) ? null : candidate;
+  }
+}
@@ -0,0 +1,110 @@
+package ru.alkoleft.context.platform.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Текст описания в однобайтовой кодировке windows-1251.
+ * <p>
+ * Строки Java хранят кириллицу по два байта на символ, а описания справки - длинные русские тексты.
+ * Текст хранится по одному байту на символ и декодируется в строку только при выводе;
+ * {@link #charAt} и {@link #length} работают без декодирования. Текст, символы которого
+ * не представимы в кодировке, и текст только из Latin-1 (строка Java уже хранит его по байту на символ)
+ * остаются строками.
+ */
+public final class CompactText implements CharSequence {
+
+  private static final Charset CHARSET = Charset.forName("windows-1251");
+  private static final char UNMAPPED = '\uFFFD';
+  private static final char[] DECODE = new char[256];
+  // Код в кодировке по символу от 0x80, 0 - символ не представим
+  private static final byte[] ENCODE;
+
+  static {
+    byte[] all = new byte[256];
+    for (int i = 0; i < all.length; i++) {
+      all[i] = (byte) i;
+    }
+    new String(all, CHARSET).getChars(0, 256, DECODE, 0);
+    char max = 0;
+    for (char c : DECODE) {
+      if (c != UNMAPPED && c > max) {
+        max = c;
+      }
+    }
+    ENCODE = new byte[max + 1];
+    for (int i = 0x80; i < DECODE.length; i++) {
+      if (DECODE[i] != UNMAPPED) {
+        ENCODE[DECODE[i]] = (byte) i;
+      }
+    }
+  }
+
+  private final byte[] bytes;
+
+  private CompactText(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  /**
+   * Компактное представление текста
+   *
+   * @param text текст или {@code null}
+   * @return {@link CompactText}, если представление компактнее строки, иначе строка
+   */
+  public static CharSequence of(CharSequence text) {
+    if (text == null || text instanceof CompactText) {
+      return text;
+    }
+    String value = text.toString();
+    byte[] encoded = new byte[value.length()];
+    boolean latin1 = true;
+    for (int i = 0; i < encoded.length; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        encoded[i] = (byte) c;
+        continue;
+      }
+      byte code = c < ENCODE.length ? ENCODE[c] : 0;
+      if (code == 0) {
+        return value;
+      }
+      latin1 &= c <= 0xFF;
+      encoded[i] = code;
+    }
+    return latin1 ? value : new CompactText(encoded);
+  }
+
+  @Override
+  public int length() {
+    return bytes.length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    return DECODE[bytes[index] & 0xFF];
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return new CompactText(Arrays.copyOfRange(bytes, start, end));
+  }
+
+  @JsonValue
+  @Override
+  public String toString() {
+    return new String(bytes, CHARSET);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return this == other || other instanceof CompactText text && Arrays.equals(bytes, text.bytes);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(bytes);
+  }
+}
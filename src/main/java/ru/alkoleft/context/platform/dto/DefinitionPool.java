@@ -0,0 +1,295 @@
+package ru.alkoleft.context.platform.dto;
+
+import com.github.benmanes.caffeine.cache.Interner;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Общее хранилище описаний для типов и нескольких версий платформы.
+ * <p>
+ * Описания в DTO являются записями со структурным равенством, поэтому одинаковые типы, члены,
+ * сигнатуры, параметры, списки, описания и строки заменяются одним экземпляром. Это касается и членов
+ * разных типов одной версии: семейства {@code *Менеджер}, {@code *Объект}, {@code *Ссылка}
+ * повторяют одни и те же методы и свойства. Описания канонизируются при извлечении из справки,
+ * поэтому дубликаты не накапливаются до конца разбора. Строки разделяются через общую {@link StringTable}.
+ * <p>
+ * Хранилище держит экземпляры по слабым ссылкам: после перезагрузки версии неиспользуемые описания освобождаются.
+ * Члены типов с отложенной загрузкой ({@link LazyMembers}) заменяются при их загрузке.
+ * Повторная обработка канонических описаний не создает новых объектов и не считается заменой.
+ * Описание, элементы которого уже учтены при извлечении из справки, повторно канонизируется
+ * через {@link #reintern}, не изменяя счетчики.
+ * Потокобезопасно, версии могут добавляться параллельно.
+ */
+@Component
+public final class DefinitionPool {
+
+  // Оценка размеров объектов для 64-битной JVM со сжатыми ссылками
+  private static final int OBJECT_HEADER = 12;
+  private static final int REFERENCE = 4;
+  private static final int ARRAY_HEADER = 16;
+
+  private final Interner<Object> interner;
+  private final LongAdder interned;
+  private final LongAdder shared;
+  private final LongAdder savedBytes;
+  private final boolean counting;
+  // То же хранилище без учета в счетчиках
+  private final DefinitionPool uncounted;
+
+  public DefinitionPool() {
+    this.interner = Interner.newWeakInterner();
+    this.interned = new LongAdder();
+    this.shared = new LongAdder();
+    this.savedBytes = new LongAdder();
+    this.counting = true;
+    this.uncounted = new DefinitionPool(this);
+  }
+
+  private DefinitionPool(DefinitionPool pool) {
+    this.interner = pool.interner;
+    this.interned = pool.interned;
+    this.shared = pool.shared;
+    this.savedBytes = pool.savedBytes;
+    this.counting = false;
+    this.uncounted = this;
+  }
+
+  /**
+   * Заменяет описания контекста экземплярами из хранилища
+   *
+   * @param definition описание контекста версии платформы
+   * @return равное описание, разделяющее экземпляры с ранее добавленными версиями
+   */
+  public PlatformContextDefinition intern(PlatformContextDefinition definition) {
+    return new PlatformContextDefinition(
+            list(definition.globalMethods(), this::method),
+            list(definition.globalProperties(), this::property),
+            // Список типов не канонизируется: сравнение списков загрузило бы членов типов с отложенной загрузкой
+            items(definition.types(), this::type)
+    );
+  }
+
+  /**
+   * Повторная канонизация описания, элементы которого уже обработаны хранилищем при извлечении
+   * из справки, например после дополнения английскими именами. Счетчики не изменяются:
+   * каждый элемент учитывается один раз, при извлечении. Члены типов с отложенной загрузкой
+   * также не учитываются при загрузке
+   *
+   * @param definition описание контекста версии платформы
+   * @return равное описание, разделяющее экземпляры с ранее добавленными версиями
+   */
+  public PlatformContextDefinition reintern(PlatformContextDefinition definition) {
+    return uncounted.intern(definition);
+  }
+
+  /**
+   * Текущие значения счетчиков. Счетчики накапливаются за все время работы,
+   * показатели одной загрузки - разность снимков до и после нее
+   */
+  public Statistics statistics() {
+    return new Statistics(interned.sum(), shared.sum(), savedBytes.sum());
+  }
+
+  /**
+   * Количество обработанных объектов
+   */
+  public long internedCount() {
+    return interned.sum();
+  }
+
+  /**
+   * Количество объектов, замененных уже существующими экземплярами
+   */
+  public long sharedCount() {
+    return shared.sum();
+  }
+
+  /**
+   * Оценка памяти, освобожденной заменой дубликатов, в байтах
+   */
+  public long savedBytes() {
+    return savedBytes.sum();
+  }
+
+  /**
+   * Канонический экземпляр типа
+   */
+  public PlatformTypeDefinition type(PlatformTypeDefinition type) {
+    String name = string(type.name());
+    String nameEn = string(type.nameEn());
+    CharSequence description = text(type.description());
+    List<MethodDefinition> methods = list(type.methods(), this::method);
+    List<PropertyDefinition> properties = list(type.properties(), this::property);
+    List<ISignature> constructors = list(type.constructors(), this::constructor);
+    if (isLazy(type)) {
+      // Сравнение типа загрузило бы всех его членов: тип не разделяется,
+      // а члены заменяются экземплярами из хранилища при загрузке
+      return new PlatformTypeDefinition(name, nameEn, description, methods, properties, constructors);
+    }
+    boolean same = name == type.name() && nameEn == type.nameEn() && description == type.description()
+            && methods == type.methods() && properties == type.properties() && constructors == type.constructors();
+    return canonical(same ? type : new PlatformTypeDefinition(name, nameEn, description, methods, properties, constructors));
+  }
+
+  /**
+   * Канонический экземпляр метода
+   */
+  public MethodDefinition method(MethodDefinition method) {
+    String name = string(method.name());
+    String nameEn = string(method.nameEn());
+    CharSequence description = text(method.description());
+    List<Signature> signatures = list(method.signature(), this::signature);
+    String returnType = string(method.returnType());
+    boolean same = name == method.name() && nameEn == method.nameEn() && description == method.description()
+            && signatures == method.signature() && returnType == method.returnType();
+    return canonical(same ? method : new MethodDefinition(name, nameEn, description, signatures, returnType));
+  }
+
+  /**
+   * Канонический экземпляр свойства
+   */
+  public PropertyDefinition property(PropertyDefinition property) {
+    String name = string(property.name());
+    String nameEn = string(property.nameEn());
+    CharSequence description = text(property.description());
+    String type = string(property.type());
+    boolean same = name == property.name() && nameEn == property.nameEn()
+            && description == property.description() && type == property.type();
+    return canonical(same ? property : new PropertyDefinition(name, nameEn, description, property.readonly(), type));
+  }
+
+  /**
+   * Канонический экземпляр сигнатуры
+   */
+  public Signature signature(Signature signature) {
+    String name = string(signature.name());
+    CharSequence description = text(signature.description());
+    List<ParameterDefinition> params = list(signature.params(), this::parameter);
+    boolean same = name == signature.name() && description == signature.description() && params == signature.params();
+    return canonical(same ? signature : new Signature(name, description, params));
+  }
+
+  private ISignature constructor(ISignature constructor) {
+    return constructor instanceof Signature signature ? signature(signature) : constructor;
+  }
+
+  /**
+   * Канонический экземпляр параметра
+   */
+  public ParameterDefinition parameter(ParameterDefinition parameter) {
+    String name = string(parameter.name());
+    CharSequence description = text(parameter.description());
+    String type = string(parameter.type());
+    boolean same = name == parameter.name() && description == parameter.description() && type == parameter.type();
+    return canonical(same ? parameter : new ParameterDefinition(parameter.required(), name, description, type));
+  }
+
+  private static boolean isLazy(PlatformTypeDefinition type) {
+    return type.methods() instanceof LazyMembers<?> methods && !methods.isMaterialized()
+            || type.properties() instanceof LazyMembers<?> properties && !properties.isMaterialized()
+            || type.constructors() instanceof LazyMembers<?> constructors && !constructors.isMaterialized();
+  }
+
+  private String string(String value) {
+    return value == null ? null : counted(value, StringTable.intern(value));
+  }
+
+  private CharSequence text(CharSequence value) {
+    return value instanceof String string ? string(string) : value == null ? null : canonical(value);
+  }
+
+  private <T> List<T> list(List<T> items, UnaryOperator<T> intern) {
+    if (items == null) {
+      return null;
+    }
+    if (items instanceof LazyMembers<T> lazy && !lazy.isMaterialized()) {
+      return lazy.transform(loaded -> list(loaded, intern));
+    }
+    return canonical(items(items, intern));
+  }
+
+  /**
+   * Неизменяемый список канонических элементов. Неизменяемый список, элементы которого
+   * уже канонические, возвращается без копирования
+   */
+  private <T> List<T> items(List<T> items, UnaryOperator<T> intern) {
+    List<T> result = new ArrayList<>(items.size());
+    boolean same = true;
+    for (T item : items) {
+      T canonical = intern.apply(item);
+      same &= canonical == item;
+      result.add(canonical);
+    }
+    return List.copyOf(same ? items : result);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T canonical(T value) {
+    return counted(value, (T) interner.intern(value));
+  }
+
+  private <T> T counted(T value, T result) {
+    if (!counting) {
+      return result;
+    }
+    interned.increment();
+    if (result != value) {
+      shared.increment();
+      savedBytes.add(shallowSize(value));
+    }
+    return result;
+  }
+
+  /**
+   * Размер объекта без вложенных описаний: вложенные описания дубликата
+   * к этому моменту уже заменены и учтены отдельно
+   */
+  private static long shallowSize(Object value) {
+    if (value instanceof String string) {
+      boolean latin1 = string.chars().allMatch(c -> c <= 0xFF);
+      return align(OBJECT_HEADER + REFERENCE + 8) + align(ARRAY_HEADER + (long) string.length() * (latin1 ? 1 : 2));
+    }
+    if (value instanceof CompactText text) {
+      return align(OBJECT_HEADER + REFERENCE) + align(ARRAY_HEADER + (long) text.length());
+    }
+    if (value instanceof List<?> list) {
+      return align(OBJECT_HEADER + REFERENCE + 1) + align(ARRAY_HEADER + (long) REFERENCE * list.size());
+    }
+    if (value instanceof PlatformTypeDefinition) {
+      return align(OBJECT_HEADER + 6L * REFERENCE);
+    }
+    if (value instanceof MethodDefinition) {
+      return align(OBJECT_HEADER + 5L * REFERENCE);
+    }
+    if (value instanceof PropertyDefinition || value instanceof ParameterDefinition) {
+      return align(OBJECT_HEADER + 4L * REFERENCE + 1);
+    }
+    return align(OBJECT_HEADER + 3L * REFERENCE);
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+
+  /**
+   * Снимок счетчиков хранилища
+   *
+   * @param internedCount количество обработанных объектов
+   * @param sharedCount   количество объектов, замененных уже существующими экземплярами
+   * @param savedBytes    оценка освобожденной памяти в байтах
+   */
+  public record Statistics(long internedCount, long sharedCount, long savedBytes) {
+
+    /**
+     * Прирост счетчиков с момента более раннего снимка
+     */
+    public Statistics since(Statistics earlier) {
+      return new Statistics(internedCount - earlier.internedCount, sharedCount - earlier.sharedCount,
+              savedBytes - earlier.savedBytes);
+    }
+  }
+}
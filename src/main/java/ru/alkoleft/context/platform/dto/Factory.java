@@ -35,8 +35,8 @@ public class Factory {
 
   public PropertyDefinition property(ContextProperty property) {
     return new PropertyDefinition(
-            property.name().getName(),
-            null, // nameEn
+            StringTable.intern(property.name().getName()),
+            nameEn(property.name().getName(), property.name().getAlias()),
             property.description(),
             property.accessMode() == AccessMode.READ,
             returnType(property.types())
@@ -47,7 +47,8 @@ public class Factory {
     List<Signature> methodSignatures = signatures(method);
 
     return new MethodDefinition(
-            method.name().getName(),
+            StringTable.intern(method.name().getName()),
+            nameEn(method.name().getName(), method.name().getAlias()),
             method.description(),
             methodSignatures,
             returnType(method)
@@ -57,7 +58,7 @@ public class Factory {
   private List<Signature> signatures(ContextMethod method) {
     return method.signatures().stream()
             .map(s -> new Signature(
-                    s.name().getAlias(),
+                    StringTable.intern(s.name().getAlias()),
                     s.description(),
                     s.parameters().stream()
                             .map(Factory::parameter)
@@ -70,13 +71,27 @@ public class Factory {
   }
 
   public String returnType(List<Context> types) {
-    return types.isEmpty() ? null : types.get(0).name().getName();
+    return types.isEmpty() ? null : StringTable.intern(types.get(0).name().getName());
+  }
+
+  /**
+   * Английское имя элемента: синоним из справки, если он отличается от русского имени
+   *
+   * @param name  имя элемента
+   * @param alias синоним имени
+   * @return английское имя или {@code null}
+   */
+  public String nameEn(String name, String alias) {
+    if (alias == null || alias.isBlank() || alias.equals(name)) {
+      return null;
+    }
+    return StringTable.intern(alias);
   }
 
   public ParameterDefinition parameter(ContextSignatureParameter parameter) {
     return new ParameterDefinition(
             parameter.isRequired(),
-            parameter.name().getName(),
+            StringTable.intern(parameter.name().getName()),
             parameter.description(),
             returnType(parameter.types())
     );
@@ -88,7 +103,7 @@ public class Factory {
     }
     return context.constructors().stream()
             .map(s -> new Signature(
-                    s.name().getAlias(),
+                    StringTable.intern(s.name().getAlias()),
                     s.description(),
                     s.parameters().stream()
                             .map(Factory::parameter)
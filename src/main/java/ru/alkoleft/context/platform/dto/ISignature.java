@@ -5,7 +5,7 @@ import java.util.List;
 public interface ISignature {
   String name();
 
-  String description();
+  CharSequence description();
 
   List<ParameterDefinition> params();
 }
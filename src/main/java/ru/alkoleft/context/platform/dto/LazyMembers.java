@@ -0,0 +1,155 @@
+package ru.alkoleft.context.platform.dto;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Неизменяемый список членов типа, описания которых загружаются при первом обращении к элементам.
+ * <p>
+ * Размер, имена членов, типы их значений и параметров известны сразу, поэтому построение
+ * поисковых индексов не загружает описания.
+ * Загруженный список запоминается, а загрузчик освобождается вместе со всем, что он удерживает.
+ * Потокобезопасно: описания загружаются один раз и при одновременном первом обращении.
+ *
+ * @param <T> тип описания члена
+ */
+public final class LazyMembers<T> extends AbstractList<T> implements RandomAccess {
+
+  private final int size;
+  private final String[] names;
+  private final String[] namesEn;
+  private final String[] types;
+  private final String[][] parameterTypes;
+  private Supplier<List<T>> loader;
+  private volatile List<T> items;
+
+  /**
+   * @param names   имена членов
+   * @param namesEn английские имена членов, {@code null} в массиве - имени нет
+   * @param loader  загрузка описаний членов в порядке имен
+   */
+  public LazyMembers(String[] names, String[] namesEn, Supplier<List<T>> loader) {
+    this(names, namesEn, null, null, loader);
+  }
+
+  /**
+   * @param names          имена членов
+   * @param namesEn        английские имена членов, {@code null} в массиве - имени нет
+   * @param types          типы значений: возвращаемый тип метода или тип свойства
+   * @param parameterTypes типы параметров методов, {@code null} - список без параметров
+   * @param loader         загрузка описаний членов в порядке имен
+   */
+  public LazyMembers(String[] names, String[] namesEn, String[] types, String[][] parameterTypes,
+                     Supplier<List<T>> loader) {
+    this(names.length, names, namesEn, types, parameterTypes, loader);
+  }
+
+  /**
+   * Список без имен, например, конструкторов
+   *
+   * @param size   количество элементов
+   * @param loader загрузка элементов
+   */
+  public LazyMembers(int size, Supplier<List<T>> loader) {
+    this(size, null, null, null, null, loader);
+  }
+
+  private LazyMembers(int size, String[] names, String[] namesEn, String[] types, String[][] parameterTypes,
+                      Supplier<List<T>> loader) {
+    this.size = size;
+    this.names = names;
+    this.namesEn = namesEn;
+    this.types = types;
+    this.parameterTypes = parameterTypes;
+    this.loader = loader;
+  }
+
+  /**
+   * Имя члена без загрузки описаний
+   *
+   * @return имя или {@code null} для списка без имен
+   */
+  public String name(int index) {
+    return names != null ? names[index] : null;
+  }
+
+  /**
+   * Английское имя члена без загрузки описаний
+   *
+   * @return английское имя или {@code null}
+   */
+  public String nameEn(int index) {
+    return namesEn != null ? namesEn[index] : null;
+  }
+
+  /**
+   * Тип значения члена без загрузки описаний
+   *
+   * @return возвращаемый тип метода, тип свойства или {@code null}
+   */
+  public String type(int index) {
+    return types != null ? types[index] : null;
+  }
+
+  /**
+   * Типы параметров члена без загрузки описаний
+   *
+   * @return типы параметров всех сигнатур без повторов
+   */
+  public List<String> parameterTypes(int index) {
+    return parameterTypes != null && parameterTypes[index] != null ? List.of(parameterTypes[index]) : List.of();
+  }
+
+  /**
+   * Загружены ли описания членов
+   */
+  public boolean isMaterialized() {
+    return items != null;
+  }
+
+  /**
+   * Список с теми же именами и типами, описания которого при загрузке проходят преобразование,
+   * например, замену экземплярами из общего хранилища.
+   * Новый список вызывает загрузчик этого списка напрямую: исходные описания не запоминаются
+   * и после преобразования не удерживаются ни одним из списков
+   *
+   * @param transformer преобразование загруженного списка
+   * @return новый список с отложенной загрузкой
+   */
+  public synchronized LazyMembers<T> transform(UnaryOperator<List<T>> transformer) {
+    List<T> loaded = items;
+    Supplier<List<T>> source = loaded != null ? () -> loaded : loader;
+    return new LazyMembers<>(size, names, namesEn, types, parameterTypes, () -> transformer.apply(source.get()));
+  }
+
+  @Override
+  public T get(int index) {
+    return items().get(index);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  private List<T> items() {
+    List<T> loaded = items;
+    if (loaded == null) {
+      synchronized (this) {
+        loaded = items;
+        if (loaded == null) {
+          loaded = List.copyOf(loader.get());
+          if (loaded.size() != size) {
+            throw new IllegalStateException(String.format("Загружено %d описаний вместо %d", loaded.size(), size));
+          }
+          items = loaded;
+          loader = null;
+        }
+      }
+    }
+    return loaded;
+  }
+}
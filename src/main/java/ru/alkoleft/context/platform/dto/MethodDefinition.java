@@ -1,16 +1,43 @@
 package ru.alkoleft.context.platform.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
+import java.util.Objects;
 
-public record MethodDefinition(String name, String description, List<Signature> signature,
+public record MethodDefinition(String name,
+                               @JsonInclude(JsonInclude.Include.NON_NULL) String nameEn,
+                               CharSequence description, List<Signature> signature,
                                @JsonProperty("return") String returnType
 ) {
+  public MethodDefinition {
+    description = CompactText.of(description);
+  }
+
+  public MethodDefinition(String name, CharSequence description, List<Signature> signature, String returnType) {
+    this(name, null, description, signature, returnType);
+  }
+
   public TypeDefinition getReturnTypeDefinition() {
     return new TypeDefinition(returnType, "Возвращаемое значение");
   }
 
+  /**
+   * Типы параметров всех сигнатур без повторов в порядке первого появления
+   */
+  public List<String> parameterTypes() {
+    if (signature == null) {
+      return List.of();
+    }
+    return signature.stream()
+            .flatMap(s -> s.params().stream())
+            .map(ParameterDefinition::type)
+            .filter(Objects::nonNull)
+            .distinct()
+            .toList();
+  }
+
   // Вспомогательный класс для типа возврата
   public record TypeDefinition(String name, String description) {
   }
@@ -6,7 +6,10 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 public record ParameterDefinition(
         boolean required,
         String name,
-        String description,
+        CharSequence description,
         String type
 ) {
+  public ParameterDefinition {
+    description = CompactText.of(description);
+  }
 }
@@ -0,0 +1,13 @@
+package ru.alkoleft.context.platform.dto;
+
+import java.util.List;
+
+/**
+ * Полный граф описаний контекста платформы: глобальные методы, глобальные свойства и типы
+ */
+public record PlatformContextDefinition(
+        List<MethodDefinition> globalMethods,
+        List<PropertyDefinition> globalProperties,
+        List<PlatformTypeDefinition> types
+) {
+}
@@ -1,12 +1,23 @@
 package ru.alkoleft.context.platform.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 public record PlatformTypeDefinition(
         String name,
-        String description,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String nameEn,
+        CharSequence description,
         List<MethodDefinition> methods,
         List<PropertyDefinition> properties,
         List<ISignature> constructors
 ) {
+  public PlatformTypeDefinition {
+    description = CompactText.of(description);
+  }
+
+  public PlatformTypeDefinition(String name, CharSequence description, List<MethodDefinition> methods,
+                                List<PropertyDefinition> properties, List<ISignature> constructors) {
+    this(name, null, description, methods, properties, constructors);
+  }
 }
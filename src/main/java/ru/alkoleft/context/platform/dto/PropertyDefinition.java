@@ -6,8 +6,11 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 public record PropertyDefinition(
         String name,
         String nameEn,
-        String description,
+        CharSequence description,
         boolean readonly,
         String type
 ) {
+  public PropertyDefinition {
+    description = CompactText.of(description);
+  }
 } 
\ No newline at end of file
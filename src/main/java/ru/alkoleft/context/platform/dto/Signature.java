@@ -4,7 +4,10 @@ import java.util.List;
 
 public record Signature(
         String name,
-        String description,
+        CharSequence description,
         List<ParameterDefinition> params
 ) implements ISignature {
+  public Signature {
+    description = CompactText.of(description);
+  }
 }
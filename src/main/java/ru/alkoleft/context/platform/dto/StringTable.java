@@ -0,0 +1,27 @@
+package ru.alkoleft.context.platform.dto;
+
+import com.github.benmanes.caffeine.cache.Interner;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Таблица строк имен и типов, общая для всех загруженных версий платформы.
+ * <p>
+ * Имена типов ("Строка", "Число", "Булево", "Произвольный") и членов повторяются в справке
+ * сотни тысяч раз, таблица заменяет равные строки одним экземпляром сразу при извлечении.
+ * Строки держатся по слабым ссылкам и освобождаются после выгрузки версии. Потокобезопасно.
+ */
+@UtilityClass
+public class StringTable {
+
+  private final Interner<String> strings = Interner.newWeakInterner();
+
+  /**
+   * Единственный экземпляр строки
+   *
+   * @param value строка или {@code null}
+   * @return равная строка из таблицы или {@code null}
+   */
+  public String intern(String value) {
+    return value == null ? null : strings.intern(value);
+  }
+}
@@ -6,13 +6,16 @@ import com.github._1c_syntax.bsl.context.api.Context;
 import com.github._1c_syntax.bsl.context.api.ContextMethodSignature;
 import com.github._1c_syntax.bsl.context.platform.PlatformContextType;
 import com.github._1c_syntax.bsl.context.platform.PlatformGlobalContext;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import ru.alkoleft.context.platform.dto.DefinitionPool;
 import ru.alkoleft.context.platform.dto.Factory;
 import ru.alkoleft.context.platform.dto.MethodDefinition;
 import ru.alkoleft.context.platform.dto.ParameterDefinition;
 import ru.alkoleft.context.platform.dto.PlatformTypeDefinition;
 import ru.alkoleft.context.platform.dto.PropertyDefinition;
 import ru.alkoleft.context.platform.dto.Signature;
+import ru.alkoleft.context.platform.dto.StringTable;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -25,12 +28,26 @@ import java.util.stream.Stream;
 /**
  * Base implementation for exporting platform context data.
  * Provides test data for 1C platform methods and properties demonstration.
+ * Extracted definitions are folded into {@link DefinitionPool} as they are created,
+ * so members repeated across types share one instance. Names and type names are interned
+ * through {@link StringTable}.
  */
 @Service
 public class BaseExporterLogic implements ExporterLogic {
 
   private static final String PRIMARY_SIGNATURE_NAME = "Основной";
 
+  private final DefinitionPool definitionPool;
+
+  public BaseExporterLogic() {
+    this(new DefinitionPool());
+  }
+
+  @Autowired
+  public BaseExporterLogic(DefinitionPool definitionPool) {
+    this.definitionPool = definitionPool;
+  }
+
   @Override
   public Stream<PropertyDefinition> extractProperties(PlatformGlobalContext context) {
     Objects.requireNonNull(context, "PlatformGlobalContext cannot be null");
@@ -41,17 +58,18 @@ public class BaseExporterLogic implements ExporterLogic {
             .map(property -> {
               String type = Optional.ofNullable(property.types())
                       .filter(types -> !types.isEmpty())
-                      .map(types -> types.get(0).name().getName())
+                      .map(types -> StringTable.intern(types.get(0).name().getName()))
                       .orElse(null);
 
               return new PropertyDefinition(
-                      property.name().getName(),
-                      property.name().getAlias(),
+                      StringTable.intern(property.name().getName()),
+                      Factory.nameEn(property.name().getName(), property.name().getAlias()),
                       property.description(),
                       AccessMode.READ.equals(property.accessMode()),
                       type
               );
-            });
+            })
+            .map(definitionPool::property);
   }
 
   @Override
@@ -68,16 +86,18 @@ public class BaseExporterLogic implements ExporterLogic {
 
               String returnValue = null;
               if (method.hasReturnValue() && method.returnValues() != null && !method.returnValues().isEmpty()) {
-                returnValue = method.returnValues().get(0).name().getName();
+                returnValue = StringTable.intern(method.returnValues().get(0).name().getName());
               }
 
               return new MethodDefinition(
-                      method.name().getName(),
+                      StringTable.intern(method.name().getName()),
+                      Factory.nameEn(method.name().getName(), method.name().getAlias()),
                       method.description(),
                       signatures,
                       returnValue
               );
-            });
+            })
+            .map(definitionPool::method);
   }
 
   private Signature toSignature(ContextMethodSignature sig){
@@ -92,7 +112,7 @@ public class BaseExporterLogic implements ExporterLogic {
                     .toList())
             .orElse(Collections.emptyList());
 
-    return new Signature(sig.name().getAlias(), sigDescription, paramsList);
+    return new Signature(StringTable.intern(sig.name().getAlias()), sigDescription, paramsList);
   }
 
   @Override
@@ -104,12 +124,13 @@ public class BaseExporterLogic implements ExporterLogic {
   }
 
   private PlatformTypeDefinition createTypeDefinition(PlatformContextType context) {
-    return new PlatformTypeDefinition(
-            context.name().getName(),
+    return definitionPool.type(new PlatformTypeDefinition(
+            StringTable.intern(context.name().getName()),
+            Factory.nameEn(context.name().getName(), context.name().getAlias()),
             null,
             Factory.methods(context),
             Factory.properties(context),
             Factory.constructors(context)
-    );
+    ));
   }
 } 
\ No newline at end of file
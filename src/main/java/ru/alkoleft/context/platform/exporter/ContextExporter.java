@@ -36,13 +36,13 @@ public class ContextExporter implements Exporter {
     writer.newLine();
   }
 
-  private void appendIfNotNullOrEmpty(BufferedWriter writer, String prefix, String value) throws IOException {
+  private void appendIfNotNullOrEmpty(BufferedWriter writer, String prefix, CharSequence value) throws IOException {
     if (value != null && !value.isEmpty()) {
       appendLine(writer, prefix + value);
     }
   }
 
-  private void writeSnippetStart(BufferedWriter writer, String title, String description) throws IOException {
+  private void writeSnippetStart(BufferedWriter writer, String title, CharSequence description) throws IOException {
     appendLine(writer, "TITLE: " + title);
     appendIfNotNullOrEmpty(writer, "DESCRIPTION: ", description);
   }
@@ -42,7 +42,7 @@ public class JsonExporter implements Exporter {
             generator.writeStringField("name_en", property.nameEn());
           }
           if (property.description() != null) {
-            generator.writeStringField("description", property.description());
+            generator.writeStringField("description", property.description().toString());
           }
           generator.writeBooleanField("readonly", property.readonly());
           if (property.type() != null) {
@@ -67,15 +67,18 @@ public class JsonExporter implements Exporter {
         for (MethodDefinition method : methodList) {
           generator.writeStartObject();
           generator.writeStringField("name", method.name());
+          if (method.nameEn() != null) {
+            generator.writeStringField("name_en", method.nameEn());
+          }
           if (method.description() != null) {
-            generator.writeStringField("description", method.description());
+            generator.writeStringField("description", method.description().toString());
           }
           generator.writeArrayFieldStart("signature");
           if (method.signature() != null) {
             for (var sig : method.signature()) {
               generator.writeStartObject();
               if (sig.description() != null) {
-                generator.writeStringField("description", sig.description());
+                generator.writeStringField("description", sig.description().toString());
               }
               generator.writeArrayFieldStart("params");
               if (sig.params() != null) {
@@ -83,7 +86,7 @@ public class JsonExporter implements Exporter {
                   generator.writeStartObject();
                   generator.writeStringField("name", param.name());
                   if (param.description() != null) {
-                    generator.writeStringField("description", param.description());
+                    generator.writeStringField("description", param.description().toString());
                   }
                   if (param.type() != null) {
                     generator.writeStringField("type", param.type());
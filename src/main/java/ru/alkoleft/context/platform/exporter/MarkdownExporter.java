@@ -197,11 +197,11 @@ public class MarkdownExporter implements Exporter {
     markdown.append("\n");
   }
 
-  private String escapeMarkdown(String text) {
+  private String escapeMarkdown(CharSequence text) {
     if (text == null) {
       return "";
     }
-    return text.replace("\n", " ").replace("|", "\\|");
+    return text.toString().replace("\n", " ").replace("|", "\\|");
   }
 
   @Override
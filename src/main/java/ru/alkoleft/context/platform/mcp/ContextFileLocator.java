@@ -0,0 +1,487 @@
+package ru.alkoleft.context.platform.mcp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Поиск файла справки контекста в каталоге установки платформы.
+ * <p>
+ * Сначала проверяются известные варианты размещения 1С: сам каталог, {@code bin/},
+ * {@code <версия>/} и {@code <версия>/bin/}, в том числе на уровень ниже каталога архитектуры
+ * ({@code /opt/1cv8/x86_64/<версия>}). Если ни один не подошел, выполняется параллельный обход
+ * подкаталогов с ограничением глубины. Атрибуты файлов берутся из обхода {@link Files#walkFileTree},
+ * без отдельного обращения к файловой системе для каждого элемента.
+ * <p>
+ * Найденный путь запоминается в файле состояния и при следующем запуске проверяется первым.
+ * Если в каталоге установлено несколько версий платформы, используется указанная версия,
+ * а без указания - наибольшая. Поэтому без указания версии запомненный путь используется,
+ * только если не установлена более новая версия со справкой.
+ */
+@Slf4j
+@Component
+public class ContextFileLocator {
+
+  /**
+   * Имя файла справки контекста на русском языке
+   */
+  public static final String CONTEXT_FILE_NAME = "shcntx_ru.hbk";
+
+  /**
+   * Имя файла справки контекста на английском языке. Устанавливается рядом с русским
+   */
+  public static final String EN_CONTEXT_FILE_NAME = "shcntx_en.hbk";
+
+  private static final Pattern VERSION_PATTERN = Pattern.compile("\\d+(\\.\\d+){2,3}");
+  private static final String BIN_DIRECTORY = "bin";
+  private static final String STATE_FILE_NAME = "context-files.properties";
+
+  private final String version;
+  private final int maxDepth;
+  private final Path stateFile;
+
+  /**
+   * Поиск без выбора версии, без ограничения глубины и без запоминания найденного пути
+   */
+  public ContextFileLocator() {
+    this(null, 0, null);
+  }
+
+  /**
+   * @param version  версия платформы, например {@code 8.3.23.1912}, или {@code null} - наибольшая
+   * @param maxDepth максимальная глубина обхода, 0 - без ограничения
+   * @param stateFile файл с запомненными путями или {@code null}
+   */
+  public ContextFileLocator(String version, int maxDepth, Path stateFile) {
+    this.version = version == null || version.isBlank() ? null : version.trim();
+    this.maxDepth = maxDepth > 0 ? maxDepth : Integer.MAX_VALUE;
+    this.stateFile = stateFile;
+  }
+
+  @Autowired
+  public ContextFileLocator(@Value("${platform.context.version:}") String version,
+                            @Value("${platform.context.discovery.max-depth:0}") int maxDepth,
+                            @Value("${platform.context.discovery.remember:true}") boolean remember,
+                            @Value("${platform.context.snapshot.dir:${user.home}/.cache/platform-context-exporter}") String stateDirectory) {
+    this(version, maxDepth, remember ? Paths.get(stateDirectory).resolve(STATE_FILE_NAME) : null);
+  }
+
+  /**
+   * Ищет файл справки контекста
+   *
+   * @param platformPath каталог установки платформы
+   * @return путь к файлу shcntx_ru.hbk
+   * @throws FileNotFoundException если файл не найден
+   * @throws IOException           если каталог недоступен
+   */
+  public Path locate(Path platformPath) throws IOException {
+    return locate(platformPath, version);
+  }
+
+  /**
+   * Ищет файл справки контекста заданной версии платформы
+   *
+   * @param platformPath каталог установки платформы
+   * @param requestedVersion версия платформы или {@code null} - наибольшая
+   * @return путь к файлу shcntx_ru.hbk
+   * @throws FileNotFoundException если файл не найден
+   * @throws IOException           если каталог недоступен
+   */
+  public Path locate(Path platformPath, String requestedVersion) throws IOException {
+    String version = requestedVersion == null || requestedVersion.isBlank() ? null : requestedVersion.trim();
+    String stateKey = stateKey(platformPath, version);
+    Optional<Path> remembered = remembered(stateKey, platformPath, version);
+    if (remembered.isPresent()) {
+      log.debug("Использован запомненный путь к файлу контекста: {}", remembered.get());
+      return remembered.get();
+    }
+
+    Path contextFile = probeKnownLayouts(platformPath, version).orElse(null);
+    if (contextFile == null) {
+      log.debug("Файл {} не найден в стандартных каталогах {}, выполняется обход", CONTEXT_FILE_NAME, platformPath);
+      contextFile = walk(platformPath, version);
+    }
+    if (contextFile == null) {
+      throw new FileNotFoundException(
+              String.format("Не удалось найти файл %s в каталоге %s%s", CONTEXT_FILE_NAME, platformPath,
+                      version != null ? " для версии " + version : "")
+      );
+    }
+
+    remember(stateKey, contextFile);
+    return contextFile;
+  }
+
+  /**
+   * Версии платформы, установленные в каталоге, по возрастанию
+   *
+   * @param platformPath каталог установки платформы
+   * @return каталоги версий
+   */
+  public List<Path> versionDirectories(Path platformPath) {
+    List<Path> versions = new ArrayList<>();
+    for (Path child : directories(platformPath)) {
+      if (isVersion(child)) {
+        versions.add(child);
+      } else {
+        // Каталог архитектуры: /opt/1cv8/x86_64/<версия>
+        directories(child).stream().filter(ContextFileLocator::isVersion).forEach(versions::add);
+      }
+    }
+    versions.sort(Comparator.comparing(path -> path.getFileName().toString(), ContextFileLocator::compareVersions));
+    return versions;
+  }
+
+  /**
+   * Файлы справки установленных версий платформы по номеру версии в порядке возрастания.
+   * Проверяются только известные варианты размещения, обход каталогов не выполняется
+   *
+   * @param platformPath каталог установки платформы
+   * @return файлы справки по номеру версии
+   */
+  public Map<String, Path> installedContextFiles(Path platformPath) {
+    Map<String, Path> files = new LinkedHashMap<>();
+    for (Path versionDirectory : versionDirectories(platformPath)) {
+      probe(versionDirectory).ifPresent(file -> files.putIfAbsent(versionDirectory.getFileName().toString(), file));
+    }
+    return files;
+  }
+
+  /**
+   * Проверка известных вариантов размещения файла справки
+   */
+  Optional<Path> probeKnownLayouts(Path platformPath, String version) {
+    Path rootName = platformPath.getFileName();
+    if (version == null || (rootName != null && rootName.toString().equals(version))) {
+      Optional<Path> direct = probe(platformPath);
+      if (direct.isPresent()) {
+        return direct;
+      }
+    }
+
+    List<Path> versions = versionDirectories(platformPath);
+    for (int i = versions.size() - 1; i >= 0; i--) {
+      Path versionDirectory = versions.get(i);
+      if (version == null || versionDirectory.getFileName().toString().equals(version)) {
+        Optional<Path> found = probe(versionDirectory);
+        if (found.isPresent()) {
+          return found;
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  private Optional<Path> probe(Path directory) {
+    for (Path candidate : List.of(directory.resolve(CONTEXT_FILE_NAME), directory.resolve(BIN_DIRECTORY).resolve(CONTEXT_FILE_NAME))) {
+      if (Files.isRegularFile(candidate)) {
+        return Optional.of(candidate);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Параллельный обход подкаталогов первого уровня. Для заданной версии обход прекращается во всех потоках,
+   * как только один из них нашел файл. Без версии обходятся все подкаталоги и выбирается файл наибольшей
+   * версии, чтобы результат не зависел от порядка завершения потоков
+   */
+  private Path walk(Path platformPath, String version) throws IOException {
+    var found = new AtomicReference<Path>();
+    var finder = new Finder(found, version);
+    List<Path> subdirectories = new ArrayList<>();
+
+    // Первый уровень просматривается в текущем потоке, подкаталоги распределяются между потоками
+    Files.walkFileTree(platformPath, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        if (attributes.isDirectory() && !file.equals(platformPath)) {
+          subdirectories.add(file);
+          return FileVisitResult.CONTINUE;
+        }
+        return finder.visitFile(file, attributes);
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+        if (file.equals(platformPath)) {
+          throw exc;
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+
+    if ((found.get() == null || version == null) && maxDepth > 1) {
+      subdirectories.parallelStream().forEach(subdirectory -> {
+        try {
+          Files.walkFileTree(subdirectory, EnumSet.noneOf(FileVisitOption.class), maxDepth - 1, finder);
+        } catch (IOException e) {
+          log.debug("Ошибка обхода каталога {}: {}", subdirectory, e.getMessage());
+        }
+      });
+    }
+    return found.get();
+  }
+
+  private Optional<Path> remembered(String stateKey, Path platformPath, String version) {
+    if (stateFile == null || !Files.isRegularFile(stateFile)) {
+      return Optional.empty();
+    }
+    try (Reader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+      var state = new Properties();
+      state.load(reader);
+      String value = state.getProperty(stateKey);
+      if (value == null) {
+        return Optional.empty();
+      }
+      Path contextFile = Paths.get(value);
+      if (contextFile.startsWith(platformPath.toAbsolutePath().normalize()) && Files.isRegularFile(contextFile)
+              && (version != null || !hasNewerVersion(platformPath, contextFile))) {
+        return Optional.of(contextFile);
+      }
+      log.debug("Запомненный путь {} больше не действителен", contextFile);
+    } catch (Exception e) {
+      log.debug("Не удалось прочитать файл состояния {}: {}", stateFile, e.getMessage());
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Установлена ли версия новее той, к которой относится файл справки, и есть ли в ней справка.
+   * Файл вне каталога версии сравнивать не с чем
+   */
+  private boolean hasNewerVersion(Path platformPath, Path contextFile) {
+    String current = versionOf(contextFile);
+    if (current == null) {
+      return false;
+    }
+    List<Path> versions = versionDirectories(platformPath);
+    for (int i = versions.size() - 1; i >= 0; i--) {
+      Path versionDirectory = versions.get(i);
+      if (compareVersions(versionDirectory.getFileName().toString(), current) <= 0) {
+        return false;
+      }
+      if (probe(versionDirectory).isPresent()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Запоминает найденный путь. Запись выполняется во временный файл с последующим переименованием
+   */
+  private void remember(String stateKey, Path contextFile) {
+    if (stateFile == null) {
+      return;
+    }
+    Path tmpFile = stateFile.resolveSibling(STATE_FILE_NAME + "." + UUID.randomUUID() + ".tmp");
+    try {
+      Files.createDirectories(stateFile.getParent());
+      var state = new Properties();
+      if (Files.isRegularFile(stateFile)) {
+        try (Reader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+          state.load(reader);
+        }
+      }
+      String value = contextFile.toAbsolutePath().normalize().toString();
+      if (value.equals(state.getProperty(stateKey))) {
+        return;
+      }
+      state.setProperty(stateKey, value);
+      try (Writer writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+        state.store(writer, "Найденные файлы справки контекста платформы");
+      }
+      Files.move(tmpFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (Exception e) {
+      log.debug("Не удалось сохранить файл состояния {}: {}", stateFile, e.getMessage());
+      try {
+        Files.deleteIfExists(tmpFile);
+      } catch (IOException ignored) {
+        // временный файл будет перезаписан при следующей попытке
+      }
+    }
+  }
+
+  private String stateKey(Path platformPath, String version) {
+    String root = platformPath.toAbsolutePath().normalize().toString();
+    return version != null ? root + "|" + version : root;
+  }
+
+  private static List<Path> directories(Path directory) {
+    List<Path> result = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, Files::isDirectory)) {
+      stream.forEach(result::add);
+    } catch (IOException e) {
+      // каталог недоступен или не является каталогом - стандартное размещение не подходит
+    }
+    return result;
+  }
+
+  private static boolean isVersion(Path directory) {
+    return VERSION_PATTERN.matcher(directory.getFileName().toString()).matches();
+  }
+
+  /**
+   * Файл справки на английском языке, установленный рядом с найденным русским
+   *
+   * @param contextFile файл справки на русском языке
+   * @return файл справки на английском языке, если он есть
+   */
+  public static Optional<Path> englishContextFile(Path contextFile) {
+    Path parent = contextFile.toAbsolutePath().getParent();
+    if (parent == null) {
+      return Optional.empty();
+    }
+    Path englishFile = parent.resolve(EN_CONTEXT_FILE_NAME);
+    return Files.isRegularFile(englishFile) ? Optional.of(englishFile) : Optional.empty();
+  }
+
+  /**
+   * Версия платформы, к которой относится файл справки: ближайший к файлу каталог с именем версии
+   *
+   * @param contextFile файл справки
+   * @return версия или {@code null}, если путь не содержит каталога версии
+   */
+  public static String versionOf(Path contextFile) {
+    for (Path directory = contextFile.getParent(); directory != null; directory = directory.getParent()) {
+      Path name = directory.getFileName();
+      if (name != null && isVersion(name)) {
+        return name.toString();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Сравнение версий по числовым компонентам: 8.3.9 меньше 8.3.10.
+   * Нечисловые компоненты сравниваются как строки
+   */
+  public static int compareVersions(String first, String second) {
+    String[] firstParts = first.split("\\.");
+    String[] secondParts = second.split("\\.");
+    for (int i = 0; i < Math.max(firstParts.length, secondParts.length); i++) {
+      String firstPart = i < firstParts.length ? firstParts[i] : "0";
+      String secondPart = i < secondParts.length ? secondParts[i] : "0";
+      int result;
+      try {
+        result = Long.compare(Long.parseLong(firstPart), Long.parseLong(secondPart));
+      } catch (NumberFormatException e) {
+        result = firstPart.compareTo(secondPart);
+      }
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Файл справки большей версии. Файл вне каталога версии ниже любого файла с версией,
+   * при равных версиях выбирается меньший путь
+   */
+  private static Path higherVersion(Path current, Path candidate) {
+    if (current == null) {
+      return candidate;
+    }
+    String currentVersion = versionOf(current);
+    String candidateVersion = versionOf(candidate);
+    int result;
+    if (currentVersion == null || candidateVersion == null) {
+      result = Boolean.compare(candidateVersion != null, currentVersion != null);
+    } else {
+      result = compareVersions(candidateVersion, currentVersion);
+    }
+    if (result == 0) {
+      result = current.compareTo(candidate);
+    }
+    return result > 0 ? candidate : current;
+  }
+
+  /**
+   * Посетитель обхода: ищет файл по точному имени и для заданной версии проверяет,
+   * что путь проходит через каталог этой версии. Без версии обход не прерывается,
+   * из найденных файлов сохраняется файл наибольшей версии
+   */
+  private final class Finder extends SimpleFileVisitor<Path> {
+    private final AtomicReference<Path> found;
+    private final String version;
+
+    Finder(AtomicReference<Path> found, String version) {
+      this.found = found;
+      this.version = version;
+    }
+
+    @Override
+    public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+      return isDone() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+      if (isDone()) {
+        return FileVisitResult.TERMINATE;
+      }
+      if (!attributes.isRegularFile() || !file.getFileName().toString().equals(CONTEXT_FILE_NAME)) {
+        return FileVisitResult.CONTINUE;
+      }
+      if (version == null) {
+        found.accumulateAndGet(file, ContextFileLocator::higherVersion);
+        return FileVisitResult.CONTINUE;
+      }
+      if (matchesVersion(file) && found.compareAndSet(null, file)) {
+        return FileVisitResult.TERMINATE;
+      }
+      return FileVisitResult.CONTINUE;
+    }
+
+    /**
+     * Обход можно прекратить: файл заданной версии уже найден
+     */
+    private boolean isDone() {
+      return version != null && found.get() != null;
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+      // Недоступный каталог не прерывает поиск
+      return FileVisitResult.CONTINUE;
+    }
+
+    private boolean matchesVersion(Path file) {
+      for (Path segment : file) {
+        if (segment.toString().equals(version)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package ru.alkoleft.context.platform.mcp;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
+import ru.alkoleft.context.platform.mcp.dto.SearchResultType;
+import ru.alkoleft.context.platform.mcp.index.SearchIndex;
+import ru.alkoleft.context.platform.mcp.index.SearchIndexes;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Фоновый прогрев: загрузка контекста платформы и построение поисковых индексов.
+ * <p>
+ * Прогрев выполняется в отдельном потоке, поэтому запуск Spring-контекста и рукопожатие MCP
+ * не ждут разбора справки. Запрос, пришедший во время прогрева, ждет его завершения не дольше
+ * {@code platform.context.warmup.wait-timeout}, после чего получает ответ о ходе загрузки.
+ * Если прогрев завершился ошибкой, следующий запрос запускает его заново.
+ */
+@Slf4j
+@Component
+public class ContextWarmup {
+
+  /**
+   * Признак ответа, выданного во время прогрева. Такие ответы не кэшируются
+   */
+  public static final String WARMING_UP_MARK = "⏳";
+
+  /**
+   * Условие {@code unless} для кэшей инструментов: ответ о ходе прогрева не сохраняется
+   */
+  public static final String UNLESS_WARMING_UP = "#result != null && #result.startsWith('" + WARMING_UP_MARK + "')";
+
+  private final PlatformContextService contextService;
+  private final Duration waitTimeout;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "platform-context-warmup");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private CompletableFuture<SearchIndexes> task;
+  private volatile Stage stage = Stage.PENDING;
+  private volatile long startedAt;
+
+  public ContextWarmup(PlatformContextService contextService,
+                       @Value("${platform.context.warmup.wait-timeout:PT5S}") Duration waitTimeout) {
+    this.contextService = contextService;
+    this.waitTimeout = waitTimeout;
+  }
+
+  /**
+   * Запускает прогрев, если он еще не запущен или предыдущая попытка завершилась ошибкой
+   *
+   * @return результат прогрева - индексы всех загруженных версий
+   */
+  public synchronized CompletableFuture<SearchIndexes> start() {
+    if (task == null || task.isCompletedExceptionally()) {
+      stage = Stage.LOADING_CONTEXT;
+      startedAt = System.nanoTime();
+      task = CompletableFuture.supplyAsync(this::warmup, executor);
+    }
+    return task;
+  }
+
+  /**
+   * Ожидает завершения прогрева не дольше настроенного времени
+   *
+   * @return индексы всех загруженных версий
+   * @throws WarmingUpException если прогрев не завершился за время ожидания
+   * @throws IllegalStateException если прогрев завершился ошибкой
+   */
+  public SearchIndexes await() {
+    CompletableFuture<SearchIndexes> current = start();
+    try {
+      return current.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new WarmingUpException(stage, elapsedSeconds());
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      throw new IllegalStateException(cause.getMessage(), cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WarmingUpException(stage, elapsedSeconds());
+    }
+  }
+
+  /**
+   * Готовы ли индексы к обслуживанию запросов
+   */
+  public boolean isReady() {
+    return stage == Stage.READY;
+  }
+
+  public Stage stage() {
+    return stage;
+  }
+
+  private SearchIndexes warmup() {
+    try {
+      log.info("Прогрев: загрузка контекста платформы");
+      Map<String, PlatformContextDefinition> definitions = contextService.getContextDefinitions();
+
+      stage = Stage.BUILDING_INDEXES;
+      log.info("Прогрев: построение поисковых индексов");
+      // Индексы версий независимы и строятся параллельно
+      Map<String, SearchIndex> indexes = definitions.entrySet().parallelStream()
+              .collect(Collectors.toMap(Map.Entry::getKey, entry -> SearchIndex.build(entry.getValue())));
+      Map<String, SearchIndex> ordered = new LinkedHashMap<>();
+      definitions.keySet().forEach(version -> ordered.put(version, indexes.get(version)));
+      SearchIndexes result = SearchIndexes.of(contextService.getDefaultVersion(), ordered);
+
+      stage = Stage.READY;
+      log.info("Прогрев завершен за {} с. Версия по умолчанию: {}", elapsedSeconds(), result.defaultVersion());
+      ordered.forEach((version, index) -> {
+        log.info("Версия {}. Методов: {}, Свойств: {}, Типов: {}, Имен: {}, Триграмм: {}, Префиксов: {}, " +
+                        "Неразрешенных ссылок на типы: {} (имен типов: {})",
+                version,
+                index.elements().globalCount(SearchResultType.method),
+                index.elements().globalCount(SearchResultType.property),
+                index.elements().typeCount(),
+                index.elements().size(),
+                index.trigrams().size(),
+                index.prefixes().size(),
+                index.elements().unresolvedTypeReferences(),
+                index.elements().unresolvedTypeNames().size());
+        log.debug("Версия {}. Не найдены типы: {}", version, index.elements().unresolvedTypeNames());
+      });
+      return result;
+    } catch (RuntimeException e) {
+      stage = Stage.FAILED;
+      log.error("Не удалось загрузить контекст платформы при прогреве, загрузка будет повторена при следующем запросе", e);
+      throw e;
+    }
+  }
+
+  private long elapsedSeconds() {
+    return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Этапы прогрева и доля выполненной работы в начале этапа
+   */
+  @Getter
+  public enum Stage {
+    PENDING(0, "ожидание запуска"),
+    LOADING_CONTEXT(5, "загрузка контекста платформы"),
+    BUILDING_INDEXES(80, "построение поисковых индексов"),
+    READY(100, "готово"),
+    FAILED(0, "ошибка загрузки");
+
+    private final int percent;
+    private final String description;
+
+    Stage(int percent, String description) {
+      this.percent = percent;
+      this.description = description;
+    }
+  }
+
+  /**
+   * Прогрев еще выполняется. Сообщение исключения готово для ответа инструмента
+   */
+  public static class WarmingUpException extends RuntimeException {
+
+    WarmingUpException(Stage stage, long elapsedSeconds) {
+      super(String.format("%s **Контекст платформы загружается:** выполнено %d%% (%s, %d с). " +
+                      "Повторите запрос через несколько секунд",
+              WARMING_UP_MARK, stage.getPercent(), stage.getDescription(), elapsedSeconds));
+    }
+  }
+}
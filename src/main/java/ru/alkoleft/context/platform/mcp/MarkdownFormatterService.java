@@ -6,6 +6,10 @@ import ru.alkoleft.context.platform.dto.MethodDefinition;
 import ru.alkoleft.context.platform.dto.PlatformTypeDefinition;
 import ru.alkoleft.context.platform.dto.PropertyDefinition;
 import ru.alkoleft.context.platform.dto.Signature;
+import ru.alkoleft.context.platform.mcp.dto.Completion;
+import ru.alkoleft.context.platform.mcp.dto.MemberCompletion;
+import ru.alkoleft.context.platform.mcp.dto.MemberReference;
+import ru.alkoleft.context.platform.mcp.dto.SearchResultType;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -19,6 +23,9 @@ public class MarkdownFormatterService {
 
   /**
    * Форматирование результатов поиска из DTO объектов
+   *
+   * @param results типы и элементы глобального контекста - DTO, члены типов - {@link MemberReference}
+   *                с типом-владельцем: одноименные члены разных типов выводятся как {@code Тип.Член}
    */
   public String formatSearchResults(String query, List<Object> results) {
     if (results.isEmpty()) {
@@ -73,8 +80,18 @@ public class MarkdownFormatterService {
    * Форматирование детальной информации об элементе DTO
    */
   public String formatDetailedInfo(Object obj) {
+    return formatDetailedInfo(obj, null);
+  }
+
+  /**
+   * Форматирование детальной информации об элементе DTO
+   *
+   * @param valueType тип значения элемента из индекса (возвращаемый тип метода)
+   *                  или {@code null}, если тип не задан или не найден
+   */
+  public String formatDetailedInfo(Object obj, PlatformTypeDefinition valueType) {
     if (obj instanceof MethodDefinition) {
-      return formatMethodDefinition((MethodDefinition) obj);
+      return formatMethodDefinition((MethodDefinition) obj, valueType);
     } else if (obj instanceof PropertyDefinition) {
       return formatPropertyDefinition((PropertyDefinition) obj);
     } else if (obj instanceof PlatformTypeDefinition) {
@@ -161,13 +178,100 @@ public class MarkdownFormatterService {
     return sb.toString();
   }
 
+  /**
+   * Форматирование списка элементов с типами-владельцами: возвращающих тип, принимающих его параметром
+   * или определений одного имени
+   *
+   * @param title      заголовок списка
+   * @param references найденные элементы
+   * @param total      общее количество элементов, может быть больше выведенного
+   */
+  public String formatMemberReferences(String title, List<MemberReference> references, int total) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("# 🔗 %s (%d)\n\n", title, total));
+
+    for (MemberReference reference : references) {
+      String owner = reference.owner() != null ? reference.owner() + "." : "";
+      if (reference.member() instanceof MethodDefinition method) {
+        sb.append(String.format("- 🔧 **%s%s**%s\n", owner, buildMethodSignature(method),
+                reference.owner() == null ? " *(глобальный контекст)*" : ""));
+      } else if (reference.member() instanceof PropertyDefinition property) {
+        sb.append(String.format("- 📋 **%s%s** *(%s)*%s\n", owner, property.name(), property.type(),
+                reference.owner() == null ? " *(глобальный контекст)*" : ""));
+      }
+    }
+    if (total > references.size()) {
+      sb.append(String.format("\n*... и еще %d*\n", total - references.size()));
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * Форматирование вариантов автодополнения: имя и вид элемента в одной строке
+   *
+   * @param prefix      введенный префикс
+   * @param completions варианты в порядке убывания веса
+   * @param total       количество имен, начинающихся с префикса
+   */
+  public String formatCompletions(String prefix, List<Completion> completions, int total) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("# ⌨️ %s… (%d)\n\n", prefix, total));
+
+    for (Completion completion : completions) {
+      String kind = switch (completion.kind()) {
+        case type -> "тип";
+        case method -> completion.global() ? "глобальный метод" : "метод";
+        case property -> completion.global() ? "глобальное свойство" : "свойство";
+      };
+      sb.append(String.format("- `%s` *(%s%s)*\n", completion.name(), kind,
+              completion.definitions() > 1 ? ", определений: " + completion.definitions() : ""));
+    }
+    if (total > completions.size()) {
+      sb.append(String.format("\n*... и еще %d*\n", total - completions.size()));
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * Форматирование членов, доступных после точки: имя, вид и тип значения в одной строке
+   *
+   * @param expression введенное выражение
+   * @param typeName   тип значения цепочки
+   * @param members    члены в порядке типа: сначала методы, затем свойства
+   * @param total      количество подходящих членов
+   */
+  public String formatMemberCompletions(String expression, String typeName, List<MemberCompletion> members, int total) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("# ⌨️ %s → %s (%d)\n\n", expression, typeName, total));
+
+    for (MemberCompletion member : members) {
+      boolean method = member.kind() == SearchResultType.method;
+      sb.append(String.format("- `%s%s` *(%s%s)*\n", member.name(), method ? "()" : "",
+              method ? "метод" : "свойство", member.valueType() != null ? " → " + member.valueType() : ""));
+    }
+    if (total > members.size()) {
+      sb.append(String.format("\n*... и еще %d*\n", total - members.size()));
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * Заголовок элемента: русское имя и, если известно, английское
+   */
+  private String title(String name, String nameEn) {
+    return nameEn != null ? name + " (" + nameEn + ")" : name;
+  }
+
   /**
    * Форматирование определения метода
    */
-  private String formatMethodDefinition(MethodDefinition method) {
+  private String formatMethodDefinition(MethodDefinition method, PlatformTypeDefinition returnType) {
     StringBuilder sb = new StringBuilder();
 
-    sb.append(String.format("# 🔧 %s\n\n", method.name()));
+    sb.append(String.format("# 🔧 %s\n\n", title(method.name(), method.nameEn())));
 
     // Сигнатура
     for (var sign : method.signature()) {
@@ -192,10 +296,7 @@ public class MarkdownFormatterService {
     // Возвращаемое значение
     if (method.returnType() != null) {
       sb.append("## Возвращаемое значение\n");
-      sb.append(String.format("**%s** - %s\n\n",
-              method.getReturnTypeDefinition().name(),
-              method.getReturnTypeDefinition().description() != null ?
-                      method.getReturnTypeDefinition().description() : "Описание отсутствует"));
+      sb.append(String.format("**%s** - %s\n\n", method.returnType(), typeSummary(returnType)));
     }
 
     // Описание
@@ -213,7 +314,7 @@ public class MarkdownFormatterService {
   private String formatPropertyDefinition(PropertyDefinition property) {
     StringBuilder sb = new StringBuilder();
 
-    sb.append(String.format("# 📋 %s\n\n", property.name()));
+    sb.append(String.format("# 📋 %s\n\n", title(property.name(), property.nameEn())));
 
     // Тип
     sb.append("## Тип\n");
@@ -242,7 +343,7 @@ public class MarkdownFormatterService {
   private String formatPlatformTypeDefinition(PlatformTypeDefinition type) {
     StringBuilder sb = new StringBuilder();
 
-    sb.append(String.format("# 📦 %s\n\n", type.name()));
+    sb.append(String.format("# 📦 %s\n\n", title(type.name(), type.nameEn())));
 
     // Краткая информация
     sb.append("## Краткая информация\n");
@@ -333,7 +434,10 @@ public class MarkdownFormatterService {
    * Получение имени объекта
    */
   private String getObjectName(Object obj) {
-    if (obj instanceof MethodDefinition) {
+    if (obj instanceof MemberReference reference) {
+      String name = getObjectName(reference.member());
+      return reference.owner() != null ? reference.owner() + "." + name : name;
+    } else if (obj instanceof MethodDefinition) {
       return ((MethodDefinition) obj).name();
     } else if (obj instanceof PropertyDefinition) {
       return ((PropertyDefinition) obj).name();
@@ -347,6 +451,7 @@ public class MarkdownFormatterService {
    * Получение сигнатуры объекта
    */
   private String getObjectSignature(Object obj) {
+    obj = member(obj);
     if (obj instanceof MethodDefinition) {
       return buildMethodSignature((MethodDefinition) obj);
     } else if (obj instanceof PropertyDefinition prop) {
@@ -361,15 +466,16 @@ public class MarkdownFormatterService {
    * Получение описания объекта
    */
   private String getObjectDescription(Object obj) {
+    obj = member(obj);
     if (obj instanceof MethodDefinition) {
-      String desc = ((MethodDefinition) obj).description();
-      return desc != null ? desc : "";
+      CharSequence desc = ((MethodDefinition) obj).description();
+      return desc != null ? desc.toString() : "";
     } else if (obj instanceof PropertyDefinition) {
-      String desc = ((PropertyDefinition) obj).description();
-      return desc != null ? desc : "";
+      CharSequence desc = ((PropertyDefinition) obj).description();
+      return desc != null ? desc.toString() : "";
     } else if (obj instanceof PlatformTypeDefinition) {
-      String desc = ((PlatformTypeDefinition) obj).description();
-      return desc != null ? desc : "";
+      CharSequence desc = ((PlatformTypeDefinition) obj).description();
+      return desc != null ? desc.toString() : "";
     }
     return "";
   }
@@ -378,6 +484,7 @@ public class MarkdownFormatterService {
    * Получение иконки типа объекта
    */
   private String getObjectTypeIcon(Object obj) {
+    obj = member(obj);
     if (obj instanceof MethodDefinition) {
       return "🔧";
     } else if (obj instanceof PropertyDefinition) {
@@ -392,6 +499,7 @@ public class MarkdownFormatterService {
    * Получение описания типа объекта
    */
   private String getObjectTypeDescription(Object obj) {
+    obj = member(obj);
     if (obj instanceof MethodDefinition) {
       return "Метод";
     } else if (obj instanceof PropertyDefinition) {
@@ -402,6 +510,13 @@ public class MarkdownFormatterService {
     return "Неизвестный тип";
   }
 
+  /**
+   * Описание элемента без типа-владельца
+   */
+  private static Object member(Object obj) {
+    return obj instanceof MemberReference reference ? reference.member() : obj;
+  }
+
   /**
    * Построение сигнатуры метода
    */
@@ -412,7 +527,7 @@ public class MarkdownFormatterService {
       StringBuilder sb = new StringBuilder();
       sb.append(method.name()).append("()");
       if (method.returnType() != null) {
-        sb.append(": ").append(method.getReturnTypeDefinition().name());
+        sb.append(": ").append(method.returnType());
       }
       return sb.toString();
     }
@@ -431,12 +546,25 @@ public class MarkdownFormatterService {
     sb.append(")");
 
     if (method.returnType() != null) {
-      sb.append(": ").append(method.getReturnTypeDefinition().name());
+      sb.append(": ").append(method.returnType());
     }
 
     return sb.toString();
   }
 
+  /**
+   * Краткое описание типа значения
+   */
+  private String typeSummary(PlatformTypeDefinition type) {
+    if (type == null) {
+      return "Описание отсутствует";
+    }
+    if (type.description() != null && !type.description().isEmpty()) {
+      return truncateDescription(type.description().toString().replace("\n", " "), 200);
+    }
+    return String.format("тип платформы: методов %d, свойств %d", type.methods().size(), type.properties().size());
+  }
+
   /**
    * Обрезка описания
    */
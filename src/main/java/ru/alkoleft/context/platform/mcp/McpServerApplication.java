@@ -7,12 +7,14 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Spring Boot приложение для MCP сервера платформы 1С Предприятие
  */
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
 @ComponentScan(basePackages = {
         "ru.alkoleft.context.platform.mcp",
         "ru.alkoleft.context.platform.exporter",
@@ -1,27 +1,37 @@
 package ru.alkoleft.context.platform.mcp;
 
-import com.github._1c_syntax.bsl.context.api.ContextProvider;
 import jakarta.annotation.PostConstruct;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import ru.alkoleft.context.platform.dto.MethodDefinition;
 import ru.alkoleft.context.platform.dto.PlatformTypeDefinition;
 import ru.alkoleft.context.platform.dto.PropertyDefinition;
-import ru.alkoleft.context.platform.exporter.BaseExporterLogic;
+import ru.alkoleft.context.platform.mcp.cache.SearchKeyGenerator;
+import ru.alkoleft.context.platform.mcp.dto.Completion;
+import ru.alkoleft.context.platform.mcp.dto.MemberCompletion;
+import ru.alkoleft.context.platform.mcp.dto.MemberReference;
+import ru.alkoleft.context.platform.mcp.dto.SearchResultType;
+import ru.alkoleft.context.platform.mcp.cache.ToolKeyGenerator;
+import ru.alkoleft.context.platform.mcp.index.ElementTable;
+import ru.alkoleft.context.platform.mcp.index.MemberChain;
+import ru.alkoleft.context.platform.mcp.index.PrefixIndex;
+import ru.alkoleft.context.platform.mcp.index.SearchIndex;
+import ru.alkoleft.context.platform.mcp.index.SearchIndexes;
+import ru.alkoleft.context.platform.mcp.index.TopKCollector;
+import ru.alkoleft.context.platform.mcp.index.TrigramIndex;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Улучшенный сервис поиска по API платформы 1С Предприятие через MCP протокол
@@ -31,57 +41,43 @@ import java.util.stream.Stream;
 @Service
 public class PlatformApiSearchService {
 
-  // Алиасы типов для удобства LLM - расширено русскоязычными алиасами
-  private static final Map<String, String> TYPE_ALIASES;
-  static {
-    Map<String, String> aliases = new HashMap<>();
-    
-    // Существующие английские алиасы
-    aliases.put("object", "type");
-    aliases.put("class", "type");
-    aliases.put("datatype", "type");
-    
-    // Русскоязычные алиасы для type
-    aliases.put("объект", "type");
-    aliases.put("класс", "type");
-    aliases.put("тип", "type");
-    aliases.put("структура", "type");
-    aliases.put("данные", "type");
-    
-    // Русскоязычные алиасы для method
-    aliases.put("метод", "method");
-    aliases.put("функция", "method");
-    aliases.put("процедура", "method");
-    
-    // Русскоязычные алиасы для property
-    aliases.put("свойство", "property");
-    aliases.put("реквизит", "property");
-    aliases.put("поле", "property");
-    aliases.put("атрибут", "property");
-    
-    TYPE_ALIASES = Collections.unmodifiableMap(aliases);
-  }
-  private final PlatformContextService contextService;
+  /**
+   * Кэш ранжированных результатов поиска
+   */
+  public static final String RANKING_CACHE = "api-search-ranking";
+
+  /**
+   * Кэш разрешенных цепочек обращений к членам
+   */
+  public static final String CHAIN_CACHE = "api-complete-chain";
+
+  private final ContextWarmup warmup;
   private final MarkdownFormatterService formatter;
-  private final BaseExporterLogic exporterLogic;
-  // Три отдельных индекса для оптимальной производительности
-  private Map<String, MethodDefinition> globalMethodsIndex;
-  private Map<String, PropertyDefinition> globalPropertiesIndex;
-  private Map<String, PlatformTypeDefinition> typesIndex;
-  private volatile boolean indexInitialized = false;
-
-  public PlatformApiSearchService(PlatformContextService contextService,
+  // Ранжированные списки результатов поиска без учета лимита, отдельно от отформатированного ответа
+  private final Cache rankingCache;
+  // Типы значений цепочек обращений: одна цепочка дополняется при вводе каждой буквы имени члена
+  private final Cache chainCache;
+  // Опубликованные снимки индексов всех версий. Заменяются целиком, читаются без блокировок
+  private volatile SearchIndexes currentIndexes;
+
+  public PlatformApiSearchService(ContextWarmup warmup,
                                   MarkdownFormatterService formatter,
-                                  BaseExporterLogic exporterLogic) {
-    this.contextService = contextService;
+                                  CacheManager cacheManager) {
+    this.warmup = warmup;
     this.formatter = formatter;
-    this.exporterLogic = exporterLogic;
+    this.rankingCache = cacheManager.getCache(RANKING_CACHE);
+    this.chainCache = cacheManager.getCache(CHAIN_CACHE);
   }
 
+  /**
+   * Запуск фонового прогрева. Инициализация Spring-контекста не ждет загрузки справки,
+   * индексы публикуются по завершении прогрева
+   */
   @PostConstruct
-  void init(){
-    ensureIndexInitialized();
+  void init() {
+    warmup.start().thenAccept(this::publishWarmedUpIndex);
   }
+
   /**
    * Поиск по API платформы 1С Предприятие
    *
@@ -97,39 +93,42 @@ public class PlatformApiSearchService {
    *              - "type" - только типы данных (справочники, документы, обработки и т.д.)
    *              - null или пустая строка - поиск по всем типам
    * @param limit Максимальное количество результатов (по умолчанию 10, максимум 50)
+   * @param version Версия платформы (опционально): полный номер или префикс, null - версия по умолчанию
+   * @param maxEdits Допустимое число опечаток (опционально): нечеткий поиск выполняется, только если
+   *                 точный ничего не нашел. 0 - отключить, null - по длине запроса, максимум 3
    */
   @Tool(name = "search",
-          description = "Поиск по API платформы 1С Предприятие. Используйте конкретные термины 1С для получения точных результатов.")
-  @Cacheable("api-search")
+          description = "Поиск по API платформы 1С Предприятие. Используйте конкретные термины 1С для получения точных результатов. Имена ищутся на русском и английском языках.")
+  @Cacheable(cacheNames = "api-search", keyGenerator = SearchKeyGenerator.NAME, unless = ContextWarmup.UNLESS_WARMING_UP)
   public String search(@ToolParam(description = "Поисковый запрос. Используйте конкретные термины из 1С: методы ('НайтиПоСсылке', 'ВыполнитьОбработку'), типы ('Справочник', 'Документ'), свойства ('Ссылка', 'Код', 'Наименование')") String query, 
                        @ToolParam(description = "Тип искомого элемента API: 'method' - методы, 'property' - свойства, 'type' - типы данных, null - все типы") String type, 
-                       @ToolParam(description = "Максимальное количество результатов (по умолчанию 10, максимум 50)") Integer limit) {
-    // Устанавливаем значение по умолчанию для limit
-    int effectiveLimit = (limit != null) ? limit : 10;
-    if (query == null || query.trim().isEmpty()) {
+                       @ToolParam(description = "Максимальное количество результатов (по умолчанию 10, максимум 50)") Integer limit,
+                       @ToolParam(description = "Версия платформы, например '8.3.25.1257' или '8.3.25'. По умолчанию - основная загруженная версия", required = false) String version,
+                       @ToolParam(description = "Допустимое число опечаток, если точный поиск ничего не нашел: 0 - только точный поиск, по умолчанию - по длине запроса (1-2), максимум 3", required = false) Integer maxEdits) {
+    // Нормализация запроса, типа, лимита (по умолчанию 10, максимум 50) и числа опечаток
+    SearchQuery searchQuery = SearchQuery.of(query, type, limit, maxEdits);
+    if (searchQuery.query().isEmpty()) {
       return "❌ **Ошибка:** Запрос не может быть пустым";
     }
 
+    SearchIndex index;
     try {
-      ensureIndexInitialized();
+      index = searchIndex(version);
+    } catch (ContextWarmup.WarmingUpException e) {
+      return e.getMessage();
+    } catch (IllegalArgumentException e) {
+      return "❌ **Ошибка:** " + e.getMessage();
     } catch (Exception e) {
       log.error("Ошибка при инициализации индексов поиска", e);
       return "❌ **Ошибка:** " + e.getMessage();
     }
 
-    // Нормализация запроса
-    String normalizedQuery = query.trim().toLowerCase();
-
-    // Поиск в соответствующих индексах
-    List<Object> searchResults = performIntelligentSearch(normalizedQuery, normalizeType(type));
-
-    // Лимитирование результатов
-    List<Object> limitedResults = searchResults.stream()
-            .limit(Math.min(effectiveLimit, 50))
-            .collect(Collectors.toList());
+    // Поиск в соответствующих индексах с отбором не более limit лучших результатов
+    List<Object> limitedResults = findRanked(index, version, searchQuery);
 
-    // Форматирование результатов напрямую из DTO
-    return formatter.formatSearchResults(query, limitedResults);
+    // Форматирование результатов напрямую из DTO. Ответ кэшируется по нормализованному запросу,
+    // поэтому и заголовок строится по нему, а не по исходному написанию
+    return formatter.formatSearchResults(searchQuery.query(), limitedResults);
   }
 
   /**
@@ -139,40 +138,97 @@ public class PlatformApiSearchService {
    *             - Для методов: "НайтиПоСсылке", "ВыполнитьОбработку", "ПолучитьДанные"
    *             - Для типов: "СправочникСсылка", "ДокументОбъект", "ОбработкаОбъект"
    *             - Для свойств: "Ссылка", "Код", "Наименование", "Дата"
+   *             - Английские имена: "ValueTable", "FindByCode"
    *             Регистр важен! Используйте точные имена из 1С.
    * @param type Уточнение типа элемента (опционально):
    *             - "method" - если ищете метод или функцию
    *             - "property" - если ищете свойство или реквизит
    *             - "type" - если ищете тип данных
    *             - null - автоматическое определение типа
+   * @param version Версия платформы (опционально): полный номер или префикс, null - версия по умолчанию
    */
   @Tool(name = "info",
           description = "Получение детальной информации об элементе API платформы 1С. Требует точное имя элемента.")
-  @Cacheable("api-info")
-  public String getInfo(@ToolParam(description = "Точное имя элемента API в 1С. Примеры: 'НайтиПоСсылке', 'СправочникСсылка', 'Ссылка', 'Код'") String name, 
-                        @ToolParam(description = "Уточнение типа элемента: 'method' - метод/функция, 'property' - свойство/реквизит, 'type' - тип данных, null - автоматическое определение") String type) {
+  @Cacheable(cacheNames = "api-info", keyGenerator = ToolKeyGenerator.NAME, unless = ContextWarmup.UNLESS_WARMING_UP)
+  public String getInfo(@ToolParam(description = "Точное имя элемента API в 1С на русском или английском языке. Примеры: 'НайтиПоСсылке', 'СправочникСсылка', 'Ссылка', 'Код', 'ValueTable'") String name, 
+                        @ToolParam(description = "Уточнение типа элемента: 'method' - метод/функция, 'property' - свойство/реквизит, 'type' - тип данных, null - автоматическое определение") String type,
+                        @ToolParam(description = "Версия платформы, например '8.3.25.1257' или '8.3.25'. По умолчанию - основная загруженная версия", required = false) String version) {
     if (name == null || name.trim().isEmpty()) {
       return "❌ **Ошибка:** Имя элемента не может быть пустым";
     }
 
+    SearchIndex index;
     try {
-      ensureIndexInitialized();
+      index = searchIndex(version);
+    } catch (ContextWarmup.WarmingUpException e) {
+      return e.getMessage();
+    } catch (IllegalArgumentException e) {
+      return "❌ **Ошибка:** " + e.getMessage();
     } catch (Exception e) {
       log.error("Ошибка при инициализации индексов поиска", e);
       return "❌ **Ошибка:** " + e.getMessage();
     }
 
     String normalizedName = name.trim().toLowerCase();
-    String normalizedType = normalizeType(type);
+    String normalizedType = SearchQuery.normalizeType(type);
 
     // Поиск точного совпадения в соответствующих индексах
-    Optional<Object> result = findExactMatch(normalizedName, normalizedType);
+    int id = findExactMatch(index, normalizedName, normalizedType);
 
-    if (result.isPresent()) {
-      return formatter.formatDetailedInfo(result.get());
-    } else {
-      return String.format("❌ **Не найдено:** %s типа %s", name, type != null ? type : "любого");
+    if (id != ElementTable.NO_OWNER) {
+      return formatter.formatDetailedInfo(index.elements().item(id), valueType(index.elements(), id));
+    }
+
+    // Член типов: единственное определение выводится полностью, иначе - список типов-владельцев
+    ElementTable elements = index.elements();
+    int[] definitions = findDefinitions(elements, normalizedName, normalizedType);
+    if (definitions.length == 1) {
+      return formatter.formatDetailedInfo(elements.item(definitions[0]), valueType(elements, definitions[0]));
+    } else if (definitions.length > 1) {
+      return formatDefinitions(elements, definitions, SearchQuery.normalizeLimit(null));
+    }
+    return String.format("❌ **Не найдено:** %s типа %s", name, type != null ? type : "любого");
+  }
+
+  /**
+   * Типы, в которых определен метод или свойство с указанным именем
+   *
+   * @param name    Имя метода или свойства на русском или английском языке. Примеры:
+   *                - "Записать" - типы объектов и наборов записей
+   *                - "Выгрузить" - таблицы, результаты запросов, выборки
+   * @param type    Уточнение: "method", "property" или null - методы и свойства
+   * @param limit   Максимальное количество элементов (по умолчанию 10, максимум 50)
+   * @param version Версия платформы (опционально): полный номер или префикс, null - версия по умолчанию
+   */
+  @Tool(name = "whereDefined",
+          description = "Список типов 1С, в которых определен метод или свойство с указанным именем. Используйте, когда тип-владелец неизвестен.")
+  @Cacheable(cacheNames = "api-defined", keyGenerator = ToolKeyGenerator.NAME, unless = ContextWarmup.UNLESS_WARMING_UP)
+  public String whereDefined(@ToolParam(description = "Точное имя метода или свойства на русском или английском языке. Примеры: 'Записать', 'Выгрузить', 'Write'") String name,
+                             @ToolParam(description = "Уточнение: 'method' - методы, 'property' - свойства, null - методы и свойства", required = false) String type,
+                             @ToolParam(description = "Максимальное количество элементов (по умолчанию 10, максимум 50)", required = false) Integer limit,
+                             @ToolParam(description = "Версия платформы, например '8.3.25.1257' или '8.3.25'. По умолчанию - основная загруженная версия", required = false) String version) {
+    if (name == null || name.trim().isEmpty()) {
+      return "❌ **Ошибка:** Имя элемента не может быть пустым";
+    }
+
+    SearchIndex index;
+    try {
+      index = searchIndex(version);
+    } catch (ContextWarmup.WarmingUpException e) {
+      return e.getMessage();
+    } catch (IllegalArgumentException e) {
+      return "❌ **Ошибка:** " + e.getMessage();
+    } catch (Exception e) {
+      log.error("Ошибка при инициализации индексов поиска", e);
+      return "❌ **Ошибка:** " + e.getMessage();
+    }
+
+    ElementTable elements = index.elements();
+    int[] definitions = findDefinitions(elements, name.trim().toLowerCase(), SearchQuery.normalizeType(type));
+    if (definitions.length == 0) {
+      return String.format("❌ **Не найдено:** нет методов и свойств с именем %s", name);
     }
+    return formatDefinitions(elements, definitions, SearchQuery.normalizeLimit(limit));
   }
 
   /**
@@ -188,19 +244,26 @@ public class PlatformApiSearchService {
    *                   - Для справочников: "НайтиПоКоду", "НайтиПоНаименованию", "Код", "Наименование"
    *                   - Для документов: "Записать", "Провести", "ОтменитьПроведение", "Дата", "Номер"
    *                   - Для строк: "Длина", "ВРег", "НРег", "СокрЛП"
+   * @param version Версия платформы (опционально): полный номер или префикс, null - версия по умолчанию
    */
   @Tool(name = "getMember",
           description = "Получение информации о методе или свойстве конкретного типа 1С. Используйте точные имена типов и членов.")
-  @Cacheable("api-member")
+  @Cacheable(cacheNames = "api-member", keyGenerator = ToolKeyGenerator.NAME, unless = ContextWarmup.UNLESS_WARMING_UP)
   public String getMember(@ToolParam(description = "Имя типа 1С. Примеры: 'СправочникСсылка', 'ДокументОбъект', 'Строка', 'Число', 'Дата'") String typeName, 
-                          @ToolParam(description = "Имя метода или свойства типа. Примеры: 'НайтиПоКоду', 'Записать', 'Код', 'Наименование', 'Длина'") String memberName) {
+                          @ToolParam(description = "Имя метода или свойства типа. Примеры: 'НайтиПоКоду', 'Записать', 'Код', 'Наименование', 'Длина'") String memberName,
+                          @ToolParam(description = "Версия платформы, например '8.3.25.1257' или '8.3.25'. По умолчанию - основная загруженная версия", required = false) String version) {
     if (typeName == null || typeName.trim().isEmpty() ||
             memberName == null || memberName.trim().isEmpty()) {
       return "❌ **Ошибка:** Имя типа и имя члена не могут быть пустыми";
     }
 
+    SearchIndex index;
     try {
-      ensureIndexInitialized();
+      index = searchIndex(version);
+    } catch (ContextWarmup.WarmingUpException e) {
+      return e.getMessage();
+    } catch (IllegalArgumentException e) {
+      return "❌ **Ошибка:** " + e.getMessage();
     } catch (Exception e) {
       log.error("Ошибка при инициализации индексов поиска", e);
       return "❌ **Ошибка:** " + e.getMessage();
@@ -209,27 +272,15 @@ public class PlatformApiSearchService {
     String normalizedTypeName = typeName.trim().toLowerCase();
     String normalizedMemberName = memberName.trim().toLowerCase();
 
-    PlatformTypeDefinition type = typesIndex.get(normalizedTypeName);
-    if (type == null) {
+    ElementTable elements = index.elements();
+    int typeId = elements.typeId(normalizedTypeName);
+    if (typeId == ElementTable.NO_OWNER) {
       return String.format("❌ **Тип не найден:** %s", typeName);
     }
 
-    // Поиск среди методов типа
-    Optional<MethodDefinition> method = type.methods().stream()
-            .filter(m -> m.name().toLowerCase().equals(normalizedMemberName))
-            .findFirst();
-
-    if (method.isPresent()) {
-      return formatter.formatDetailedInfo(method.get());
-    }
-
-    // Поиск среди свойств типа
-    Optional<PropertyDefinition> property = type.properties().stream()
-            .filter(p -> p.name().toLowerCase().equals(normalizedMemberName))
-            .findFirst();
-
-    if (property.isPresent()) {
-      return formatter.formatDetailedInfo(property.get());
+    int id = elements.memberId(typeId, normalizedMemberName);
+    if (id != ElementTable.NO_OWNER) {
+      return formatter.formatDetailedInfo(elements.item(id), valueType(elements, id));
     }
 
     return String.format("❌ **Член не найден:** %s в типе %s", memberName, typeName);
@@ -245,28 +296,35 @@ public class PlatformApiSearchService {
    *                 - "ТаблицаЗначений" - создание таблиц значений
    *                 - "СписокЗначений" - создание списков значений
    *                 - "УниверсальнаяДата" - создание дат
+   * @param version Версия платформы (опционально): полный номер или префикс, null - версия по умолчанию
    */
   @Tool(name = "getConstructors",
           description = "Получение списка конструкторов для указанного типа 1С. Показывает способы создания объектов данного типа.")
-  @Cacheable("api-constructors")
-  public String getConstructors(@ToolParam(description = "Имя типа 1С для получения конструкторов. Примеры: 'СправочникМенеджер', 'ДокументМенеджер', 'Запрос', 'ТаблицаЗначений'") String typeName) {
+  @Cacheable(cacheNames = "api-constructors", keyGenerator = ToolKeyGenerator.NAME, unless = ContextWarmup.UNLESS_WARMING_UP)
+  public String getConstructors(@ToolParam(description = "Имя типа 1С для получения конструкторов. Примеры: 'СправочникМенеджер', 'ДокументМенеджер', 'Запрос', 'ТаблицаЗначений'") String typeName,
+                                @ToolParam(description = "Версия платформы, например '8.3.25.1257' или '8.3.25'. По умолчанию - основная загруженная версия", required = false) String version) {
     if (typeName == null || typeName.trim().isEmpty()) {
       return "❌ **Ошибка:** Имя типа не может быть пустым";
     }
 
+    SearchIndex index;
     try {
-      ensureIndexInitialized();
+      index = searchIndex(version);
+    } catch (ContextWarmup.WarmingUpException e) {
+      return e.getMessage();
+    } catch (IllegalArgumentException e) {
+      return "❌ **Ошибка:** " + e.getMessage();
     } catch (Exception e) {
       log.error("Ошибка при инициализации индексов поиска", e);
       return "❌ **Ошибка:** " + e.getMessage();
     }
 
-    String normalizedTypeName = typeName.trim().toLowerCase();
-    PlatformTypeDefinition type = typesIndex.get(normalizedTypeName);
+    int typeId = index.elements().typeId(typeName.trim().toLowerCase());
 
-    if (type == null) {
+    if (typeId == ElementTable.NO_OWNER) {
       return String.format("❌ **Тип не найден:** %s", typeName);
     }
+    var type = (PlatformTypeDefinition) index.elements().item(typeId);
 
     if (type.constructors().isEmpty()) {
       return String.format("❌ **Конструкторы не найдены** для типа %s", typeName);
@@ -284,264 +342,529 @@ public class PlatformApiSearchService {
    *                 - "Строка" - все строковые функции и свойства
    *                 - "ТаблицаЗначений" - методы работы с таблицами значений
    *                 - "Запрос" - методы построения и выполнения запросов к базе данных
+   * @param version Версия платформы (опционально): полный номер или префикс, null - версия по умолчанию
    */
   @Tool(name = "getMembers",
           description = "Получение полного списка всех методов и свойств для указанного типа 1С. Полный справочник API типа.")
-  @Cacheable("api-members")
-  public String getMembers(@ToolParam(description = "Имя типа 1С для получения полного списка методов и свойств. Примеры: 'СправочникСсылка', 'ДокументОбъект', 'Строка', 'ТаблицаЗначений', 'Запрос'") String typeName) {
+  @Cacheable(cacheNames = "api-members", keyGenerator = ToolKeyGenerator.NAME, unless = ContextWarmup.UNLESS_WARMING_UP)
+  public String getMembers(@ToolParam(description = "Имя типа 1С для получения полного списка методов и свойств. Примеры: 'СправочникСсылка', 'ДокументОбъект', 'Строка', 'ТаблицаЗначений', 'Запрос'") String typeName,
+                           @ToolParam(description = "Версия платформы, например '8.3.25.1257' или '8.3.25'. По умолчанию - основная загруженная версия", required = false) String version) {
     if (typeName == null || typeName.trim().isEmpty()) {
       return "❌ **Ошибка:** Имя типа не может быть пустым";
     }
 
+    SearchIndex index;
     try {
-      ensureIndexInitialized();
+      index = searchIndex(version);
+    } catch (ContextWarmup.WarmingUpException e) {
+      return e.getMessage();
+    } catch (IllegalArgumentException e) {
+      return "❌ **Ошибка:** " + e.getMessage();
     } catch (Exception e) {
       log.error("Ошибка при инициализации индексов поиска", e);
       return "❌ **Ошибка:** " + e.getMessage();
     }
 
-    String normalizedTypeName = typeName.trim().toLowerCase();
-    PlatformTypeDefinition type = typesIndex.get(normalizedTypeName);
+    int typeId = index.elements().typeId(typeName.trim().toLowerCase());
 
-    if (type == null) {
+    if (typeId == ElementTable.NO_OWNER) {
       return String.format("❌ **Тип не найден:** %s", typeName);
     }
+    var type = (PlatformTypeDefinition) index.elements().item(typeId);
 
     return formatter.formatTypeMembers(type);
   }
 
   /**
-   * Инициализация поисковых индексов из реального контекста платформы
+   * Автодополнение имени API по введенному началу.
+   * Ответ не кэшируется: поиск по префиксному индексу быстрее обращения к кэшу
+   *
+   * @param prefix  Начало имени типа, метода или свойства на русском или английском языке. Примеры:
+   *                - "ТаблицаЗн" - ТаблицаЗначений
+   *                - "Найти" - НайтиПоКоду, НайтиПоНаименованию
+   * @param limit   Максимальное количество вариантов (по умолчанию 10, максимум 50)
+   * @param version Версия платформы (опционально): полный номер или префикс, null - версия по умолчанию
    */
-  private void ensureIndexInitialized() {
-    if (indexInitialized && globalMethodsIndex != null && !globalMethodsIndex.isEmpty()) {
-      return;
+  @Tool(name = "autocomplete",
+          description = "Автодополнение имен типов, методов и свойств 1С по введенному началу имени. Быстрый ответ для ввода по мере набора.")
+  public String autocomplete(@ToolParam(description = "Начало имени на русском или английском языке. Примеры: 'ТаблицаЗн', 'Найти', 'ValueT'") String prefix,
+                             @ToolParam(description = "Максимальное количество вариантов (по умолчанию 10, максимум 50)", required = false) Integer limit,
+                             @ToolParam(description = "Версия платформы, например '8.3.25.1257' или '8.3.25'. По умолчанию - основная загруженная версия", required = false) String version) {
+    if (prefix == null || prefix.trim().isEmpty()) {
+      return "❌ **Ошибка:** Начало имени не может быть пустым";
     }
 
-    synchronized (this) {
-      if (indexInitialized && globalMethodsIndex != null && !globalMethodsIndex.isEmpty()) {
-        return;
-      }
+    SearchIndex index;
+    try {
+      index = searchIndex(version);
+    } catch (ContextWarmup.WarmingUpException e) {
+      return e.getMessage();
+    } catch (IllegalArgumentException e) {
+      return "❌ **Ошибка:** " + e.getMessage();
+    } catch (Exception e) {
+      log.error("Ошибка при инициализации индексов поиска", e);
+      return "❌ **Ошибка:** " + e.getMessage();
+    }
 
-      log.info("Инициализация поисковых индексов из контекста платформы");
-      initializeSearchIndexes();
-      indexInitialized = true;
-      log.info("Поисковые индексы инициализированы. Методов: {}, Свойств: {}, Типов: {}",
-              globalMethodsIndex.size(),
-              globalPropertiesIndex.size(),
-              typesIndex.size());
+    String normalizedPrefix = prefix.trim().toLowerCase();
+    PrefixIndex prefixes = index.prefixes();
+    int[] entries = prefixes.complete(normalizedPrefix, SearchQuery.normalizeLimit(limit));
+    if (entries.length == 0) {
+      return String.format("❌ **Не найдено:** нет имен, начинающихся с %s", prefix.trim());
     }
+
+    ElementTable elements = index.elements();
+    List<Completion> completions = new ArrayList<>(entries.length);
+    for (int entry : entries) {
+      int id = prefixes.elementId(entry);
+      completions.add(new Completion(prefixes.name(entry), elements.kind(id),
+              elements.kind(id) != SearchResultType.type && elements.owner(id) == ElementTable.NO_OWNER,
+              prefixes.definitions(entry)));
+    }
+    return formatter.formatCompletions(prefix.trim(), completions, prefixes.count(normalizedPrefix));
   }
 
   /**
-   * Инициализация трех отдельных индексов
+   * Члены, доступные после точки в цепочке обращений.
+   * Каждый шаг разрешается через тип значения предыдущего: возвращаемый тип метода или тип свойства
+   *
+   * @param expression Выражение до курсора. Примеры:
+   *                   - "Запрос.Выполнить().Выбрать()." - члены выборки из результата запроса
+   *                   - "Новый ТаблицаЗначений().Колонки.Доб" - члены коллекции колонок, начинающиеся с "Доб"
+   * @param limit      Максимальное количество членов (по умолчанию 10, максимум 50)
+   * @param version    Версия платформы (опционально): полный номер или префикс, null - версия по умолчанию
    */
-  private void initializeSearchIndexes() {
-    globalMethodsIndex = new HashMap<>();
-    globalPropertiesIndex = new HashMap<>();
-    typesIndex = new HashMap<>();
+  @Tool(name = "complete",
+          description = "Члены типа, доступные после точки в выражении 1С. Разрешает цепочки вызовов через возвращаемые типы: 'Запрос.Выполнить().Выбрать().'")
+  @Cacheable(cacheNames = "api-complete", keyGenerator = ToolKeyGenerator.NAME, unless = ContextWarmup.UNLESS_WARMING_UP)
+  public String complete(@ToolParam(description = "Выражение до курсора, заканчивающееся точкой или началом имени члена. Примеры: 'Запрос.Выполнить().Выбрать().', 'Справочники.', 'Новый Массив().Доб'") String expression,
+                         @ToolParam(description = "Максимальное количество членов (по умолчанию 10, максимум 50)", required = false) Integer limit,
+                         @ToolParam(description = "Версия платформы, например '8.3.25.1257' или '8.3.25'. По умолчанию - основная загруженная версия", required = false) String version) {
+    if (expression == null || expression.trim().isEmpty()) {
+      return "❌ **Ошибка:** Выражение не может быть пустым";
+    }
 
+    SearchIndex index;
+    MemberChain chain;
     try {
-      ContextProvider provider = contextService.getContextProvider();
-
-      // Заполняем индекс глобальных методов и свойств
-      var globalContext = provider.getGlobalContext();
-      if (globalContext != null) {
-        exporterLogic.extractMethods(globalContext).forEach(methodDef -> {
-          globalMethodsIndex.put(methodDef.name().toLowerCase(), methodDef);
-        });
-
-        exporterLogic.extractProperties(globalContext).forEach(propertyDef -> {
-          globalPropertiesIndex.put(propertyDef.name().toLowerCase(), propertyDef);
-        });
+      index = searchIndex(version);
+      chain = MemberChain.parse(expression.trim());
+    } catch (ContextWarmup.WarmingUpException e) {
+      return e.getMessage();
+    } catch (IllegalArgumentException e) {
+      return "❌ **Ошибка:** " + e.getMessage();
+    } catch (Exception e) {
+      log.error("Ошибка при инициализации индексов поиска", e);
+      return "❌ **Ошибка:** " + e.getMessage();
+    }
+
+    ElementTable elements = index.elements();
+    MemberChain.Resolution resolution = resolveChain(index, version, chain);
+    if (!resolution.isResolved()) {
+      String step = MemberChain.name(chain.steps().get(resolution.failedStep()));
+      return resolution.ownerId() == ElementTable.NO_TYPE
+              ? String.format("❌ **Не найдено:** %s не является типом или глобальным элементом с известным типом значения", step)
+              : String.format("❌ **Не найдено:** тип значения %s в типе %s", step, elements.name(resolution.ownerId()));
+    }
+
+    int typeId = resolution.typeId();
+    String prefix = chain.prefix();
+    int effectiveLimit = SearchQuery.normalizeLimit(limit);
+    List<MemberCompletion> members = new ArrayList<>(effectiveLimit);
+    int total = 0;
+    for (int id = elements.memberStart(typeId); id < elements.memberEnd(typeId); id++) {
+      boolean russian = elements.lowerName(id).startsWith(prefix);
+      if (!russian && (elements.lowerNameEn(id) == null || !elements.lowerNameEn(id).startsWith(prefix))) {
+        continue;
+      }
+      if (total++ < effectiveLimit) {
+        int valueType = elements.valueType(id);
+        members.add(new MemberCompletion(russian ? elements.name(id) : elements.nameEn(id), elements.kind(id),
+                valueType != ElementTable.NO_TYPE ? elements.name(valueType) : null));
       }
+    }
+    if (total == 0) {
+      return String.format("❌ **Не найдено:** в типе %s нет членов, начинающихся с %s", elements.name(typeId), prefix);
+    }
+    return formatter.formatMemberCompletions(expression.trim(), elements.name(typeId), members, total);
+  }
 
-      // Заполняем индекс типов данных
-      var contexts = provider.getContexts();
-      if (contexts != null) {
-        exporterLogic.extractTypes(List.copyOf(contexts)).forEach(typeDefinition -> {
-          typesIndex.put(typeDefinition.name().toLowerCase(), typeDefinition);
-        });
+  /**
+   * Разрешение цепочки с кэшем: при вводе имени члена шаги цепочки не меняются
+   */
+  private MemberChain.Resolution resolveChain(SearchIndex index, String version, MemberChain chain) {
+    var key = new ChainKey(version != null ? version.trim() : null, chain.key());
+    ResolvedChain resolved = chainCache != null ? chainCache.get(key, ResolvedChain.class) : null;
+    // Идентификаторы типов действительны только для снимка, по которому разрешена цепочка
+    if (resolved == null || resolved.index() != index) {
+      resolved = new ResolvedChain(index, chain.resolve(index.elements()));
+      if (chainCache != null) {
+        chainCache.put(key, resolved);
       }
+    }
+    return resolved.resolution();
+  }
 
+  /**
+   * Методы и свойства, возвращающие значение типа
+   *
+   * @param typeName Имя типа 1С, значение которого нужно получить. Примеры:
+   *                 - "ВыборкаИзРезультатаЗапроса" - методы, возвращающие выборку
+   *                 - "ТаблицаЗначений" - методы и свойства, дающие таблицу значений
+   * @param limit    Максимальное количество элементов (по умолчанию 10, максимум 50)
+   * @param version  Версия платформы (опционально): полный номер или префикс, null - версия по умолчанию
+   */
+  @Tool(name = "whereReturned",
+          description = "Методы и свойства, возвращающие значение указанного типа 1С. Отвечает на вопрос, как получить объект этого типа.")
+  @Cacheable(cacheNames = "api-returned", keyGenerator = ToolKeyGenerator.NAME, unless = ContextWarmup.UNLESS_WARMING_UP)
+  public String whereReturned(@ToolParam(description = "Имя типа 1С на русском или английском языке. Примеры: 'ВыборкаИзРезультатаЗапроса', 'ТаблицаЗначений', 'ValueTable'") String typeName,
+                              @ToolParam(description = "Максимальное количество элементов (по умолчанию 10, максимум 50)", required = false) Integer limit,
+                              @ToolParam(description = "Версия платформы, например '8.3.25.1257' или '8.3.25'. По умолчанию - основная загруженная версия", required = false) String version) {
+    return findTypeUsages(typeName, limit, version, true);
+  }
+
+  /**
+   * Методы, принимающие значение типа параметром
+   *
+   * @param typeName Имя типа 1С, значение которого нужно передать. Примеры:
+   *                 - "ТаблицаЗначений" - методы с параметром типа таблица значений
+   *                 - "Структура" - методы, принимающие структуру
+   * @param limit    Максимальное количество методов (по умолчанию 10, максимум 50)
+   * @param version  Версия платформы (опционально): полный номер или префикс, null - версия по умолчанию
+   */
+  @Tool(name = "whereAccepted",
+          description = "Методы, принимающие значение указанного типа 1С параметром. Отвечает на вопрос, куда можно передать объект этого типа.")
+  @Cacheable(cacheNames = "api-accepted", keyGenerator = ToolKeyGenerator.NAME, unless = ContextWarmup.UNLESS_WARMING_UP)
+  public String whereAccepted(@ToolParam(description = "Имя типа 1С на русском или английском языке. Примеры: 'ТаблицаЗначений', 'Структура', 'Array'") String typeName,
+                              @ToolParam(description = "Максимальное количество методов (по умолчанию 10, максимум 50)", required = false) Integer limit,
+                              @ToolParam(description = "Версия платформы, например '8.3.25.1257' или '8.3.25'. По умолчанию - основная загруженная версия", required = false) String version) {
+    return findTypeUsages(typeName, limit, version, false);
+  }
+
+  /**
+   * Элементы из обратного списка типа: время поиска не зависит от размера контекста
+   *
+   * @param returned {@code true} - элементы, возвращающие тип, {@code false} - методы, принимающие его параметром
+   */
+  private String findTypeUsages(String typeName, Integer limit, String version, boolean returned) {
+    if (typeName == null || typeName.trim().isEmpty()) {
+      return "❌ **Ошибка:** Имя типа не может быть пустым";
+    }
+
+    SearchIndex index;
+    try {
+      index = searchIndex(version);
+    } catch (ContextWarmup.WarmingUpException e) {
+      return e.getMessage();
+    } catch (IllegalArgumentException e) {
+      return "❌ **Ошибка:** " + e.getMessage();
     } catch (Exception e) {
-      log.warn("Не удалось загрузить данные из контекста платформы", e);
+      log.error("Ошибка при инициализации индексов поиска", e);
+      return "❌ **Ошибка:** " + e.getMessage();
     }
+
+    ElementTable elements = index.elements();
+    int typeId = elements.typeId(typeName.trim().toLowerCase());
+    if (typeId == ElementTable.NO_OWNER) {
+      return String.format("❌ **Тип не найден:** %s", typeName);
+    }
+
+    int start = returned ? elements.returnedByStart(typeId) : elements.acceptedByStart(typeId);
+    int end = returned ? elements.returnedByEnd(typeId) : elements.acceptedByEnd(typeId);
+    String name = ((PlatformTypeDefinition) elements.item(typeId)).name();
+    if (start == end) {
+      return returned
+              ? String.format("❌ **Не найдено:** нет методов и свойств, возвращающих %s", name)
+              : String.format("❌ **Не найдено:** нет методов, принимающих %s параметром", name);
+    }
+
+    int count = Math.min(end - start, SearchQuery.normalizeLimit(limit));
+    List<MemberReference> references = new ArrayList<>(count);
+    for (int i = start; i < start + count; i++) {
+      references.add(memberReference(elements, returned ? elements.returnedBy(i) : elements.acceptedBy(i)));
+    }
+    String title = returned ? "Возвращают " + name : "Принимают " + name + " параметром";
+    return formatter.formatMemberReferences(title, references, end - start);
   }
 
   /**
-   * Нормализация типа с учетом алиасов
+   * Методы и свойства с именем из группы индекса имен: одно обращение к хэш-таблице
+   *
+   * @param lowerName имя в нижнем регистре
+   * @param type      "method", "property" или {@code null} - методы и свойства
+   * @return идентификаторы элементов: сначала глобальные, затем члены типов
    */
-  private String normalizeType(String type) {
-    if (type == null || type.trim().isEmpty()) {
-      return null;
+  private int[] findDefinitions(ElementTable elements, String lowerName, String type) {
+    int nameId = elements.memberNameId(lowerName);
+    if (nameId == ElementTable.NO_NAME || "type".equals(type)) {
+      return new int[0];
+    }
+    int start = elements.membersByNameStart(nameId);
+    int end = elements.membersByNameEnd(nameId);
+    int[] ids = new int[end - start];
+    int count = 0;
+    for (int i = start; i < end; i++) {
+      int id = elements.memberByName(i);
+      if (type == null || elements.kind(id).name().equals(type)) {
+        ids[count++] = id;
+      }
+    }
+    return count == ids.length ? ids : Arrays.copyOf(ids, count);
+  }
+
+  /**
+   * Список определений с типами-владельцами, не длиннее лимита
+   */
+  private String formatDefinitions(ElementTable elements, int[] definitions, int limit) {
+    int count = Math.min(definitions.length, limit);
+    List<MemberReference> references = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      references.add(memberReference(elements, definitions[i]));
+    }
+    String name = getObjectName(elements.item(definitions[0]));
+    return formatter.formatMemberReferences("Определения " + name, references, definitions.length);
+  }
+
+  private MemberReference memberReference(ElementTable elements, int id) {
+    int owner = elements.owner(id);
+    String ownerName = owner != ElementTable.NO_OWNER ? ((PlatformTypeDefinition) elements.item(owner)).name() : null;
+    return new MemberReference(ownerName, elements.item(id));
+  }
+
+  /**
+   * Получение опубликованного снимка индексов версии.
+   * Пока снимки не опубликованы, запрос ожидает завершения прогрева ограниченное время
+   *
+   * @param version запрошенная версия или {@code null} - версия по умолчанию
+   * @throws ContextWarmup.WarmingUpException если прогрев не завершился за время ожидания
+   * @throws IllegalArgumentException         если версия не загружена
+   */
+  private SearchIndex searchIndex(String version) {
+    SearchIndexes indexes = currentIndexes;
+    if (indexes == null) {
+      indexes = publishWarmedUpIndex(warmup.await());
+    }
+    return indexes.resolve(version);
+  }
+
+  /**
+   * Публикация индексов, построенных прогревом, если они не были заменены более новыми
+   */
+  private synchronized SearchIndexes publishWarmedUpIndex(SearchIndexes indexes) {
+    if (currentIndexes == null) {
+      currentIndexes = indexes;
+    }
+    return currentIndexes;
+  }
+
+  /**
+   * Публикация новых снимков индексов версий.
+   * Состав версий и версия по умолчанию заменяются целиком: версия, не входящая в состав, исключается.
+   * Запросы, уже получившие прежний снимок, завершаются на нем
+   *
+   * @param defaultVersion версия по умолчанию или {@code null} - наибольшая
+   * @param versions       загруженные версии в порядке возрастания
+   * @param rebuilt        полностью построенные снимки индексов перезагруженных и новых версий
+   */
+  public synchronized void publishIndexes(String defaultVersion, Collection<String> versions,
+                                          Map<String, SearchIndex> rebuilt) {
+    SearchIndexes indexes = currentIndexes != null ? currentIndexes : warmup.await();
+    currentIndexes = indexes.update(defaultVersion, versions, rebuilt);
+    rebuilt.forEach((version, index) ->
+            log.info("Опубликован новый снимок поисковых индексов версии {}. Методов: {}, Свойств: {}, Типов: {}, Имен: {}",
+                    version,
+                    index.elements().globalCount(SearchResultType.method),
+                    index.elements().globalCount(SearchResultType.property),
+                    index.elements().typeCount(),
+                    index.elements().size()));
+    log.info("Версии платформы: {}. Версия по умолчанию: {}", String.join(", ", currentIndexes.byVersion().keySet()),
+            currentIndexes.defaultVersion());
+  }
+
+  /**
+   * Получение лучших результатов запроса из кэша ранжирования.
+   * Члены типов возвращаются как {@link MemberReference} с именем типа-владельца.
+   * Ранжирование, построенное для большего лимита или содержащее все совпадения,
+   * обслуживает любой меньший лимит: лучшие N результатов являются началом лучших K
+   */
+  private List<Object> findRanked(SearchIndex index, String version, SearchQuery searchQuery) {
+    ElementTable elements = index.elements();
+    var key = new RankingKey(version != null ? version.trim() : null, searchQuery.query(), searchQuery.type(),
+            searchQuery.maxEdits());
+    Ranking ranking = rankingCache != null ? rankingCache.get(key, Ranking.class) : null;
+    // Идентификаторы элементов действительны только для снимка, по которому построено ранжирование
+    if (ranking == null || ranking.index() != index || !ranking.covers(searchQuery.limit())) {
+      ranking = performIntelligentSearch(index, searchQuery.query(), searchQuery.type(), searchQuery.limit(),
+              searchQuery.maxEdits());
+      if (rankingCache != null) {
+        rankingCache.put(key, ranking);
+      }
+    } else {
+      log.debug("Ранжирование для '{}' получено из кэша", searchQuery.query());
     }
 
-    String normalized = type.trim().toLowerCase();
-    return TYPE_ALIASES.getOrDefault(normalized, normalized);
+    int[] ids = ranking.ids();
+    // Член типа передается с владельцем: одноименные члены разных типов различаются в ответе
+    return Arrays.stream(ids, 0, Math.min(ids.length, searchQuery.limit()))
+            .mapToObj(id -> elements.owner(id) != ElementTable.NO_OWNER ? memberReference(elements, id) : elements.item(id))
+            .collect(Collectors.toList());
   }
 
   /**
-   * Главный интеллектуальный алгоритм поиска с 4 уровнями приоритета
+   * Главный интеллектуальный алгоритм поиска с 5 уровнями приоритета
    *
    * Приоритет 1 (ВЫСШИЙ): Объединение слов в составные типы
    * Приоритет 2 (ВЫСОКИЙ): Тип + член
    * Приоритет 3 (СРЕДНИЙ): Обычный поиск (существующий алгоритм)
-   * Приоритет 4 (НИЗШИЙ): Поиск по словам в любом порядке
+   * Приоритет 4 (НИЗКИЙ): Поиск по словам в любом порядке
+   * Приоритет 5 (НИЗШИЙ): Нечеткий поиск с опечатками, если точные этапы ничего не нашли
+   * 
+   * Результаты всех этапов попадают в ограниченный сборщик лучших limit элементов,
+   * упорядоченных по заранее вычисленному ключу {@link SearchStage#key}.
+   * Ключ начинается с приоритета этапа, поэтому результат менее приоритетного этапа
+   * не может вытеснить уже отобранные. Как только сборщик заполнен, оставшиеся этапы пропускаются
    * 
    * @param query поисковый запрос
    * @param type тип поиска (или null)
-   * @return отсортированный список результатов по приоритетам
+   * @param limit количество отбираемых результатов
+   * @param maxEdits допустимое число опечаток нечеткого поиска, 0 - этап отключен
+   * @return идентификаторы лучших результатов, отсортированные по приоритетам
    */
-  private List<Object> performIntelligentSearch(String query, String type) {
-    List<SearchResult> allResults = new ArrayList<>();
+  private Ranking performIntelligentSearch(SearchIndex index, String query, String type, int limit, int maxEdits) {
+    // Этапы выполняются по убыванию приоритета: элемент, найденный несколькими этапами,
+    // учитывается с приоритетом первого из них
+    var collector = new TopKCollector(limit, index.elements().size());
     
     // Разбиваем запрос на слова для интеллектуального поиска
-    String[] words = query.trim().toLowerCase().split("\\s+");
+    String[] words = query.split(" ");
     
-    // Приоритет 1: Объединение слов в составные типы
-    if (words.length >= 2 && (type == null || type.equals("type"))) {
-      List<SearchResult> compoundResults = searchCompoundTypes(words, query);
-      allResults.addAll(compoundResults);
+    SearchStage stoppedBefore = null;
+    for (SearchStage stage : SearchStage.values()) {
+      if (collector.isFull()) {
+        // Более приоритетные этапы уже заполнили лимит
+        stoppedBefore = stage;
+        break;
+      }
+      if (!stage.isApplicable(words, type, maxEdits, collector)) {
+        continue;
+      }
       
-      log.debug("Приоритет 1 (составные типы): найдено {} результатов для '{}'", 
-               compoundResults.size(), query);
-    }
-    
-    // Приоритет 2: Тип + член
-    if (words.length >= 2) {
-      List<SearchResult> typeMemberResults = searchTypeMember(words, query);
-      allResults.addAll(typeMemberResults);
+      int found = runStage(index, stage, query, words, type, maxEdits, collector);
       
-      log.debug("Приоритет 2 (тип + член): найдено {} результатов для '{}'", 
-               typeMemberResults.size(), query);
+      log.debug("Приоритет {} ({}): найдено {} результатов для '{}'", 
+               stage.getPriority(), stage.getDescription(), found, query);
     }
     
-    // Приоритет 3: Обычный поиск (существующий алгоритм)
-    List<Object> regularResults = performRegularSearch(query, type);
-    for (Object item : regularResults) {
-      allResults.add(SearchResult.regular(item, query));
+    if (stoppedBefore != null) {
+      log.debug("Поиск '{}' завершен досрочно: лимит {} заполнен до этапа {} ({})", 
+               query, limit, stoppedBefore.getPriority(), stoppedBefore.getDescription());
     }
     
-    log.debug("Приоритет 3 (обычный поиск): найдено {} результатов для '{}'", 
-             regularResults.size(), query);
-    
-    // Приоритет 4: Поиск по словам в любом порядке (только если нет хороших результатов)
-    if (words.length >= 2 && allResults.size() < 5) {
-      List<SearchResult> wordOrderResults = searchWordOrder(words, query, type);
-      allResults.addAll(wordOrderResults);
-      
-      log.debug("Приоритет 4 (поиск по словам): найдено {} результатов для '{}'", 
-               wordOrderResults.size(), query);
-    }
+    int[] ids = collector.drain();
     
-    // Сортируем результаты по приоритетам и убираем дубликаты
-    List<SearchResult> uniqueResults = removeDuplicates(allResults);
-    uniqueResults.sort(SearchResult::compareTo);
+    log.info("Интеллектуальный поиск '{}': всего найдено {} уникальных результатов, отобрано {}{}", 
+             query, collector.matched(), ids.length,
+             stoppedBefore != null ? ", пропущены этапы начиная с " + stoppedBefore.getMatchType() : "");
     
-    // Преобразуем обратно в список Object для совместимости
-    List<Object> finalResults = uniqueResults.stream()
-            .map(SearchResult::getItem)
-            .collect(Collectors.toList());
-    
-    log.info("Интеллектуальный поиск '{}': всего найдено {} уникальных результатов", 
-             query, finalResults.size());
-    
-    return finalResults;
+    // Ранжирование полное, если отобраны все совпадения и ни один этап не пропущен
+    return new Ranking(index, ids, stoppedBefore == null && collector.matched() == ids.length);
   }
   
   /**
-   * Существующий алгоритм поиска (Приоритет 3)
-   * Переименован из performMultiIndexSearch для ясности
+   * Выполнение одного этапа поиска
+   *
+   * @return количество найденных этапом элементов
    */
-  private List<Object> performRegularSearch(String query, String type) {
-    List<Object> results = new ArrayList<>();
-
-    // Определяем в каких индексах искать
-    boolean searchMethods = type == null || type.equals("method");
-    boolean searchProperties = type == null || type.equals("property");
-    boolean searchTypes = type == null || type.equals("type");
-
-    // Поиск в глобальных методах
-    if (searchMethods) {
-      globalMethodsIndex.entrySet().stream()
-              .filter(entry -> entry.getKey().contains(query))
-              .map(Map.Entry::getValue)
-              .forEach(results::add);
-    }
-
-    // Поиск в глобальных свойствах
-    if (searchProperties) {
-      globalPropertiesIndex.entrySet().stream()
-              .filter(entry -> entry.getKey().contains(query))
-              .map(Map.Entry::getValue)
-              .forEach(results::add);
-    }
-
-    // Поиск в типах данных
-    if (searchTypes) {
-      typesIndex.entrySet().stream()
-              .filter(entry -> entry.getKey().contains(query))
-              .map(Map.Entry::getValue)
-              .forEach(results::add);
-    }
+  private int runStage(SearchIndex index, SearchStage stage, String query, String[] words, String type,
+                       int maxEdits, TopKCollector collector) {
+    ElementTable elements = index.elements();
+    return switch (stage) {
+      case COMPOUND_TYPE -> searchCompoundTypes(elements, words, query, collector);
+      case TYPE_MEMBER -> searchTypeMember(elements, words, query, collector);
+      case REGULAR -> performRegularSearch(index, query, type, collector);
+      case WORD_ORDER -> searchWordOrder(elements, words, query, type, collector);
+      case FUZZY -> searchFuzzy(index, query, type, maxEdits, collector);
+    };
+  }
 
-    // Поиск в методах и свойствах типов (если тип не указан)
-    if (type == null) {
-      for (PlatformTypeDefinition typeDefinition : typesIndex.values()) {
-        // Методы типов
-        typeDefinition.methods().stream()
-                .filter(method -> method.name().toLowerCase().contains(query))
-                .forEach(results::add);
-
-        // Свойства типов
-        typeDefinition.properties().stream()
-                .filter(property -> property.name().toLowerCase().contains(query))
-                .forEach(results::add);
+  /**
+   * Нечеткий поиск (Приоритет 5): выполняется, только если точные этапы ничего не нашли.
+   * Слова запроса склеиваются, латинские буквы, похожие на кириллические, заменяются,
+   * затем в словаре имен ищутся имена на расстоянии Левенштейна не больше допустимого.
+   * Ближе к запросу - выше
+   *
+   * @return количество найденных элементов
+   */
+  private int searchFuzzy(SearchIndex index, String query, String type, int maxEdits, TopKCollector collector) {
+    ElementTable elements = index.elements();
+    PrefixIndex prefixes = index.prefixes();
+    String name = SearchQuery.foldLookalikes(query).replace(" ", "");
+    int[] found = new int[1];
+    prefixes.matchWithin(name, maxEdits, (entry, distance) -> {
+      String key = prefixes.key(entry);
+      int typeId = elements.typeId(key);
+      if (typeId != ElementTable.NO_OWNER && matchesType(elements, typeId, type)
+              && collector.offer(typeId, SearchStage.FUZZY.fuzzyKey(distance, elements.nameRank(typeId)))) {
+        found[0]++;
       }
-    }
-
-    // Сортировка по релевантности (точные совпадения в начале)
-    return results.stream()
-            .sorted((a, b) -> {
-              String nameA = getObjectName(a).toLowerCase();
-              String nameB = getObjectName(b).toLowerCase();
-
-              boolean exactA = nameA.equals(query);
-              boolean exactB = nameB.equals(query);
-
-              if (exactA && !exactB) return -1;
-              if (!exactA && exactB) return 1;
-
-              boolean startsA = nameA.startsWith(query);
-              boolean startsB = nameB.startsWith(query);
-
-              if (startsA && !startsB) return -1;
-              if (!startsA && startsB) return 1;
-
-              return nameA.compareTo(nameB);
-            })
-            .collect(Collectors.toList());
+      int nameId = elements.memberNameId(key);
+      if (nameId == ElementTable.NO_NAME) {
+        return;
+      }
+      for (int i = elements.membersByNameStart(nameId); i < elements.membersByNameEnd(nameId); i++) {
+        int id = elements.memberByName(i);
+        if (matchesType(elements, id, type)
+                && collector.offer(id, SearchStage.FUZZY.fuzzyKey(distance, elements.nameRank(id)))) {
+          found[0]++;
+        }
+      }
+    });
+    return found[0];
   }
   
   /**
-   * Удаляет дубликаты из результатов поиска
-   * Сравнивает по имени элемента, оставляет результат с более высоким приоритетом
+   * Существующий алгоритм поиска (Приоритет 3)
+   * Переименован из performMultiIndexSearch для ясности.
+   * Порядок внутри этапа задается ключом ранжирования, поэтому список совпадений не сортируется
+   *
+   * @return количество найденных элементов
    */
-  private List<SearchResult> removeDuplicates(List<SearchResult> results) {
-    Map<String, SearchResult> uniqueResults = new HashMap<>();
-    
-    for (SearchResult result : results) {
-      String itemName = getObjectName(result.getItem()).toLowerCase();
-      
-      // Если элемент уже есть, оставляем тот, у которого приоритет выше (меньше число)
-      SearchResult existing = uniqueResults.get(itemName);
-      if (existing == null || result.getPriority() < existing.getPriority()) {
-        uniqueResults.put(itemName, result);
+  private int performRegularSearch(SearchIndex index, String query, String type, TopKCollector collector) {
+    int found = 0;
+    ElementTable elements = index.elements();
+
+    // Поиск в методах и свойствах типов выполняется, только если тип не указан
+    int end = type == null ? elements.size() : elements.typeMembersStart();
+
+    if (TrigramIndex.isApplicable(query)) {
+      // Проверяем только кандидатов, содержащих все триграммы запроса
+      for (int id : index.trigrams().candidates(query)) {
+        if (id < end && matchesType(elements, id, type) && elements.nameContains(id, query)) {
+          collector.offer(id, SearchStage.REGULAR.key(0, elements.nameRank(id)));
+          found++;
+        }
+      }
+    } else {
+      // Для коротких запросов триграмм нет, просматриваем заранее приведенные к нижнему регистру имена
+      for (int id = 0; id < end; id++) {
+        if (matchesType(elements, id, type) && elements.nameContains(id, query)) {
+          collector.offer(id, SearchStage.REGULAR.key(0, elements.nameRank(id)));
+          found++;
+        }
       }
     }
-    
-    return new ArrayList<>(uniqueResults.values());
+    return found;
+  }
+
+  /**
+   * Проверяет, подходит ли элемент таблицы под искомый тип.
+   * Члены типов ищутся только без указания типа
+   */
+  private boolean matchesType(ElementTable elements, int id, String type) {
+    if (type == null) {
+      return true;
+    }
+    return elements.owner(id) == ElementTable.NO_OWNER && elements.kind(id).name().equals(type);
   }
 
   /**
@@ -550,13 +873,14 @@ public class PlatformApiSearchService {
    * 
    * @param words массив слов запроса
    * @param originalQuery исходный запрос для контекста
-   * @return список найденных составных типов
+   * @param collector сборщик результатов
+   * @return количество найденных составных типов
    */
-  private List<SearchResult> searchCompoundTypes(String[] words, String originalQuery) {
-    List<SearchResult> results = new ArrayList<>();
+  private int searchCompoundTypes(ElementTable elements, String[] words, String originalQuery, TopKCollector collector) {
+    int found = 0;
     
     if (words.length < 2) {
-      return results; // Составные типы требуют минимум 2 слова
+      return found; // Составные типы требуют минимум 2 слова
     }
     
     // Генерируем варианты объединения слов
@@ -564,18 +888,19 @@ public class PlatformApiSearchService {
     
     // Ищем в индексе типов
     for (String variant : compoundVariants) {
-      PlatformTypeDefinition type = typesIndex.get(variant.toLowerCase());
-      if (type != null) {
+      int typeId = elements.typeId(variant.toLowerCase());
+      if (typeId != ElementTable.NO_OWNER) {
         // Количество объединенных слов = приоритет внутри группы
         int wordsMatched = countWordsInVariant(variant, words);
-        results.add(SearchResult.compoundType(type, wordsMatched, originalQuery));
+        collector.offer(typeId, SearchStage.COMPOUND_TYPE.key(wordsMatched, elements.nameRank(typeId)));
+        found++;
         
         log.debug("Найден составной тип: '{}' для запроса '{}' (слов: {})", 
-                 type.name(), originalQuery, wordsMatched);
+                 getObjectName(elements.item(typeId)), originalQuery, wordsMatched);
       }
     }
     
-    return results;
+    return found;
   }
   
   /**
@@ -673,13 +998,14 @@ public class PlatformApiSearchService {
    * 
    * @param words массив слов запроса
    * @param originalQuery исходный запрос для контекста
-   * @return список найденных результатов тип + член
+   * @param collector сборщик результатов
+   * @return количество найденных членов типов
    */
-  private List<SearchResult> searchTypeMember(String[] words, String originalQuery) {
-    List<SearchResult> results = new ArrayList<>();
+  private int searchTypeMember(ElementTable elements, String[] words, String originalQuery, TopKCollector collector) {
+    int found = 0;
     
     if (words.length < 2) {
-      return results; // Нужно минимум 2 слова для тип + член
+      return found; // Нужно минимум 2 слова для тип + член
     }
     
     // Пробуем разделить запрос на [тип] + [член]
@@ -694,99 +1020,56 @@ public class PlatformApiSearchService {
       List<String> typeVariants = generateCompoundVariants(typeWords);
       
       for (String typeVariant : typeVariants) {
-        PlatformTypeDefinition type = typesIndex.get(typeVariant.toLowerCase());
-        if (type != null) {
+        int typeId = elements.typeId(typeVariant.toLowerCase());
+        if (typeId != ElementTable.NO_OWNER) {
           // Найден тип, теперь ищем член в этом типе
           String memberQuery = String.join(" ", memberWords).toLowerCase();
-          List<Object> foundMembers = searchMembersInType(type, memberQuery);
+          List<Integer> foundMembers = searchMembersInType(elements, typeId, memberQuery);
           
-          for (Object member : foundMembers) {
-            results.add(SearchResult.typeMember(member, originalQuery));
+          for (int memberId : foundMembers) {
+            collector.offer(memberId, SearchStage.TYPE_MEMBER.key(0, elements.nameRank(memberId)));
+            found++;
             
             log.debug("Найден член '{}' типа '{}' для запроса '{}'", 
-                     getObjectName(member), type.name(), originalQuery);
+                     getObjectName(elements.item(memberId)), getObjectName(elements.item(typeId)), originalQuery);
           }
         }
       }
     }
     
-    return results;
+    return found;
   }
   
   /**
    * Поиск членов (методов и свойств) в конкретном типе
    * 
-   * @param type тип для поиска
+   * @param typeId идентификатор типа в таблице элементов
    * @param memberQuery запрос для поиска члена
-   * @return список найденных членов
+   * @return идентификаторы найденных членов
    */
-  private List<Object> searchMembersInType(PlatformTypeDefinition type, String memberQuery) {
-    List<Object> members = new ArrayList<>();
+  private List<Integer> searchMembersInType(ElementTable elements, int typeId, String memberQuery) {
+    List<Integer> members = new ArrayList<>();
     
     // Нормализуем запрос для поиска
     String normalizedQuery = memberQuery.trim().toLowerCase();
+    String[] queryWords = normalizedQuery.split("\\s+");
     
-    // Поиск в методах типа
-    for (MethodDefinition method : type.methods()) {
-      String methodName = method.name().toLowerCase();
+    // Члены типа занимают непрерывный диапазон таблицы: сначала методы, затем свойства
+    for (int memberId = elements.memberStart(typeId); memberId < elements.memberEnd(typeId); memberId++) {
+      String memberName = elements.lowerName(memberId);
+      String memberNameEn = elements.lowerNameEn(memberId);
       
       // Точное совпадение имеет приоритет
-      if (methodName.equals(normalizedQuery)) {
-        members.add(0, method); // Добавляем в начало
+      if (memberName.equals(normalizedQuery) || normalizedQuery.equals(memberNameEn)) {
+        members.add(0, memberId); // Добавляем в начало
       }
-      // Начинается с запроса
-      else if (methodName.startsWith(normalizedQuery)) {
-        members.add(method);
-      }
-      // Содержит запрос
-      else if (methodName.contains(normalizedQuery)) {
-        members.add(method);
-      }
-      // Поиск по словам (если запрос состоит из нескольких слов)
-      else if (normalizedQuery.contains(" ")) {
-        String[] queryWords = normalizedQuery.split("\\s+");
-        boolean allWordsMatch = true;
-        for (String word : queryWords) {
-          if (!methodName.contains(word)) {
-            allWordsMatch = false;
-            break;
-          }
-        }
-        if (allWordsMatch) {
-          members.add(method);
-        }
-      }
-    }
-    
-    // Поиск в свойствах типа
-    for (PropertyDefinition property : type.properties()) {
-      String propertyName = property.name().toLowerCase();
-      
-      // Точное совпадение имеет приоритет
-      if (propertyName.equals(normalizedQuery)) {
-        members.add(0, property); // Добавляем в начало
-      }
-      // Начинается с запроса
-      else if (propertyName.startsWith(normalizedQuery)) {
-        members.add(property);
-      }
-      // Содержит запрос
-      else if (propertyName.contains(normalizedQuery)) {
-        members.add(property);
+      // Начинается с запроса или содержит запрос
+      else if (elements.nameContains(memberId, normalizedQuery)) {
+        members.add(memberId);
       }
       // Поиск по словам (если запрос состоит из нескольких слов)
-      else if (normalizedQuery.contains(" ")) {
-        String[] queryWords = normalizedQuery.split("\\s+");
-        boolean allWordsMatch = true;
-        for (String word : queryWords) {
-          if (!propertyName.contains(word)) {
-            allWordsMatch = false;
-            break;
-          }
-        }
-        if (allWordsMatch) {
-          members.add(property);
-        }
+      else if (queryWords.length > 1 && countMatchingWords(elements, memberId, queryWords) == queryWords.length) {
+        members.add(memberId);
       }
     }
     
@@ -801,72 +1084,32 @@ public class PlatformApiSearchService {
    * @param words массив слов запроса  
    * @param originalQuery исходный запрос для контекста
    * @param type тип поиска (или null для всех типов)
-   * @return список найденных результатов по словам
+   * @param collector сборщик результатов
+   * @return количество найденных результатов по словам
    */
-  private List<SearchResult> searchWordOrder(String[] words, String originalQuery, String type) {
-    List<SearchResult> results = new ArrayList<>();
+  private int searchWordOrder(ElementTable elements, String[] words, String originalQuery, String type,
+                              TopKCollector collector) {
+    int found = 0;
     
     if (words.length < 2) {
-      return results; // Поиск по словам требует минимум 2 слова
-    }
-    
-    // Определяем в каких индексах искать
-    boolean searchMethods = type == null || type.equals("method");
-    boolean searchProperties = type == null || type.equals("property");
-    boolean searchTypes = type == null || type.equals("type");
-    
-    // Поиск в глобальных методах
-    if (searchMethods) {
-      for (MethodDefinition method : globalMethodsIndex.values()) {
-        int matchedWords = countMatchingWords(method.name().toLowerCase(), words);
-        if (matchedWords == words.length) { // Все слова должны совпадать
-          results.add(SearchResult.wordOrder(method, matchedWords, originalQuery));
-        }
-      }
+      return found; // Поиск по словам требует минимум 2 слова
     }
     
-    // Поиск в глобальных свойствах
-    if (searchProperties) {
-      for (PropertyDefinition property : globalPropertiesIndex.values()) {
-        int matchedWords = countMatchingWords(property.name().toLowerCase(), words);
-        if (matchedWords == words.length) { // Все слова должны совпадать
-          results.add(SearchResult.wordOrder(property, matchedWords, originalQuery));
-        }
-      }
-    }
+    // Поиск в методах и свойствах типов выполняется, только если тип не указан
+    int end = type == null ? elements.size() : elements.typeMembersStart();
     
-    // Поиск в типах данных
-    if (searchTypes) {
-      for (PlatformTypeDefinition typeDefinition : typesIndex.values()) {
-        int matchedWords = countMatchingWords(typeDefinition.name().toLowerCase(), words);
-        if (matchedWords == words.length) { // Все слова должны совпадать
-          results.add(SearchResult.wordOrder(typeDefinition, matchedWords, originalQuery));
-        }
+    for (int id = 0; id < end; id++) {
+      if (!matchesType(elements, id, type)) {
+        continue;
       }
-    }
-    
-    // Поиск в методах и свойствах типов (если тип не указан)
-    if (type == null) {
-      for (PlatformTypeDefinition typeDefinition : typesIndex.values()) {
-        // Методы типов
-        for (MethodDefinition method : typeDefinition.methods()) {
-          int matchedWords = countMatchingWords(method.name().toLowerCase(), words);
-          if (matchedWords == words.length) { // Все слова должны совпадать
-            results.add(SearchResult.wordOrder(method, matchedWords, originalQuery));
-          }
-        }
-        
-        // Свойства типов
-        for (PropertyDefinition property : typeDefinition.properties()) {
-          int matchedWords = countMatchingWords(property.name().toLowerCase(), words);
-          if (matchedWords == words.length) { // Все слова должны совпадать
-            results.add(SearchResult.wordOrder(property, matchedWords, originalQuery));
-          }
-        }
+      int matchedWords = countMatchingWords(elements, id, words);
+      if (matchedWords == words.length) { // Все слова должны совпадать
+        collector.offer(id, SearchStage.WORD_ORDER.key(matchedWords, elements.nameRank(id)));
+        found++;
       }
     }
     
-    return results;
+    return found;
   }
   
   /**
@@ -889,6 +1132,16 @@ public class PlatformApiSearchService {
     return matchedCount;
   }
 
+  /**
+   * Подсчитывает количество слов запроса в русском или английском имени элемента,
+   * засчитывается лучшее из двух имен
+   */
+  private int countMatchingWords(ElementTable elements, int id, String[] queryWords) {
+    int matched = countMatchingWords(elements.lowerName(id), queryWords);
+    String nameEn = elements.lowerNameEn(id);
+    return nameEn != null ? Math.max(matched, countMatchingWords(nameEn, queryWords)) : matched;
+  }
+
   /**
    * Получение имени объекта независимо от его типа
    */
@@ -904,100 +1157,139 @@ public class PlatformApiSearchService {
   }
 
   /**
-   * Поиск точного совпадения в соответствующих индексах
+   * Поиск точного совпадения среди глобальных методов, свойств и типов
+   *
+   * @return идентификатор элемента или {@link ElementTable#NO_OWNER}, если элемент не найден
    */
-  private Optional<Object> findExactMatch(String name, String type) {
+  private int findExactMatch(SearchIndex index, String name, String type) {
+    ElementTable elements = index.elements();
     if (type == null) {
       // Поиск во всех индексах
-      return Stream.of(
-                      Optional.ofNullable(globalMethodsIndex.get(name)).map(o -> (Object) o),
-                      Optional.ofNullable(globalPropertiesIndex.get(name)).map(o -> (Object) o),
-                      Optional.ofNullable(typesIndex.get(name)).map(o -> (Object) o)
-              ).filter(Optional::isPresent)
-              .map(Optional::get)
-              .findFirst();
+      int id = elements.globalId(name, SearchResultType.method);
+      if (id == ElementTable.NO_OWNER) {
+        id = elements.globalId(name, SearchResultType.property);
+      }
+      return id != ElementTable.NO_OWNER ? id : elements.typeId(name);
     }
 
     return switch (type) {
-      case "method" -> Optional.ofNullable(globalMethodsIndex.get(name)).map(o -> o);
-      case "property" -> Optional.ofNullable(globalPropertiesIndex.get(name)).map(o -> o);
-      case "type" -> Optional.ofNullable(typesIndex.get(name)).map(o -> o);
-      default -> Optional.empty();
+      case "method" -> elements.globalId(name, SearchResultType.method);
+      case "property" -> elements.globalId(name, SearchResultType.property);
+      case "type" -> elements.typeId(name);
+      default -> ElementTable.NO_OWNER;
     };
   }
 
   /**
-   * Класс для хранения результатов поиска с приоритетами
+   * Тип значения элемента, разрешенный при построении индекса
+   *
+   * @return описание типа или {@code null}, если тип не задан или не найден
+   */
+  private PlatformTypeDefinition valueType(ElementTable elements, int id) {
+    int typeId = elements.valueType(id);
+    return typeId != ElementTable.NO_TYPE ? (PlatformTypeDefinition) elements.item(typeId) : null;
+  }
+
+  /**
+   * Ключ кэша ранжирования: лимит не входит в ключ
+   */
+  private record RankingKey(String version, String query, String type, int maxEdits) {
+  }
+
+  /**
+   * Ключ кэша разрешенных цепочек: шаги без начала имени члена
+   */
+  private record ChainKey(String version, String steps) {
+  }
+
+  /**
+   * Разрешенная цепочка
+   *
+   * @param index      снимок индексов, по которому разрешена цепочка
+   * @param resolution результат разрешения
+   */
+  private record ResolvedChain(SearchIndex index, MemberChain.Resolution resolution) {
+  }
+
+  /**
+   * Лучшие результаты запроса в порядке ранжирования
+   *
+   * @param index    снимок индексов, по которому построено ранжирование
+   * @param ids      идентификаторы элементов таблицы
+   * @param complete содержит ли список все совпадения запроса
+   */
+  private record Ranking(SearchIndex index, int[] ids, boolean complete) {
+
+    boolean covers(int limit) {
+      return complete || limit <= ids.length;
+    }
+  }
+
+  /**
+   * Этапы интеллектуального поиска в порядке убывания приоритета
    */
   @Getter
-  private static class SearchResult {
-    // Геттеры
-    private final Object item;
-    private final int priority; // 1-4, где 1 - высший приоритет
-    private final int wordsMatched; // количество объединенных слов для приоритета 1
-    private final String matchType; // тип совпадения: "compound-type", "type-member", "regular", "word-order"
-    private final String originalQuery; // исходный запрос для контекста
-    
-    public SearchResult(Object item, int priority, int wordsMatched, String matchType, String originalQuery) {
-      this.item = item;
+  private enum SearchStage {
+    // Приоритет 1: Объединение слов в составные типы
+    COMPOUND_TYPE(1, "compound-type", "составные типы"),
+    // Приоритет 2: Тип + член
+    TYPE_MEMBER(2, "type-member", "тип + член"),
+    // Приоритет 3: Обычный поиск (существующий алгоритм)
+    REGULAR(3, "regular", "обычный поиск"),
+    // Приоритет 4: Поиск по словам в любом порядке (только если нет хороших результатов)
+    WORD_ORDER(4, "word-order", "поиск по словам"),
+    // Приоритет 5: Поиск с опечатками (только если точные этапы ничего не нашли)
+    FUZZY(5, "fuzzy", "нечеткий поиск");
+
+    private final int priority; // 1-5, где 1 - высший приоритет
+    private final String matchType; // тип совпадения
+    private final String description; // описание этапа для журнала
+
+    SearchStage(int priority, String matchType, String description) {
       this.priority = priority;
-      this.wordsMatched = wordsMatched;
       this.matchType = matchType;
-      this.originalQuery = originalQuery;
-    }
-    
-    // Статические методы для создания результатов разных типов
-    public static SearchResult compoundType(Object item, int wordsMatched, String originalQuery) {
-      return new SearchResult(item, 1, wordsMatched, "compound-type", originalQuery);
+      this.description = description;
     }
-    
-    public static SearchResult typeMember(Object item, String originalQuery) {
-      return new SearchResult(item, 2, 0, "type-member", originalQuery);
-    }
-    
-    public static SearchResult regular(Object item, String originalQuery) {
-      return new SearchResult(item, 3, 0, "regular", originalQuery);
-    }
-    
-    public static SearchResult wordOrder(Object item, int wordsMatched, String originalQuery) {
-      return new SearchResult(item, 4, wordsMatched, "word-order", originalQuery);
+
+    /**
+     * Проверяет, нужно ли выполнять этап для запроса
+     *
+     * @param words     слова запроса
+     * @param type      тип поиска (или null)
+     * @param maxEdits  допустимое число опечаток
+     * @param collector сборщик с результатами более приоритетных этапов
+     */
+    boolean isApplicable(String[] words, String type, int maxEdits, TopKCollector collector) {
+      return switch (this) {
+        case COMPOUND_TYPE -> words.length >= 2 && (type == null || type.equals("type"));
+        case TYPE_MEMBER -> words.length >= 2;
+        case REGULAR -> true;
+        case WORD_ORDER -> words.length >= 2 && collector.matched() < 5;
+        case FUZZY -> maxEdits > 0 && collector.matched() == 0;
+      };
     }
 
     /**
-     * Сравнение результатов для сортировки по приоритету
-     * Приоритет 1 - высший, 4 - низший
-     * В рамках одного приоритета сортируем по количеству совпавших слов (больше = лучше)
+     * Ключ ранжирования результата, меньше - лучше.
+     * Сначала по приоритету (1 - лучше, 5 - хуже), затем для приоритетов 1 и 4
+     * по количеству совпавших слов (больше = лучше), в конце по алфавитному рангу имени
+     *
+     * @param wordsMatched количество совпавших слов
+     * @param nameRank     ранг имени элемента в таблице
      */
-    public int compareTo(SearchResult other) {
-      // Сначала по приоритету (1 - лучше, 4 - хуже)
-      int priorityCompare = Integer.compare(this.priority, other.priority);
-      if (priorityCompare != 0) {
-        return priorityCompare;
-      }
-      
-      // Для приоритета 1 и 4 учитываем количество совпавших слов (больше = лучше)
-      if (this.priority == 1 || this.priority == 4) {
-        int wordsCompare = Integer.compare(other.wordsMatched, this.wordsMatched);
-        if (wordsCompare != 0) {
-          return wordsCompare;
-        }
-      }
-      
-      // В конце по алфавитному порядку имен
-      String nameA = getObjectName(this.item).toLowerCase();
-      String nameB = getObjectName(other.item).toLowerCase();
-      return nameA.compareTo(nameB);
+    long key(int wordsMatched, int nameRank) {
+      long wordsKey = (this == COMPOUND_TYPE || this == WORD_ORDER) ? 0xFF - Math.min(wordsMatched, 0xFF) : 0;
+      return ((long) priority << 40) | (wordsKey << 32) | nameRank;
     }
-    
-    private String getObjectName(Object obj) {
-      if (obj instanceof MethodDefinition) {
-        return ((MethodDefinition) obj).name();
-      } else if (obj instanceof PropertyDefinition) {
-        return ((PropertyDefinition) obj).name();
-      } else if (obj instanceof PlatformTypeDefinition) {
-        return ((PlatformTypeDefinition) obj).name();
-      }
-      return "";
+
+    /**
+     * Ключ ранжирования нечеткого поиска: после приоритета - расстояние до запроса
+     *
+     * @param distance расстояние Левенштейна
+     * @param nameRank ранг имени элемента в таблице
+     */
+    long fuzzyKey(int distance, int nameRank) {
+      return ((long) priority << 40) | ((long) distance << 32) | nameRank;
     }
   }
 }
\ No newline at end of file
@@ -3,20 +3,75 @@ package ru.alkoleft.context.platform.mcp;
 import com.github._1c_syntax.bsl.context.PlatformContextGrabber;
 import com.github._1c_syntax.bsl.context.api.ContextProvider;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Компонент для загрузки контекста платформы 1С из файлов справочной системы
+ * Компонент для загрузки контекста платформы 1С из файлов справочной системы.
+ * <p>
+ * Разбор справки требует распаковки страниц архива в каталог. Чтобы распаковка не записывала
+ * сотни мегабайт на диск (в контейнерах - на overlayfs), каталог создается в файловой системе
+ * в памяти ({@code /dev/shm}), если в ней достаточно места, иначе - во временном каталоге системы.
+ * После разбора провайдер контекста не обращается к распакованным файлам, и каталог удаляется.
  */
 @Slf4j
 @Component
 public class PlatformContextLoader {
 
-  private static final String CONTEXT_FILE_NAME = "shcntx_ru.hbk";
+  /**
+   * Файловая система в памяти, доступная в Linux
+   */
+  static final Path MEMORY_DIRECTORY = Paths.get("/dev/shm");
+
+  /**
+   * Во сколько раз распакованная справка больше файла HBK. Используется для проверки свободного места
+   */
+  private static final int UNPACKED_SIZE_FACTOR = 10;
+
+  private final ContextFileLocator locator;
+  private final Path scratchDirectory;
+  // Разбор дополнительных файлов справки параллельно с основным. Потоки завершаются при простое
+  private final ExecutorService parser = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "platform-context-parse");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public PlatformContextLoader() {
+    this(new ContextFileLocator());
+  }
+
+  public PlatformContextLoader(ContextFileLocator locator) {
+    this(locator, "");
+  }
+
+  /**
+   * @param locator          поиск файла справки
+   * @param scratchDirectory каталог для распаковки справки. Пустое значение - {@code /dev/shm},
+   *                         если доступен, иначе временный каталог системы
+   */
+  @Autowired
+  public PlatformContextLoader(ContextFileLocator locator,
+                               @Value("${platform.context.scratch-dir:}") String scratchDirectory) {
+    this.locator = locator;
+    this.scratchDirectory = scratchDirectory == null || scratchDirectory.isBlank() ? null : Paths.get(scratchDirectory);
+  }
 
   /**
    * Загружает контекст платформы из указанного пути
@@ -28,18 +83,79 @@ public class PlatformContextLoader {
   public ContextProvider loadPlatformContext(Path platformPath) throws Exception {
     log.info("Загрузка контекста платформы из {}", platformPath);
 
-    Path syntaxContextFile = findContextFile(platformPath);
-
-    if (syntaxContextFile == null) {
-      throw new FileNotFoundException(
-              String.format("Не удалось найти файл %s в каталоге %s", CONTEXT_FILE_NAME, platformPath)
-      );
-    }
+    return loadContextFile(findContextFile(platformPath));
+  }
 
+  /**
+   * Ищет файл справки контекста в каталоге платформы
+   *
+   * @param platformPath путь к каталогу с файлами платформы
+   * @return путь к файлу shcntx_ru.hbk
+   * @throws FileNotFoundException если файл не найден
+   * @see ContextFileLocator
+   */
+  public Path findContextFile(Path platformPath) throws Exception {
+    Path syntaxContextFile = locator.locate(platformPath);
     log.info("Найден файл контекста: {}", syntaxContextFile);
+    return syntaxContextFile;
+  }
+
+  /**
+   * Ищет файл справки контекста заданной версии платформы
+   *
+   * @param platformPath путь к каталогу с файлами платформы
+   * @param version      версия платформы
+   * @return путь к файлу shcntx_ru.hbk
+   * @throws FileNotFoundException если файл не найден
+   */
+  public Path findContextFile(Path platformPath, String version) throws Exception {
+    Path syntaxContextFile = locator.locate(platformPath, version);
+    log.info("Найден файл контекста версии {}: {}", version, syntaxContextFile);
+    return syntaxContextFile;
+  }
+
+  /**
+   * Ищет файл справки на английском языке рядом с файлом на русском
+   *
+   * @param syntaxContextFile путь к файлу shcntx_ru.hbk
+   * @return путь к файлу shcntx_en.hbk, если он установлен
+   */
+  public Optional<Path> findEnglishContextFile(Path syntaxContextFile) {
+    Optional<Path> englishFile = ContextFileLocator.englishContextFile(syntaxContextFile);
+    englishFile.ifPresent(file -> log.info("Найден файл контекста на английском языке: {}", file));
+    return englishFile;
+  }
+
+  /**
+   * Версии платформы со справкой, установленные в каталоге, по возрастанию
+   *
+   * @param platformPath путь к каталогу с файлами платформы
+   * @return номера версий
+   */
+  public List<String> installedVersions(Path platformPath) {
+    return List.copyOf(installedContextFiles(platformPath).keySet());
+  }
 
-    // Создаем временный каталог для распаковки
-    var tmpDir = Files.createTempDirectory("platform-context");
+  /**
+   * Файлы справки установленных версий платформы по номеру версии в порядке возрастания
+   *
+   * @param platformPath путь к каталогу с файлами платформы
+   * @return файлы shcntx_ru.hbk по номеру версии
+   */
+  public Map<String, Path> installedContextFiles(Path platformPath) {
+    return locator.installedContextFiles(platformPath);
+  }
+
+  /**
+   * Разбирает файл справки контекста
+   *
+   * @param syntaxContextFile путь к файлу shcntx_ru.hbk
+   * @return провайдер контекста платформы
+   * @throws Exception если не удалось разобрать файл
+   */
+  public ContextProvider loadContextFile(Path syntaxContextFile) throws Exception {
+    // Создаем временный каталог для распаковки, по возможности в памяти
+    var tmpDir = createScratchDirectory(syntaxContextFile);
 
     try {
       var grabber = new PlatformContextGrabber(syntaxContextFile, tmpDir);
@@ -56,35 +172,83 @@ public class PlatformContextLoader {
   }
 
   /**
-   * Ищет файл контекста в указанном каталоге
+   * Разбирает файл справки в отдельном потоке. Каждый разбор использует собственный временный каталог,
+   * поэтому файлы на разных языках разбираются одновременно
+   *
+   * @param syntaxContextFile путь к файлу справки
+   * @return провайдер контекста платформы по завершении разбора
+   */
+  public CompletableFuture<ContextProvider> loadContextFileAsync(Path syntaxContextFile) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return loadContextFile(syntaxContextFile);
+      } catch (Exception e) {
+        throw new IllegalStateException("Не удалось разобрать файл справки " + syntaxContextFile, e);
+      }
+    }, parser);
+  }
+
+  /**
+   * Создает каталог для распаковки справки: в настроенном каталоге, в {@code /dev/shm},
+   * если там хватает места для распакованной справки, или во временном каталоге системы
    */
-  private Path findContextFile(Path path) throws Exception {
-    try (var walk = Files.walk(path)) {
-      return walk.filter(p -> p.toFile().isFile())
-              .filter(p -> p.getFileName().toString().equals(CONTEXT_FILE_NAME))
-              .findAny()
-              .orElse(null);
+  private Path createScratchDirectory(Path syntaxContextFile) throws IOException {
+    if (scratchDirectory != null) {
+      Files.createDirectories(scratchDirectory);
+      return Files.createTempDirectory(scratchDirectory, "platform-context");
+    }
+    if (hasRoomFor(MEMORY_DIRECTORY, syntaxContextFile)) {
+      try {
+        return Files.createTempDirectory(MEMORY_DIRECTORY, "platform-context");
+      } catch (IOException e) {
+        log.debug("Не удалось создать каталог в {}: {}", MEMORY_DIRECTORY, e.getMessage());
+      }
+    }
+    return Files.createTempDirectory("platform-context");
+  }
+
+  private static boolean hasRoomFor(Path directory, Path syntaxContextFile) {
+    try {
+      return Files.isDirectory(directory) && Files.isWritable(directory)
+              && Files.getFileStore(directory).getUsableSpace() > Files.size(syntaxContextFile) * UNPACKED_SIZE_FACTOR;
+    } catch (IOException e) {
+      return false;
     }
   }
 
   /**
-   * Очищает временный каталог
+   * Очищает временный каталог за один обход: файлы удаляются при посещении,
+   * каталоги - после удаления их содержимого
+   *
+   * @param tmpDir каталог распаковки справки
    */
   private void cleanupTempDirectory(Path tmpDir) {
     try {
       if (Files.exists(tmpDir)) {
-        Files.walk(tmpDir)
-                .sorted((a, b) -> b.compareTo(a)) // Удаляем файлы перед каталогами
-                .forEach(path -> {
-                  try {
-                    Files.delete(path);
-                  } catch (Exception e) {
-                    log.warn("Не удалось удалить временный файл: {}", path, e);
-                  }
-                });
+        Files.walkFileTree(tmpDir, new SimpleFileVisitor<>() {
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            delete(file);
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+            delete(dir);
+            return FileVisitResult.CONTINUE;
+          }
+        });
       }
     } catch (Exception e) {
       log.warn("Ошибка при очистке временного каталога: {}", tmpDir, e);
     }
   }
-} 
\ No newline at end of file
+
+  private void delete(Path path) {
+    try {
+      Files.delete(path);
+    } catch (Exception e) {
+      log.warn("Не удалось удалить временный файл: {}", path, e);
+    }
+  }
+}
@@ -5,83 +5,520 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.alkoleft.context.platform.dto.BilingualNames;
+import ru.alkoleft.context.platform.dto.DefinitionPool;
+import ru.alkoleft.context.platform.dto.MethodDefinition;
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
+import ru.alkoleft.context.platform.dto.PlatformTypeDefinition;
+import ru.alkoleft.context.platform.dto.PropertyDefinition;
+import ru.alkoleft.context.platform.exporter.BaseExporterLogic;
+import ru.alkoleft.context.platform.mcp.snapshot.ContextSnapshotStore;
+import ru.alkoleft.context.platform.mcp.snapshot.SnapshotKey;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Сервис для работы с контекстом платформы 1С
- * Предоставляет кэшированный доступ к данным платформы
+ * Предоставляет кэшированный доступ к данным платформы.
+ * Может обслуживать несколько версий платформы одновременно: версии загружаются параллельно,
+ * а одинаковые типы, члены и строки разных версий хранятся в одном экземпляре ({@link DefinitionPool}).
+ * Файлы справки на русском и английском языках разбираются параллельно, элементы получают оба имени.
+ * Разобранный контекст сохраняется в бинарный снимок, который используется при следующих запусках.
+ * Если включена отложенная загрузка типов, описание контекста читается из снимка и члены типов
+ * загружаются при первом обращении.
+ * Контекст может быть перезагружен при изменении файла справки без остановки сервера.
+ * Новая версия платформы, установленная рядом с загруженными, добавляется под своим номером
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PlatformContextService {
 
+  /**
+   * Значение {@code platform.context.versions} для загрузки всех установленных версий
+   */
+  public static final String ALL_VERSIONS = "all";
+
+  /**
+   * Метка версии, если каталог справки не содержит номера версии
+   */
+  public static final String UNKNOWN_VERSION = "default";
+
   private final PlatformContextLoader contextLoader;
-  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final BaseExporterLogic exporterLogic;
+  private final ContextSnapshotStore snapshotStore;
+  private final DefinitionPool definitionPool;
+  private final ReentrantLock lock = new ReentrantLock();
 
   @Value("${platform.context.path:}")
   private String platformContextPath;
 
-  private ContextProvider cachedProvider;
-  private volatile boolean isLoaded = false;
+  @Value("${platform.context.version:}")
+  private String platformContextVersion;
+
+  @Value("${platform.context.versions:}")
+  private String platformContextVersions;
+
+  @Value("${platform.context.default-version:}")
+  private String defaultVersion;
+
+  // Загруженные версии в порядке возрастания. Заменяется целиком под блокировкой, читается без нее
+  private volatile Map<String, LoadedContext> loaded = Map.of();
+
+  // Файлы справки новых версий, загрузка которых уже запускалась: повторно загружаются только после изменения
+  private final Map<Path, LoadedContextFile> attempted = new ConcurrentHashMap<>();
+
+  /**
+   * Получает описания контекста всех настроенных версий платформы.
+   * При первом обращении параллельно загружает версии из снимков, а если снимок отсутствует
+   * или устарел - из файлов платформы.
+   *
+   * @return описания контекста по номеру версии в порядке возрастания версий
+   * @throws RuntimeException если не удалось загрузить ни одной версии
+   */
+  public Map<String, PlatformContextDefinition> getContextDefinitions() {
+    Map<String, LoadedContext> current = loaded;
+    if (current.isEmpty()) {
+      lock.lock();
+      try {
+        // Двойная проверка
+        if (loaded.isEmpty()) {
+          loaded = loadAll();
+        }
+        current = loaded;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    Map<String, PlatformContextDefinition> definitions = new LinkedHashMap<>();
+    current.forEach((version, context) -> definitions.put(version, context.definition()));
+    return Collections.unmodifiableMap(definitions);
+  }
 
   /**
-   * Получает провайдер контекста платформы.
-   * При первом обращении загружает данные из файлов платформы.
+   * Версия, используемая, если в запросе версия не указана:
+   * {@code platform.context.default-version} или наибольшая загруженная
    *
-   * @return провайдер контекста платформы
+   * @return номер версии или {@code null}, если версии еще не загружены
+   */
+  public String getDefaultVersion() {
+    if (defaultVersion != null && !defaultVersion.isBlank()) {
+      return defaultVersion.trim();
+    }
+    String last = null;
+    for (String version : loaded.keySet()) {
+      last = version;
+    }
+    return last;
+  }
+
+  /**
+   * Определяет версии, файл справки которых изменился после загрузки контекста.
+   * Сравниваются только размер и время изменения, содержимое файла не читается.
+   * Версия, выбранная по умолчанию как наибольшая, считается измененной и после установки
+   * более новой версии платформы
+   *
+   * @return версии, файл справки которых изменился или был удален
+   */
+  public List<String> getChangedVersions() {
+    List<String> changed = new ArrayList<>();
+    loaded.forEach((version, context) -> {
+      LoadedContextFile file = context.file();
+      try {
+        if (!file.equals(LoadedContextFile.of(file.path()))) {
+          changed.add(version);
+        }
+      } catch (IOException e) {
+        // Файл удален, например, при удалении старой версии платформы - контекст нужно найти заново
+        log.debug("Файл справки {} недоступен: {}", file.path(), e.getMessage());
+        changed.add(version);
+      }
+    });
+
+    String latest = latestLoaded();
+    if (latest != null && !changed.contains(latest) && !newerInstalledVersions(latest).isEmpty()) {
+      changed.add(latest);
+    }
+    return changed;
+  }
+
+  /**
+   * Определяет установленные версии платформы, которые нужно загрузить дополнительно:
+   * при {@code platform.context.versions=all} - все установленные после загрузки версии.
+   * Версия, загрузка которой уже запускалась, возвращается повторно только после изменения ее файла справки
+   *
+   * @return номера новых версий
+   */
+  public List<String> getNewVersions() {
+    Map<String, LoadedContext> current = loaded;
+    if (current.isEmpty() || !isAllVersions()) {
+      return List.of();
+    }
+    List<String> versions = new ArrayList<>();
+    contextLoader.installedContextFiles(platformPath()).forEach((version, file) -> {
+      if (!current.containsKey(version) && isFirstAttempt(file)) {
+        versions.add(version);
+      }
+    });
+    return versions;
+  }
+
+  /**
+   * Перезагружает контекст версии платформы.
+   * Разбор выполняется без блокировки: до его завершения читатели получают прежнее описание.
+   * <p>
+   * Файл справки версии, выбранной по умолчанию, ищется заново, и его версия определяется по пути.
+   * Если это другая версия, например, установленная рядом более новая, ее контекст добавляется
+   * под ее номером. Прежняя версия остается загруженной, пока установлен ее файл справки,
+   * и дальше перезагружается как указанная явно
+   *
+   * @param version версия платформы
+   * @return версия, под которой опубликован новый контекст
+   * @throws RuntimeException если не удалось загрузить контекст, прежнее описание при этом сохраняется
+   */
+  public String reloadVersion(String version) {
+    LoadedContext previous = loaded.get(version);
+    if (previous == null) {
+      throw new IllegalArgumentException("Версия платформы не загружена: " + version);
+    }
+    // Файл справки ищется заново: старая установка могла быть удалена
+    LoadedContext context = loadPlatformContext(previous.requestedVersion());
+
+    update(versions -> {
+      if (!context.version().equals(version)) {
+        if (!UNKNOWN_VERSION.equals(version) && Files.isRegularFile(previous.file().path())) {
+          log.info("Версия {} остается загруженной рядом с версией {}", version, context.version());
+          versions.put(version, previous.pinned());
+        } else {
+          versions.remove(version);
+        }
+      }
+      versions.put(context.version(), context);
+    });
+    return context.version();
+  }
+
+  /**
+   * Загружает контекст версии платформы, установленной после запуска
+   *
+   * @param version версия платформы
+   * @return версия, под которой опубликован контекст
    * @throws RuntimeException если не удалось загрузить контекст
    */
-  public ContextProvider getContextProvider() {
-    // Используем read lock для проверки
-    lock.readLock().lock();
+  public String loadVersion(String version) {
+    LoadedContext context = loadPlatformContext(version);
+    update(versions -> versions.put(context.version(), context));
+    return context.version();
+  }
+
+  /**
+   * Замена набора загруженных версий. Порядок версий восстанавливается после изменения
+   */
+  private void update(Consumer<Map<String, LoadedContext>> change) {
+    lock.lock();
     try {
-      if (isLoaded && cachedProvider != null) {
-        return cachedProvider;
-      }
+      Map<String, LoadedContext> updated = new TreeMap<>(ContextFileLocator::compareVersions);
+      updated.putAll(loaded);
+      change.accept(updated);
+      loaded = Collections.unmodifiableMap(new LinkedHashMap<>(updated));
     } finally {
-      lock.readLock().unlock();
+      lock.unlock();
     }
+  }
+
+  /**
+   * Версия, выбранная по умолчанию как наибольшая установленная, если она загружена.
+   * Версии из {@code platform.context.versions} и {@code platform.context.version} не меняются
+   */
+  private String latestLoaded() {
+    if (!isBlank(platformContextVersions) || !isBlank(platformContextVersion)) {
+      return null;
+    }
+    for (Map.Entry<String, LoadedContext> entry : loaded.entrySet()) {
+      if (entry.getValue().requestedVersion() == null && !UNKNOWN_VERSION.equals(entry.getKey())) {
+        return entry.getKey();
+      }
+    }
+    return null;
+  }
 
-    // Переходим на write lock для загрузки
-    lock.writeLock().lock();
+  /**
+   * Установленные версии новее заданной, которые еще не загружены и загрузка которых не запускалась
+   */
+  private List<String> newerInstalledVersions(String version) {
+    List<String> versions = new ArrayList<>();
+    contextLoader.installedContextFiles(platformPath()).forEach((installed, file) -> {
+      if (ContextFileLocator.compareVersions(installed, version) > 0 && !loaded.containsKey(installed)
+              && isFirstAttempt(file)) {
+        versions.add(installed);
+      }
+    });
+    return versions;
+  }
+
+  /**
+   * Отмечает попытку загрузки файла справки
+   *
+   * @return {@code true}, если файл еще не загружался в текущем состоянии
+   */
+  private boolean isFirstAttempt(Path file) {
     try {
-      // Двойная проверка
-      if (isLoaded && cachedProvider != null) {
-        return cachedProvider;
+      LoadedContextFile state = LoadedContextFile.of(file);
+      return !state.equals(attempted.put(file, state));
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private boolean isAllVersions() {
+    return !isBlank(platformContextVersions) && ALL_VERSIONS.equalsIgnoreCase(platformContextVersions.trim());
+  }
+
+  private static boolean isBlank(String value) {
+    return value == null || value.isBlank();
+  }
+
+  /**
+   * Параллельная загрузка всех настроенных версий.
+   * Версия, которую не удалось загрузить, пропускается
+   */
+  private Map<String, LoadedContext> loadAll() {
+    List<String> requested = requestedVersions();
+    DefinitionPool.Statistics before = definitionPool.statistics();
+    int threads = Math.max(1, Math.min(requested.size(), Runtime.getRuntime().availableProcessors()));
+    ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "platform-context-load");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    try {
+      List<CompletableFuture<LoadedContext>> tasks = requested.stream()
+              .map(version -> CompletableFuture.supplyAsync(() -> loadPlatformContext(version), executor))
+              .toList();
+
+      Map<String, LoadedContext> result = new TreeMap<>(ContextFileLocator::compareVersions);
+      RuntimeException failure = null;
+      for (int i = 0; i < tasks.size(); i++) {
+        try {
+          LoadedContext context = tasks.get(i).join();
+          result.put(context.version(), context);
+        } catch (CompletionException e) {
+          failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+          log.warn("Версия {} пропущена: {}", requested.get(i) != null ? requested.get(i) : "по умолчанию",
+                  failure.getMessage());
+        }
+      }
+      if (result.isEmpty()) {
+        throw failure != null ? failure : new IllegalStateException("Не найдено ни одной версии платформы");
       }
 
-      loadPlatformContext();
-      return cachedProvider;
+      DefinitionPool.Statistics pooled = definitionPool.statistics().since(before);
+      log.info("Загружены версии платформы: {}. Заменено дубликатов между версиями и внутри версий: {} из {}, " +
+                      "освобождено около {} КБ",
+              String.join(", ", result.keySet()), pooled.sharedCount(), pooled.internedCount(),
+              pooled.savedBytes() / 1024);
+      return Collections.unmodifiableMap(new LinkedHashMap<>(result));
     } finally {
-      lock.writeLock().unlock();
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Версии из {@code platform.context.versions}. Пустое значение - одна версия, выбранная
+   * {@code platform.context.version}, значение {@value #ALL_VERSIONS} - все установленные версии
+   */
+  private List<String> requestedVersions() {
+    if (isBlank(platformContextVersions)) {
+      return Collections.singletonList(null);
+    }
+
+    List<String> versions = Arrays.stream(platformContextVersions.split(","))
+            .map(String::trim)
+            .filter(version -> !version.isEmpty())
+            .distinct()
+            .toList();
+    if (versions.size() == 1 && ALL_VERSIONS.equalsIgnoreCase(versions.get(0))) {
+      List<String> installed = contextLoader.installedVersions(platformPath());
+      return installed.isEmpty() ? Collections.singletonList(null) : installed;
     }
+    return versions;
   }
 
   /**
    * Загружает контекст платформы
+   *
+   * @param requestedVersion версия из настроек или {@code null} - версия по умолчанию,
+   *                         номер которой определяется по пути к найденному файлу справки
    */
-  private void loadPlatformContext() {
+  private LoadedContext loadPlatformContext(String requestedVersion) {
     try {
-      if (platformContextPath == null || platformContextPath.isEmpty()) {
-        throw new IllegalStateException(
-                "Путь к контексту платформы не настроен. " +
-                        "Установите свойство platform.context.path или используйте setPlatformContextPath()"
-        );
-      }
+      Path contextFile = requestedVersion != null
+              ? contextLoader.findContextFile(platformPath(), requestedVersion)
+              : contextLoader.findContextFile(platformPath());
+      String label = versionLabel(requestedVersion, contextFile);
+      // Атрибуты фиксируются до чтения, чтобы изменение файла во время разбора было обнаружено
+      LoadedContextFile file = LoadedContextFile.of(contextFile);
 
-      Path path = Paths.get(platformContextPath);
-      cachedProvider = contextLoader.loadPlatformContext(path);
-      isLoaded = true;
+      Optional<Path> englishFile = contextLoader.findEnglishContextFile(contextFile);
+      SnapshotKey key = snapshotStore.isEnabled() ? SnapshotKey.of(contextFile, englishFile.orElse(null)) : null;
+      Optional<PlatformContextDefinition> snapshot = key != null
+              ? snapshotStore.load(contextFile, key)
+              : Optional.empty();
 
-      log.info("Контекст платформы успешно загружен и кэширован");
+      PlatformContextDefinition definition;
+      if (snapshot.isPresent()) {
+        // Одинаковые описания разных версий хранятся в одном экземпляре
+        definition = definitionPool.intern(snapshot.get());
+      } else {
+        ParsedDefinition parsed = loadBilingualDefinition(contextFile, englishFile);
+        definition = parsed.definition();
+        if (key != null && !parsed.complete()) {
+          // Снимок без английских имен не сохраняется: при следующем запуске объединение повторяется
+          log.info("Снимок контекста версии {} не сохранен: английские имена не загружены", label);
+        } else if (key != null) {
+          snapshotStore.save(contextFile, key, definition);
+          if (snapshotStore.isLazyTypes()) {
+            // Полный граф после разбора не удерживается: члены типов загружаются из снимка по требованию
+            definition = snapshotStore.load(contextFile, key).orElse(definition);
+          }
+        }
+        // Элементы учтены хранилищем при извлечении из справки, повторно канонизируются
+        // только объединенные с английскими именами и перечитанные из снимка
+        definition = definitionPool.reintern(definition);
+      }
+
+      log.info("Контекст платформы версии {} успешно загружен и кэширован", label);
+      return new LoadedContext(label, requestedVersion, file, definition);
 
     } catch (Exception e) {
       log.error("Ошибка при загрузке контекста платформы", e);
       throw new RuntimeException("Не удалось загрузить контекст платформы", e);
     }
   }
-} 
\ No newline at end of file
+
+  /**
+   * Метка версии: версия из настроек, иначе номер версии из пути к файлу справки
+   */
+  private static String versionLabel(String requestedVersion, Path contextFile) {
+    if (requestedVersion != null) {
+      return requestedVersion;
+    }
+    String version = ContextFileLocator.versionOf(contextFile);
+    return version != null ? version : UNKNOWN_VERSION;
+  }
+
+  private Path platformPath() {
+    if (platformContextPath == null || platformContextPath.isEmpty()) {
+      throw new IllegalStateException(
+              "Путь к контексту платформы не настроен. " +
+                      "Установите свойство platform.context.path или используйте setPlatformContextPath()"
+      );
+    }
+    return Paths.get(platformContextPath);
+  }
+
+  /**
+   * Разбирает файл справки на русском языке и, если установлен, файл на английском.
+   * Английский файл разбирается в отдельном потоке одновременно с русским,
+   * ошибка его разбора не мешает загрузке контекста
+   *
+   * @param contextFile файл справки на русском языке
+   * @param englishFile файл справки на английском языке, если установлен
+   */
+  private ParsedDefinition loadBilingualDefinition(Path contextFile, Optional<Path> englishFile) throws Exception {
+    if (englishFile.isEmpty()) {
+      return new ParsedDefinition(extractDefinition(contextLoader.loadContextFile(contextFile)), true);
+    }
+
+    CompletableFuture<PlatformContextDefinition> english = contextLoader.loadContextFileAsync(englishFile.get())
+            .thenApply(this::extractDefinition);
+    PlatformContextDefinition russian = extractDefinition(contextLoader.loadContextFile(contextFile));
+    try {
+      return new ParsedDefinition(BilingualNames.merge(russian, english.join()), true);
+    } catch (CompletionException e) {
+      log.warn("Английские имена не загружены из {}: {}", englishFile.get(),
+              e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+      return new ParsedDefinition(russian, false);
+    }
+  }
+
+  /**
+   * Преобразует провайдер контекста в граф DTO
+   */
+  private PlatformContextDefinition extractDefinition(ContextProvider provider) {
+    List<MethodDefinition> globalMethods = Collections.emptyList();
+    List<PropertyDefinition> globalProperties = Collections.emptyList();
+    List<PlatformTypeDefinition> types = Collections.emptyList();
+
+    var globalContext = provider.getGlobalContext();
+    if (globalContext != null) {
+      globalMethods = exporterLogic.extractMethods(globalContext).toList();
+      globalProperties = exporterLogic.extractProperties(globalContext).toList();
+    }
+
+    var contexts = provider.getContexts();
+    if (contexts != null) {
+      types = exporterLogic.extractTypes(List.copyOf(contexts)).toList();
+    }
+
+    return new PlatformContextDefinition(globalMethods, globalProperties, types);
+  }
+
+  /**
+   * Описание контекста, разобранное из файлов справки
+   *
+   * @param complete загружены ли все установленные файлы справки: {@code false}, если не удалось
+   *                 разобрать файл на английском языке
+   */
+  private record ParsedDefinition(PlatformContextDefinition definition, boolean complete) {
+  }
+
+  /**
+   * Загруженный контекст и состояние файла справки на момент загрузки
+   *
+   * @param version          метка версии
+   * @param requestedVersion версия из настроек, по которой искался файл справки, или {@code null}
+   */
+  private record LoadedContext(String version, String requestedVersion, LoadedContextFile file,
+                               PlatformContextDefinition definition) {
+
+    /**
+     * Тот же контекст, файл справки которого при перезагрузке ищется по номеру версии
+     */
+    LoadedContext pinned() {
+      return new LoadedContext(version, version, file, definition);
+    }
+  }
+
+  /**
+   * Состояние файла справки, по которому определяется необходимость перезагрузки
+   */
+  private record LoadedContextFile(Path path, long size, long lastModified) {
+
+    static LoadedContextFile of(Path path) throws IOException {
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      return new LoadedContextFile(path, attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+  }
+}
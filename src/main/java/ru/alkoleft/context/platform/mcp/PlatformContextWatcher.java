@@ -0,0 +1,132 @@
+package ru.alkoleft.context.platform.mcp;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
+import ru.alkoleft.context.platform.mcp.cache.CacheGeneration;
+import ru.alkoleft.context.platform.mcp.index.SearchIndex;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Отслеживание изменений файла справки платформы.
+ * <p>
+ * Периодически сравнивает размер и время изменения загруженного файла справки и проверяет,
+ * не установлены ли новые версии платформы. При изменении контекст разбирается и индексы строятся
+ * в фоновом потоке, после чего новый снимок индексов публикуется, а кэши результатов инвалидируются.
+ * Запросы продолжают обслуживаться прежним снимком до момента замены.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "platform.context.watch.enabled", havingValue = "true", matchIfMissing = true)
+public class PlatformContextWatcher {
+
+  private final PlatformContextService contextService;
+  private final PlatformApiSearchService searchService;
+  private final CacheManager cacheManager;
+  private final CacheGeneration cacheGeneration;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "platform-context-reload");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final AtomicBoolean reloading = new AtomicBoolean();
+
+  /**
+   * Проверка файлов справки и установленных версий. Новая перезагрузка не запускается, пока не завершена предыдущая
+   */
+  @Scheduled(initialDelayString = "${platform.context.watch.interval:PT1M}",
+          fixedDelayString = "${platform.context.watch.interval:PT1M}")
+  public void checkContextFile() {
+    if (reloading.get()) {
+      return;
+    }
+    List<String> changed = contextService.getChangedVersions();
+    List<String> installed = contextService.getNewVersions();
+    if (changed.isEmpty() && installed.isEmpty()) {
+      return;
+    }
+    if (reloading.compareAndSet(false, true)) {
+      if (!changed.isEmpty()) {
+        log.info("Обнаружено изменение файла справки платформы версий {}, запущена перезагрузка контекста", changed);
+      }
+      if (!installed.isEmpty()) {
+        log.info("Обнаружены новые установленные версии платформы {}, запущена загрузка контекста", installed);
+      }
+      executor.execute(() -> reload(changed, installed));
+    }
+  }
+
+  /**
+   * Перезагрузка контекста измененных версий, загрузка новых версий и замена снимков индексов.
+   * Версия, которую не удалось загрузить, продолжает обслуживаться прежним снимком
+   */
+  void reload(List<String> changed, List<String> installed) {
+    try {
+      Set<String> updated = new LinkedHashSet<>();
+      for (String version : changed) {
+        load(version, () -> contextService.reloadVersion(version)).ifPresent(updated::add);
+      }
+      for (String version : installed) {
+        load(version, () -> contextService.loadVersion(version)).ifPresent(updated::add);
+      }
+      if (updated.isEmpty()) {
+        return;
+      }
+
+      Map<String, PlatformContextDefinition> definitions = contextService.getContextDefinitions();
+      Map<String, SearchIndex> indexes = new LinkedHashMap<>();
+      for (String version : updated) {
+        indexes.put(version, SearchIndex.build(definitions.get(version)));
+      }
+      // Набор версий публикуется целиком: версия, удаленная при перезагрузке, исключается из индексов
+      searchService.publishIndexes(contextService.getDefaultVersion(), definitions.keySet(), indexes);
+
+      // Сначала публикуем снимки, затем меняем поколение ключей: запрос, получивший новый ключ,
+      // гарантированно получит и новые снимки
+      cacheGeneration.advance();
+      for (String cacheName : cacheManager.getCacheNames()) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+          cache.clear();
+        }
+      }
+      log.info("Контекст платформы версий {} загружен, кэши результатов очищены", updated);
+    } catch (Exception e) {
+      log.error("Не удалось перезагрузить контекст платформы, продолжается работа с прежним снимком индексов", e);
+    } finally {
+      reloading.set(false);
+    }
+  }
+
+  private Optional<String> load(String version, Supplier<String> loader) {
+    try {
+      return Optional.of(loader.get());
+    } catch (RuntimeException e) {
+      log.error("Не удалось загрузить контекст платформы версии {}, продолжается работа с прежним снимком индексов",
+              version, e);
+      return Optional.empty();
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+}
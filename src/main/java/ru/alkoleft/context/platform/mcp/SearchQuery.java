@@ -0,0 +1,161 @@
+package ru.alkoleft.context.platform.mcp;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Нормализованный поисковый запрос.
+ * Используется как ключ кэша, поэтому запросы, отличающиеся регистром, пробелами,
+ * алиасом типа или лимитом сверх максимального, совпадают.
+ *
+ * @param query    запрос в нижнем регистре без лишних пробелов
+ * @param type     тип элемента после разрешения алиасов или {@code null}
+ * @param limit    лимит результатов в допустимых пределах
+ * @param maxEdits допустимое число опечаток нечеткого поиска, 0 - нечеткий поиск отключен
+ */
+public record SearchQuery(String query, String type, int limit, int maxEdits) {
+
+  public static final int DEFAULT_LIMIT = 10;
+  public static final int MAX_LIMIT = 50;
+  public static final int MAX_EDITS = 3;
+
+  // Латинские буквы, совпадающие по начертанию с кириллическими (после приведения к нижнему регистру)
+  private static final String LATIN_LOOKALIKES = "abcehkmoptxy";
+  private static final String CYRILLIC_LOOKALIKES = "авсенкмортху";
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  // Алиасы типов для удобства LLM - расширено русскоязычными алиасами
+  private static final Map<String, String> TYPE_ALIASES;
+  static {
+    Map<String, String> aliases = new HashMap<>();
+
+    // Существующие английские алиасы
+    aliases.put("object", "type");
+    aliases.put("class", "type");
+    aliases.put("datatype", "type");
+
+    // Русскоязычные алиасы для type
+    aliases.put("объект", "type");
+    aliases.put("класс", "type");
+    aliases.put("тип", "type");
+    aliases.put("структура", "type");
+    aliases.put("данные", "type");
+
+    // Русскоязычные алиасы для method
+    aliases.put("метод", "method");
+    aliases.put("функция", "method");
+    aliases.put("процедура", "method");
+
+    // Русскоязычные алиасы для property
+    aliases.put("свойство", "property");
+    aliases.put("реквизит", "property");
+    aliases.put("поле", "property");
+    aliases.put("атрибут", "property");
+
+    TYPE_ALIASES = Collections.unmodifiableMap(aliases);
+  }
+
+  /**
+   * Нормализация параметров инструмента поиска
+   */
+  public static SearchQuery of(String query, String type, Integer limit) {
+    return of(query, type, limit, null);
+  }
+
+  /**
+   * Нормализация параметров инструмента поиска с настройкой нечеткого поиска
+   *
+   * @param maxEdits допустимое число опечаток или {@code null} - по длине запроса
+   */
+  public static SearchQuery of(String query, String type, Integer limit, Integer maxEdits) {
+    String normalizedQuery = normalizeQuery(query);
+    return new SearchQuery(normalizedQuery, normalizeType(type), normalizeLimit(limit),
+            normalizeMaxEdits(maxEdits, normalizedQuery));
+  }
+
+  /**
+   * Допустимое число опечаток: не больше {@value #MAX_EDITS}. По умолчанию короткие запросы
+   * (до 4 символов) ищутся только точно, до 8 символов допускается одна опечатка, длиннее - две
+   */
+  public static int normalizeMaxEdits(Integer maxEdits, String normalizedQuery) {
+    if (maxEdits != null) {
+      return Math.max(Math.min(maxEdits, MAX_EDITS), 0);
+    }
+    int length = normalizedQuery.length();
+    return length < 4 ? 0 : length <= 8 ? 1 : 2;
+  }
+
+  /**
+   * Заменяет латинские буквы, похожие на кириллические, в словах, содержащих кириллицу:
+   * "тaблицa" с латинскими "a" становится "таблица"
+   *
+   * @param lowerText текст в нижнем регистре
+   */
+  public static String foldLookalikes(String lowerText) {
+    char[] chars = lowerText.toCharArray();
+    int wordStart = 0;
+    for (int i = 0; i <= chars.length; i++) {
+      if (i == chars.length || chars[i] == ' ') {
+        foldWord(chars, wordStart, i);
+        wordStart = i + 1;
+      }
+    }
+    return new String(chars);
+  }
+
+  private static void foldWord(char[] chars, int from, int to) {
+    boolean cyrillic = false;
+    for (int i = from; i < to && !cyrillic; i++) {
+      cyrillic = Character.UnicodeBlock.of(chars[i]) == Character.UnicodeBlock.CYRILLIC;
+    }
+    if (!cyrillic) {
+      return;
+    }
+    for (int i = from; i < to; i++) {
+      int lookalike = LATIN_LOOKALIKES.indexOf(chars[i]);
+      if (lookalike >= 0) {
+        chars[i] = CYRILLIC_LOOKALIKES.charAt(lookalike);
+      }
+    }
+  }
+
+  /**
+   * Лимит результатов: по умолчанию {@value #DEFAULT_LIMIT}, не больше {@value #MAX_LIMIT}
+   */
+  public static int normalizeLimit(Integer limit) {
+    int effectiveLimit = limit != null ? limit : DEFAULT_LIMIT;
+    return Math.max(Math.min(effectiveLimit, MAX_LIMIT), 0);
+  }
+
+  /**
+   * Приводит запрос к нижнему регистру, убирает пробелы по краям и схлопывает повторяющиеся пробелы
+   */
+  public static String normalizeQuery(String query) {
+    if (query == null) {
+      return "";
+    }
+    return WHITESPACE.matcher(query.trim().toLowerCase()).replaceAll(" ");
+  }
+
+  /**
+   * Нормализация типа с учетом алиасов
+   */
+  public static String normalizeType(String type) {
+    if (type == null || type.trim().isEmpty()) {
+      return null;
+    }
+
+    String normalized = type.trim().toLowerCase();
+    return TYPE_ALIASES.getOrDefault(normalized, normalized);
+  }
+
+  /**
+   * Слова запроса
+   */
+  public String[] words() {
+    return query.split(" ");
+  }
+}
@@ -0,0 +1,58 @@
+package ru.alkoleft.context.platform.mcp.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+/**
+ * Конфигурация кэшей результатов инструментов MCP.
+ * <p>
+ * Каждый кэш ограничен по размеру и времени жизни записей и ведет статистику обращений.
+ * Спецификация Caffeine задается для каждого кэша свойством {@code cache.<имя кэша>.spec},
+ * по умолчанию используется {@code cache.caffeine.spec}.
+ */
+@Slf4j
+@Configuration
+public class CacheConfiguration {
+
+  /**
+   * Кэши инструментов MCP и ранжированных результатов поиска
+   */
+  public static final List<String> TOOL_CACHES = List.of(
+          "api-search",
+          "api-search-ranking",
+          "api-info",
+          "api-member",
+          "api-constructors",
+          "api-members",
+          "api-returned",
+          "api-accepted",
+          "api-defined",
+          "api-complete",
+          "api-complete-chain"
+  );
+
+  private static final String DEFAULT_SPEC = "maximumSize=1000,expireAfterWrite=5m";
+
+  @Bean
+  public CacheManager cacheManager(Environment environment,
+                                   @Value("${cache.caffeine.spec:" + DEFAULT_SPEC + "}") String defaultSpec) {
+    var cacheManager = new CaffeineCacheManager();
+    // Кэши, не перечисленные в TOOL_CACHES, создаются по спецификации по умолчанию
+    cacheManager.setCaffeine(Caffeine.from(defaultSpec).recordStats());
+
+    for (String cacheName : TOOL_CACHES) {
+      String spec = environment.getProperty("cache." + cacheName + ".spec", defaultSpec);
+      cacheManager.registerCustomCache(cacheName, Caffeine.from(spec).recordStats().build());
+      log.info("Кэш {}: {}", cacheName, spec);
+    }
+    return cacheManager;
+  }
+}
@@ -0,0 +1,29 @@
+package ru.alkoleft.context.platform.mcp.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Поколение данных, от которых зависят кэшированные результаты инструментов.
+ * <p>
+ * Номер поколения входит в ключи кэшей. После публикации нового снимка индексов поколение
+ * увеличивается, и записи, вычисленные по прежнему снимку (в том числе запросами,
+ * которые завершились уже после замены), становятся недостижимыми.
+ */
+@Component
+public class CacheGeneration {
+
+  private final AtomicLong generation = new AtomicLong();
+
+  public long current() {
+    return generation.get();
+  }
+
+  /**
+   * Переход к следующему поколению. Вызывается после публикации нового снимка индексов
+   */
+  public void advance() {
+    generation.incrementAndGet();
+  }
+}
@@ -0,0 +1,57 @@
+package ru.alkoleft.context.platform.mcp.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Периодический вывод статистики кэшей инструментов в журнал.
+ * Статистика выводится только для кэшей, к которым были обращения с предыдущего вывода
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheStatisticsReporter {
+
+  private final CacheManager cacheManager;
+  private final Map<String, CacheStats> previousStats = new LinkedHashMap<>();
+
+  @Scheduled(initialDelayString = "${cache.stats.log-interval:PT10M}",
+          fixedDelayString = "${cache.stats.log-interval:PT10M}")
+  public void logStatistics() {
+    for (String cacheName : cacheManager.getCacheNames()) {
+      Cache cache = cacheManager.getCache(cacheName);
+      if (!(cache instanceof CaffeineCache caffeineCache)) {
+        continue;
+      }
+
+      var nativeCache = caffeineCache.getNativeCache();
+      CacheStats stats = nativeCache.stats();
+      CacheStats previous = previousStats.put(cacheName, stats);
+      CacheStats period = previous != null ? stats.minus(previous) : stats;
+      if (period.requestCount() == 0) {
+        continue;
+      }
+
+      log.info("Кэш {}: обращений {}, попаданий {}, промахов {} ({}% попаданий), вытеснений {}, записей {}. Всего: попаданий {}, промахов {}, вытеснений {}",
+              cacheName,
+              period.requestCount(),
+              period.hitCount(),
+              period.missCount(),
+              Math.round(period.hitRate() * 100),
+              period.evictionCount(),
+              nativeCache.estimatedSize(),
+              stats.hitCount(),
+              stats.missCount(),
+              stats.evictionCount());
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package ru.alkoleft.context.platform.mcp.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+import ru.alkoleft.context.platform.mcp.SearchQuery;
+
+import java.lang.reflect.Method;
+
+/**
+ * Генератор ключей кэша инструмента поиска.
+ * Ключом является нормализованный запрос {@link SearchQuery}, поэтому запросы,
+ * различающиеся только регистром, пробелами, алиасом типа, лимитом сверх максимального
+ * или явно заданным числом опечаток, равным значению по умолчанию,
+ * используют одну запись кэша. Ключ дополняется номером поколения данных {@link CacheGeneration}
+ * и запрошенной версией платформы
+ */
+@Component(SearchKeyGenerator.NAME)
+@RequiredArgsConstructor
+public class SearchKeyGenerator implements KeyGenerator {
+
+  public static final String NAME = "searchKeyGenerator";
+
+  private final CacheGeneration generation;
+
+  @Override
+  public Object generate(Object target, Method method, Object... params) {
+    String version = params.length > 3 && params[3] != null ? ((String) params[3]).trim() : null;
+    Integer maxEdits = params.length > 4 ? (Integer) params[4] : null;
+    return new SimpleKey(generation.current(), version,
+            SearchQuery.of((String) params[0], (String) params[1], (Integer) params[2], maxEdits));
+  }
+}
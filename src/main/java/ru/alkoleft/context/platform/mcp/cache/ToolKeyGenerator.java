@@ -0,0 +1,26 @@
+package ru.alkoleft.context.platform.mcp.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.cache.interceptor.SimpleKeyGenerator;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+/**
+ * Генератор ключей кэшей инструментов: параметры вызова с номером поколения данных
+ */
+@Component(ToolKeyGenerator.NAME)
+@RequiredArgsConstructor
+public class ToolKeyGenerator implements KeyGenerator {
+
+  public static final String NAME = "toolKeyGenerator";
+
+  private final CacheGeneration generation;
+
+  @Override
+  public Object generate(Object target, Method method, Object... params) {
+    return new SimpleKey(generation.current(), SimpleKeyGenerator.generateKey(params));
+  }
+}
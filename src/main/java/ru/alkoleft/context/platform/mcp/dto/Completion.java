@@ -0,0 +1,12 @@
+package ru.alkoleft.context.platform.mcp.dto;
+
+/**
+ * Вариант автодополнения имени API
+ *
+ * @param name        имя в исходном регистре
+ * @param kind        вид элемента-представителя имени
+ * @param global      является ли представитель глобальным методом или свойством
+ * @param definitions количество элементов с этим именем
+ */
+public record Completion(String name, SearchResultType kind, boolean global, int definitions) {
+}
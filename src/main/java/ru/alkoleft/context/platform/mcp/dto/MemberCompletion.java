@@ -0,0 +1,11 @@
+package ru.alkoleft.context.platform.mcp.dto;
+
+/**
+ * Член типа, доступный после точки
+ *
+ * @param name      имя в исходном регистре
+ * @param kind      {@link SearchResultType#method} или {@link SearchResultType#property}
+ * @param valueType имя типа значения: возвращаемого методом или свойства, {@code null} - не задан
+ */
+public record MemberCompletion(String name, SearchResultType kind, String valueType) {
+}
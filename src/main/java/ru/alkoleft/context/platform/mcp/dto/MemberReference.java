@@ -0,0 +1,10 @@
+package ru.alkoleft.context.platform.mcp.dto;
+
+/**
+ * Элемент API вместе с типом, которому он принадлежит
+ *
+ * @param owner  имя типа-владельца или {@code null} для элемента глобального контекста
+ * @param member описание элемента: MethodDefinition или PropertyDefinition
+ */
+public record MemberReference(String owner, Object member) {
+}
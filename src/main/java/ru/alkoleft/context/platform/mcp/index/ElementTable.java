@@ -0,0 +1,667 @@
+package ru.alkoleft.context.platform.mcp.index;
+
+import ru.alkoleft.context.platform.dto.LazyMembers;
+import ru.alkoleft.context.platform.dto.MethodDefinition;
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
+import ru.alkoleft.context.platform.dto.PlatformTypeDefinition;
+import ru.alkoleft.context.platform.dto.PropertyDefinition;
+import ru.alkoleft.context.platform.dto.StringTable;
+import ru.alkoleft.context.platform.mcp.dto.SearchResultType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Плоская таблица всех элементов API платформы.
+ * <p>
+ * Каждый элемент хранится один раз и идентифицируется номером строки таблицы.
+ * Порядок строк: глобальные методы, глобальные свойства, типы, затем члены типов,
+ * сгруппированные по владельцу (сначала методы, потом свойства), так что члены
+ * одного типа занимают непрерывный диапазон.
+ * <p>
+ * Элемент может иметь английское имя: оно участвует в поиске наравне с русским,
+ * а тип находится по любому из имен одним обращением к хэш-таблице.
+ * <p>
+ * Члены типов с отложенной загрузкой ({@link LazyMembers}) представлены в таблице только именами,
+ * их описания загружаются при обращении к элементу.
+ * <p>
+ * Для каждого элемента заранее вычисляется ранг имени в алфавитном порядке,
+ * чтобы ранжирование результатов поиска не сравнивало строки.
+ * <p>
+ * Имена типов значений (возвращаемый тип метода, тип свойства) и типов параметров разрешаются
+ * в идентификаторы типов таблицы один раз при построении. Имена, не найденные среди типов,
+ * подсчитываются. По разрешенным ссылкам строятся обратные списки: для каждого типа - элементы,
+ * возвращающие его, и методы, принимающие его параметром.
+ * <p>
+ * Глобальные методы и свойства и члены типов сгруппированы по имени: по русскому или английскому
+ * имени в нижнем регистре одним обращением к хэш-таблице находится список всех элементов с этим именем.
+ * Список упорядочен по идентификатору, поэтому член конкретного типа находится в нем двоичным поиском
+ * без перебора членов типа и без выделения памяти.
+ */
+public final class ElementTable {
+
+  /**
+   * Владелец глобальных элементов и типов
+   */
+  public static final int NO_OWNER = -1;
+
+  /**
+   * Тип значения не задан или не найден среди типов
+   */
+  public static final int NO_TYPE = -1;
+
+  /**
+   * Имя не принадлежит ни одному методу или свойству
+   */
+  public static final int NO_NAME = -1;
+
+  private final String[] names;
+  private final String[] namesEn;
+  private final String[] lowerNames;
+  private final String[] lowerNamesEn;
+  private final SearchResultType[] kinds;
+  private final int[] owners;
+  private final Object[] items;
+  private final int[] nameRanks;
+  private final int[] memberStarts;
+  private final int[] memberEnds;
+  private final Map<String, Integer> typeIds;
+  private final Map<String, Integer> memberNameIds;
+  private final int typesStart;
+  private final int typeMembersStart;
+  private final int[] valueTypes;
+  private final int[] parameterTypeStarts;
+  private int[] parameterTypes;
+  private int[] returnedByStarts;
+  private int[] returnedBy;
+  private int[] acceptedByStarts;
+  private int[] acceptedBy;
+  private int[] memberNameStarts;
+  private int[] membersByName;
+  private int unresolvedTypeReferences;
+  private Set<String> unresolvedTypeNames;
+  // Имена типов до разрешения, освобождаются после построения таблицы
+  private String[] valueTypeNames;
+  private List<String>[] parameterTypeNames;
+
+  @SuppressWarnings("unchecked")
+  private ElementTable(int size, int typesStart, int typeMembersStart, int typeCount) {
+    this.names = new String[size];
+    this.namesEn = new String[size];
+    this.lowerNames = new String[size];
+    this.lowerNamesEn = new String[size];
+    this.kinds = new SearchResultType[size];
+    this.owners = new int[size];
+    this.items = new Object[size];
+    this.nameRanks = new int[size];
+    this.memberStarts = new int[size];
+    this.memberEnds = new int[size];
+    this.typeIds = new HashMap<>(typeCount * 8 / 3 + 1);
+    this.memberNameIds = new HashMap<>();
+    this.typesStart = typesStart;
+    this.typeMembersStart = typeMembersStart;
+    this.valueTypes = new int[size];
+    this.parameterTypeStarts = new int[size + 1];
+    this.valueTypeNames = new String[size];
+    this.parameterTypeNames = new List[size];
+  }
+
+  /**
+   * Строит таблицу по описанию контекста платформы
+   *
+   * @param definition описание контекста платформы
+   * @return таблица элементов
+   */
+  public static ElementTable of(PlatformContextDefinition definition) {
+    int globalCount = definition.globalMethods().size() + definition.globalProperties().size();
+    int typeMembersStart = globalCount + definition.types().size();
+    int size = typeMembersStart;
+    for (PlatformTypeDefinition type : definition.types()) {
+      size += type.methods().size() + type.properties().size();
+    }
+
+    var table = new ElementTable(size, globalCount, typeMembersStart, definition.types().size());
+    int id = 0;
+    for (MethodDefinition method : definition.globalMethods()) {
+      table.setTypes(id, method.returnType(), method.parameterTypes());
+      table.set(id++, method.name(), method.nameEn(), SearchResultType.method, NO_OWNER, method);
+    }
+    for (PropertyDefinition property : definition.globalProperties()) {
+      table.setTypes(id, property.type(), List.of());
+      table.set(id++, property.name(), property.nameEn(), SearchResultType.property, NO_OWNER, property);
+    }
+
+    int memberId = typeMembersStart;
+    for (PlatformTypeDefinition type : definition.types()) {
+      int typeId = id++;
+      table.set(typeId, type.name(), type.nameEn(), SearchResultType.type, NO_OWNER, type);
+      table.typeIds.put(table.lowerNames[typeId], typeId);
+      table.memberStarts[typeId] = memberId;
+      memberId = table.setMembers(memberId, type.methods(), SearchResultType.method, typeId,
+              MethodDefinition::name, MethodDefinition::nameEn, MethodDefinition::returnType,
+              MethodDefinition::parameterTypes);
+      memberId = table.setMembers(memberId, type.properties(), SearchResultType.property, typeId,
+              PropertyDefinition::name, PropertyDefinition::nameEn, PropertyDefinition::type,
+              property -> List.of());
+      table.memberEnds[typeId] = memberId;
+    }
+    // Английские имена не заменяют совпадающие русские имена других типов
+    for (int typeId = globalCount; typeId < typeMembersStart; typeId++) {
+      if (table.lowerNamesEn[typeId] != null) {
+        table.typeIds.putIfAbsent(table.lowerNamesEn[typeId], typeId);
+      }
+    }
+    table.rankNames();
+    table.resolveTypes();
+    table.indexTypeUsages();
+    table.indexMemberNames();
+    return table;
+  }
+
+  /**
+   * Разрешает имена типов значений и параметров в идентификаторы типов
+   */
+  private void resolveTypes() {
+    Map<String, Integer> resolved = new HashMap<>();
+    Set<String> unresolved = new TreeSet<>();
+    int[] resolvedParameters = new int[Math.max(16, size())];
+    int count = 0;
+    for (int id = 0; id < size(); id++) {
+      valueTypes[id] = resolveType(valueTypeNames[id], resolved, unresolved);
+      parameterTypeStarts[id] = count;
+      List<String> names = parameterTypeNames[id];
+      if (names == null) {
+        continue;
+      }
+      for (String name : names) {
+        int typeId = resolveType(name, resolved, unresolved);
+        // Русское и английское имя типа в разных сигнатурах разрешаются в один тип
+        if (typeId != NO_TYPE && !contains(resolvedParameters, parameterTypeStarts[id], count, typeId)) {
+          if (count == resolvedParameters.length) {
+            resolvedParameters = Arrays.copyOf(resolvedParameters, count * 2);
+          }
+          resolvedParameters[count++] = typeId;
+        }
+      }
+    }
+    parameterTypeStarts[size()] = count;
+    parameterTypes = Arrays.copyOf(resolvedParameters, count);
+    unresolvedTypeNames = Collections.unmodifiableSet(unresolved);
+    valueTypeNames = null;
+    parameterTypeNames = null;
+  }
+
+  private static boolean contains(int[] values, int from, int to, int value) {
+    for (int i = from; i < to; i++) {
+      if (values[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Строит обратные списки по разрешенным типам: элементы по номеру типа, упорядоченные по идентификатору
+   */
+  private void indexTypeUsages() {
+    int typeCount = typeMembersStart - typesStart;
+    returnedByStarts = new int[typeCount + 1];
+    acceptedByStarts = new int[typeCount + 1];
+    for (int id = 0; id < size(); id++) {
+      if (valueTypes[id] != NO_TYPE) {
+        returnedByStarts[valueTypes[id] - typesStart + 1]++;
+      }
+      for (int i = parameterTypeStart(id); i < parameterTypeEnd(id); i++) {
+        acceptedByStarts[parameterTypes[i] - typesStart + 1]++;
+      }
+    }
+    Arrays.parallelPrefix(returnedByStarts, Integer::sum);
+    Arrays.parallelPrefix(acceptedByStarts, Integer::sum);
+
+    returnedBy = new int[returnedByStarts[typeCount]];
+    acceptedBy = new int[acceptedByStarts[typeCount]];
+    int[] returnedByNext = Arrays.copyOf(returnedByStarts, typeCount);
+    int[] acceptedByNext = Arrays.copyOf(acceptedByStarts, typeCount);
+    for (int id = 0; id < size(); id++) {
+      if (valueTypes[id] != NO_TYPE) {
+        returnedBy[returnedByNext[valueTypes[id] - typesStart]++] = id;
+      }
+      for (int i = parameterTypeStart(id); i < parameterTypeEnd(id); i++) {
+        acceptedBy[acceptedByNext[parameterTypes[i] - typesStart]++] = id;
+      }
+    }
+  }
+
+  /**
+   * Группирует глобальные элементы и члены типов по именам. Элемент попадает в группы русского
+   * и английского имени, внутри группы элементы упорядочены по идентификатору
+   */
+  private void indexMemberNames() {
+    int[] names = new int[size()];
+    int[] namesEn = new int[size()];
+    int[] starts = new int[2 * size() + 1];
+    for (int id = 0; id < size(); id++) {
+      if (kinds[id] == SearchResultType.type) {
+        continue;
+      }
+      names[id] = memberNameIds.computeIfAbsent(lowerNames[id], key -> memberNameIds.size());
+      starts[names[id] + 1]++;
+      namesEn[id] = lowerNamesEn[id] != null
+              ? memberNameIds.computeIfAbsent(lowerNamesEn[id], key -> memberNameIds.size())
+              : NO_NAME;
+      if (namesEn[id] == names[id]) {
+        namesEn[id] = NO_NAME;
+      } else if (namesEn[id] != NO_NAME) {
+        starts[namesEn[id] + 1]++;
+      }
+    }
+    int nameCount = memberNameIds.size();
+    memberNameStarts = Arrays.copyOf(starts, nameCount + 1);
+    Arrays.parallelPrefix(memberNameStarts, Integer::sum);
+
+    membersByName = new int[memberNameStarts[nameCount]];
+    int[] next = Arrays.copyOf(memberNameStarts, nameCount);
+    for (int id = 0; id < size(); id++) {
+      if (kinds[id] == SearchResultType.type) {
+        continue;
+      }
+      membersByName[next[names[id]]++] = id;
+      if (namesEn[id] != NO_NAME) {
+        membersByName[next[namesEn[id]]++] = id;
+      }
+    }
+  }
+
+  private int resolveType(String name, Map<String, Integer> resolved, Set<String> unresolved) {
+    if (name == null) {
+      return NO_TYPE;
+    }
+    int typeId = resolved.computeIfAbsent(name, key -> typeId(key.toLowerCase()));
+    if (typeId == NO_TYPE) {
+      unresolvedTypeReferences++;
+      unresolved.add(name);
+    }
+    return typeId;
+  }
+
+  /**
+   * Одинаковые имена получают одинаковый ранг
+   */
+  private void rankNames() {
+    Integer[] order = new Integer[lowerNames.length];
+    Arrays.setAll(order, i -> i);
+    Arrays.sort(order, Comparator.comparing(id -> lowerNames[id]));
+    int rank = 0;
+    for (int i = 0; i < order.length; i++) {
+      if (i > 0 && !lowerNames[order[i]].equals(lowerNames[order[i - 1]])) {
+        rank = i;
+      }
+      nameRanks[order[i]] = rank;
+    }
+  }
+
+  /**
+   * Заполняет строки членов типа. Для членов с отложенной загрузкой используются только имена,
+   * описание загружается при обращении к {@link #item}
+   *
+   * @return номер строки, следующей за последним членом
+   */
+  private <T> int setMembers(int memberId, List<T> members, SearchResultType kind, int owner,
+                             Function<T, String> name, Function<T, String> nameEn,
+                             Function<T, String> type, Function<T, List<String>> parameterTypes) {
+    int id = memberId;
+    if (members instanceof LazyMembers<T> lazy && !lazy.isMaterialized()) {
+      for (int i = 0; i < lazy.size(); i++) {
+        setTypes(id, lazy.type(i), lazy.parameterTypes(i));
+        set(id++, lazy.name(i), lazy.nameEn(i), kind, owner, null);
+      }
+    } else {
+      for (T member : members) {
+        setTypes(id, type.apply(member), parameterTypes.apply(member));
+        set(id++, name.apply(member), nameEn.apply(member), kind, owner, member);
+      }
+    }
+    return id;
+  }
+
+  private void setTypes(int id, String valueType, List<String> parameterTypes) {
+    valueTypeNames[id] = valueType;
+    parameterTypeNames[id] = parameterTypes.isEmpty() ? null : parameterTypes;
+  }
+
+  private void set(int id, String name, String nameEn, SearchResultType kind, int owner, Object item) {
+    names[id] = name;
+    namesEn[id] = nameEn;
+    // Имена членов повторяются во многих типах, нижний регистр хранится в одном экземпляре
+    lowerNames[id] = StringTable.intern(name.toLowerCase());
+    lowerNamesEn[id] = nameEn != null ? StringTable.intern(nameEn.toLowerCase()) : null;
+    kinds[id] = kind;
+    owners[id] = owner;
+    items[id] = item;
+  }
+
+  /**
+   * Количество элементов в таблице
+   */
+  public int size() {
+    return items.length;
+  }
+
+  /**
+   * Количество глобальных методов или свойств
+   *
+   * @param kind {@link SearchResultType#method} или {@link SearchResultType#property}
+   */
+  public int globalCount(SearchResultType kind) {
+    int count = 0;
+    for (int id = 0; id < typesStart; id++) {
+      if (kinds[id] == kind) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Количество типов
+   */
+  public int typeCount() {
+    return typeMembersStart - typesStart;
+  }
+
+  /**
+   * Номер первой строки членов типов. Все строки до него - глобальные элементы и типы
+   */
+  public int typeMembersStart() {
+    return typeMembersStart;
+  }
+
+  /**
+   * Имена элементов в нижнем регистре, индекс массива совпадает с идентификатором элемента.
+   * Массив не копируется и не должен изменяться
+   */
+  public String[] lowerNames() {
+    return lowerNames;
+  }
+
+  /**
+   * Имя элемента в исходном регистре без загрузки описания
+   */
+  public String name(int id) {
+    return names[id];
+  }
+
+  /**
+   * Английское имя элемента в исходном регистре или {@code null}
+   */
+  public String nameEn(int id) {
+    return namesEn[id];
+  }
+
+  public String lowerName(int id) {
+    return lowerNames[id];
+  }
+
+  /**
+   * Английские имена элементов в нижнем регистре, {@code null} - имя не задано.
+   * Массив не копируется и не должен изменяться
+   */
+  public String[] lowerNamesEn() {
+    return lowerNamesEn;
+  }
+
+  /**
+   * Английское имя элемента в нижнем регистре или {@code null}
+   */
+  public String lowerNameEn(int id) {
+    return lowerNamesEn[id];
+  }
+
+  /**
+   * Проверяет, содержит ли русское или английское имя элемента подстроку
+   *
+   * @param id    идентификатор элемента
+   * @param query подстрока в нижнем регистре
+   */
+  public boolean nameContains(int id, String query) {
+    return lowerNames[id].contains(query) || (lowerNamesEn[id] != null && lowerNamesEn[id].contains(query));
+  }
+
+  public SearchResultType kind(int id) {
+    return kinds[id];
+  }
+
+  /**
+   * Идентификатор типа-владельца или {@link #NO_OWNER} для глобальных элементов и типов
+   */
+  public int owner(int id) {
+    return owners[id];
+  }
+
+  /**
+   * Исходный DTO элемента. Для члена типа с отложенной загрузкой загружаются все члены владельца
+   */
+  public Object item(int id) {
+    Object item = items[id];
+    if (item == null) {
+      var owner = (PlatformTypeDefinition) items[owners[id]];
+      int index = id - memberStarts[owners[id]];
+      int methodCount = owner.methods().size();
+      item = index < methodCount ? owner.methods().get(index) : owner.properties().get(index - methodCount);
+    }
+    return item;
+  }
+
+  /**
+   * Ранг имени элемента в алфавитном порядке имен в нижнем регистре
+   */
+  public int nameRank(int id) {
+    return nameRanks[id];
+  }
+
+  /**
+   * Начало диапазона членов типа (включительно)
+   */
+  public int memberStart(int typeId) {
+    return memberStarts[typeId];
+  }
+
+  /**
+   * Конец диапазона членов типа (не включительно)
+   */
+  public int memberEnd(int typeId) {
+    return memberEnds[typeId];
+  }
+
+  /**
+   * Поиск типа по русскому или английскому имени в нижнем регистре
+   *
+   * @return идентификатор типа или {@link #NO_OWNER}, если тип не найден
+   */
+  public int typeId(String lowerName) {
+    return typeIds.getOrDefault(lowerName, NO_OWNER);
+  }
+
+  /**
+   * Поиск глобального метода или свойства по имени в нижнем регистре.
+   * Русские имена имеют приоритет перед английскими
+   *
+   * @param lowerName имя в нижнем регистре
+   * @param kind      {@link SearchResultType#method} или {@link SearchResultType#property}
+   * @return идентификатор элемента или {@link #NO_OWNER}, если элемент не найден
+   */
+  public int globalId(String lowerName, SearchResultType kind) {
+    int nameId = memberNameId(lowerName);
+    if (nameId == NO_NAME) {
+      return NO_OWNER;
+    }
+    // Глобальные элементы идут в начале группы имени. Элемент группы, не совпавший
+    // по русскому имени, совпал по английскому
+    int matchEn = NO_OWNER;
+    for (int i = memberNameStarts[nameId]; i < memberNameStarts[nameId + 1] && membersByName[i] < typesStart; i++) {
+      int id = membersByName[i];
+      if (kinds[id] == kind) {
+        if (lowerNames[id].equals(lowerName)) {
+          return id;
+        } else if (matchEn == NO_OWNER) {
+          matchEn = id;
+        }
+      }
+    }
+    return matchEn;
+  }
+
+  /**
+   * Поиск члена типа по русскому или английскому имени в нижнем регистре без перебора членов:
+   * в группе имени двоичным поиском находится первый элемент из диапазона членов типа.
+   * Методы идут в диапазоне раньше свойств и имеют приоритет
+   *
+   * @param typeId    идентификатор типа
+   * @param lowerName имя в нижнем регистре
+   * @return идентификатор члена или {@link #NO_OWNER}, если член не найден
+   */
+  public int memberId(int typeId, String lowerName) {
+    int nameId = memberNameId(lowerName);
+    if (nameId == NO_NAME) {
+      return NO_OWNER;
+    }
+    int end = memberNameStarts[nameId + 1];
+    int index = Arrays.binarySearch(membersByName, memberNameStarts[nameId], end, memberStarts[typeId]);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return index < end && membersByName[index] < memberEnds[typeId] ? membersByName[index] : NO_OWNER;
+  }
+
+  /**
+   * Тип значения элемента: возвращаемый тип метода или тип свойства
+   *
+   * @return идентификатор типа или {@link #NO_TYPE}
+   */
+  public int valueType(int id) {
+    return valueTypes[id];
+  }
+
+  /**
+   * Начало диапазона разрешенных типов параметров метода в {@link #parameterType} (включительно)
+   */
+  public int parameterTypeStart(int id) {
+    return parameterTypeStarts[id];
+  }
+
+  /**
+   * Конец диапазона разрешенных типов параметров метода (не включительно)
+   */
+  public int parameterTypeEnd(int id) {
+    return parameterTypeStarts[id + 1];
+  }
+
+  /**
+   * Идентификатор типа параметра по номеру в диапазоне {@link #parameterTypeStart}..{@link #parameterTypeEnd}
+   */
+  public int parameterType(int index) {
+    return parameterTypes[index];
+  }
+
+  /**
+   * Начало диапазона элементов, возвращающих тип, в {@link #returnedBy} (включительно):
+   * методов с таким возвращаемым типом и свойств с таким типом значения
+   *
+   * @param typeId идентификатор типа
+   */
+  public int returnedByStart(int typeId) {
+    return returnedByStarts[typeId - typesStart];
+  }
+
+  /**
+   * Конец диапазона элементов, возвращающих тип (не включительно)
+   */
+  public int returnedByEnd(int typeId) {
+    return returnedByStarts[typeId - typesStart + 1];
+  }
+
+  /**
+   * Идентификатор элемента, возвращающего тип, по номеру в диапазоне {@link #returnedByStart}..{@link #returnedByEnd}
+   */
+  public int returnedBy(int index) {
+    return returnedBy[index];
+  }
+
+  /**
+   * Начало диапазона методов, принимающих тип параметром, в {@link #acceptedBy} (включительно)
+   *
+   * @param typeId идентификатор типа
+   */
+  public int acceptedByStart(int typeId) {
+    return acceptedByStarts[typeId - typesStart];
+  }
+
+  /**
+   * Конец диапазона методов, принимающих тип параметром (не включительно)
+   */
+  public int acceptedByEnd(int typeId) {
+    return acceptedByStarts[typeId - typesStart + 1];
+  }
+
+  /**
+   * Идентификатор метода, принимающего тип параметром, по номеру в диапазоне
+   * {@link #acceptedByStart}..{@link #acceptedByEnd}
+   */
+  public int acceptedBy(int index) {
+    return acceptedBy[index];
+  }
+
+  /**
+   * Поиск группы методов и свойств по русскому или английскому имени в нижнем регистре
+   *
+   * @return номер имени или {@link #NO_NAME}, если элементов с таким именем нет
+   */
+  public int memberNameId(String lowerName) {
+    return memberNameIds.getOrDefault(lowerName, NO_NAME);
+  }
+
+  /**
+   * Начало диапазона элементов с именем в {@link #memberByName} (включительно):
+   * глобальных методов и свойств, затем членов типов в порядке типов
+   *
+   * @param nameId номер имени, полученный {@link #memberNameId}
+   */
+  public int membersByNameStart(int nameId) {
+    return memberNameStarts[nameId];
+  }
+
+  /**
+   * Конец диапазона элементов с именем (не включительно)
+   */
+  public int membersByNameEnd(int nameId) {
+    return memberNameStarts[nameId + 1];
+  }
+
+  /**
+   * Идентификатор элемента по номеру в диапазоне {@link #membersByNameStart}..{@link #membersByNameEnd}
+   */
+  public int memberByName(int index) {
+    return membersByName[index];
+  }
+
+  /**
+   * Количество ссылок на типы (значения и параметры), имена которых не найдены среди типов
+   */
+  public int unresolvedTypeReferences() {
+    return unresolvedTypeReferences;
+  }
+
+  /**
+   * Имена типов, не найденные среди типов таблицы, в алфавитном порядке
+   */
+  public Set<String> unresolvedTypeNames() {
+    return unresolvedTypeNames;
+  }
+}
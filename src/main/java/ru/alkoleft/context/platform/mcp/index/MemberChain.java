@@ -0,0 +1,143 @@
+package ru.alkoleft.context.platform.mcp.index;
+
+import ru.alkoleft.context.platform.mcp.dto.SearchResultType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Цепочка обращений к членам, введенная до курсора: {@code Запрос.Выполнить().Выбрать().Сле}.
+ * <p>
+ * Выражение разбирается на шаги (имена в нижнем регистре, вызов отмечается пустыми скобками,
+ * аргументы отбрасываются) и начало имени после последней точки. Шаги разрешаются по таблице
+ * элементов: первый - тип или глобальный элемент, каждый следующий - член типа значения
+ * предыдущего шага. Разрешение использует только идентификаторы таблицы и не загружает описания.
+ *
+ * @param steps  шаги цепочки до последней точки
+ * @param prefix начало имени члена после последней точки в нижнем регистре, может быть пустым
+ */
+public record MemberChain(List<String> steps, String prefix) {
+
+  private static final String CALL = "()";
+  private static final String[] NEW_KEYWORDS = {"новый ", "new "};
+
+  /**
+   * Разбирает выражение
+   *
+   * @param expression выражение, заканчивающееся точкой или началом имени члена
+   * @return цепочка
+   * @throws IllegalArgumentException если в выражении нет точки, шаг пуст или скобки не сбалансированы
+   */
+  public static MemberChain parse(String expression) {
+    List<String> parts = new ArrayList<>();
+    StringBuilder part = new StringBuilder();
+    int depth = 0;
+    for (int i = 0; i < expression.length(); i++) {
+      char c = expression.charAt(i);
+      if (c == '(') {
+        if (depth++ == 0) {
+          part.append(CALL);
+        }
+      } else if (c == ')') {
+        if (--depth < 0) {
+          throw new IllegalArgumentException("Лишняя закрывающая скобка в выражении " + expression);
+        }
+      } else if (depth == 0 && c == '.') {
+        parts.add(part.toString().trim().toLowerCase());
+        part.setLength(0);
+      } else if (depth == 0) {
+        part.append(c);
+      }
+    }
+    if (depth != 0) {
+      throw new IllegalArgumentException("Не закрыта скобка в выражении " + expression);
+    }
+    if (parts.isEmpty()) {
+      throw new IllegalArgumentException("Выражение должно содержать точку перед дополняемым членом, например 'Запрос.Выполнить().'");
+    }
+    for (String step : parts) {
+      if (step.isEmpty() || step.equals(CALL)) {
+        throw new IllegalArgumentException("Пустой шаг в выражении " + expression);
+      }
+    }
+    return new MemberChain(List.copyOf(parts), name(part.toString().trim().toLowerCase()));
+  }
+
+  /**
+   * Шаги цепочки без начала имени: ключ кэширования разрешения
+   */
+  public String key() {
+    return String.join(".", steps);
+  }
+
+  /**
+   * Разрешает шаги цепочки в тип значения последнего шага
+   *
+   * @param elements таблица элементов
+   * @return результат разрешения
+   */
+  public Resolution resolve(ElementTable elements) {
+    int typeId = resolveFirst(elements, steps.get(0));
+    if (typeId == ElementTable.NO_TYPE) {
+      return new Resolution(ElementTable.NO_TYPE, 0, ElementTable.NO_TYPE);
+    }
+    for (int step = 1; step < steps.size(); step++) {
+      int memberId = elements.memberId(typeId, name(steps.get(step)));
+      int valueType = memberId != ElementTable.NO_OWNER ? elements.valueType(memberId) : ElementTable.NO_TYPE;
+      if (valueType == ElementTable.NO_TYPE) {
+        return new Resolution(ElementTable.NO_TYPE, step, typeId);
+      }
+      typeId = valueType;
+    }
+    return new Resolution(typeId, Resolution.RESOLVED, ElementTable.NO_TYPE);
+  }
+
+  /**
+   * Первый шаг: {@code Новый Тип(...)} - тип, вызов - глобальный метод,
+   * иначе глобальное свойство или, если его нет, тип (переменная, названная по типу)
+   */
+  private static int resolveFirst(ElementTable elements, String step) {
+    for (String keyword : NEW_KEYWORDS) {
+      if (step.startsWith(keyword)) {
+        return elements.typeId(name(step.substring(keyword.length()).trim()));
+      }
+    }
+    if (step.endsWith(CALL)) {
+      int methodId = elements.globalId(name(step), SearchResultType.method);
+      return methodId != ElementTable.NO_OWNER ? elements.valueType(methodId) : ElementTable.NO_TYPE;
+    }
+    int propertyId = elements.globalId(step, SearchResultType.property);
+    if (propertyId != ElementTable.NO_OWNER && elements.valueType(propertyId) != ElementTable.NO_TYPE) {
+      return elements.valueType(propertyId);
+    }
+    int typeId = elements.typeId(step);
+    return typeId != ElementTable.NO_OWNER ? typeId : ElementTable.NO_TYPE;
+  }
+
+  /**
+   * Имя шага без отметки вызова
+   */
+  public static String name(String step) {
+    return step.endsWith(CALL) ? step.substring(0, step.length() - CALL.length()).trim() : step;
+  }
+
+  /**
+   * Результат разрешения цепочки
+   *
+   * @param typeId     тип значения последнего шага или {@link ElementTable#NO_TYPE}
+   * @param failedStep номер шага, который не удалось разрешить, или {@link #RESOLVED}
+   * @param ownerId    тип, в котором не найден член с известным типом значения, или {@link ElementTable#NO_TYPE}
+   *                   для первого шага
+   */
+  public record Resolution(int typeId, int failedStep, int ownerId) {
+
+    /**
+     * Все шаги разрешены
+     */
+    public static final int RESOLVED = -1;
+
+    public boolean isResolved() {
+      return failedStep == RESOLVED;
+    }
+  }
+}
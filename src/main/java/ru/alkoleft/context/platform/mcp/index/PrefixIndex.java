@@ -0,0 +1,289 @@
+package ru.alkoleft.context.platform.mcp.index;
+
+import ru.alkoleft.context.platform.mcp.dto.SearchResultType;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Префиксный индекс всех имен API для автодополнения.
+ * <p>
+ * Различные русские и английские имена элементов в нижнем регистре хранятся в отсортированном массиве,
+ * поэтому имена с общим префиксом занимают непрерывный диапазон, границы которого находятся двоичным поиском.
+ * Для каждого имени при построении вычисляется вес: типы выше глобальных элементов, глобальные элементы
+ * выше членов типов, среди равных выше имя, определенное в большем числе типов. Лучшие имена диапазона
+ * отбираются по весу без сравнения строк.
+ * <p>
+ * Одно имя - одна запись: метод {@code Записать} сотни типов дает одно дополнение с количеством определений.
+ * <p>
+ * Тот же отсортированный массив служит словарем нечеткого поиска: обход имен по порядку моделирует
+ * обход префиксного дерева с автоматом Левенштейна. Строки матрицы расстояний общего префикса соседних
+ * имен вычисляются один раз, а диапазон имен с префиксом, расстояние до которого уже больше допустимого,
+ * пропускается двоичным поиском.
+ */
+public final class PrefixIndex {
+
+  private final String[] keys;
+  private final String[] names;
+  private final int[] ids;
+  private final int[] definitions;
+  private final long[] weights;
+  private final int maxKeyLength;
+
+  private PrefixIndex(String[] keys) {
+    this.keys = keys;
+    this.maxKeyLength = Arrays.stream(keys).mapToInt(String::length).max().orElse(0);
+    int size = keys.length;
+    this.names = new String[size];
+    this.ids = new int[size];
+    this.definitions = new int[size];
+    this.weights = new long[size];
+  }
+
+  /**
+   * Строит индекс по русским и английским именам таблицы элементов
+   *
+   * @param elements таблица элементов
+   * @return префиксный индекс
+   */
+  public static PrefixIndex build(ElementTable elements) {
+    // Номер слота меньше размера таблицы - русское имя элемента, иначе - английское имя элемента (слот - размер)
+    int size = elements.size();
+    Integer[] slots = new Integer[2 * size];
+    int count = 0;
+    for (int id = 0; id < size; id++) {
+      slots[count++] = id;
+      String lowerNameEn = elements.lowerNameEn(id);
+      if (lowerNameEn != null && !lowerNameEn.equals(elements.lowerName(id))) {
+        slots[count++] = size + id;
+      }
+    }
+    slots = Arrays.copyOf(slots, count);
+    Arrays.sort(slots, Comparator.comparing(slot -> key(elements, slot)));
+
+    String[] keys = new String[slots.length];
+    int entries = 0;
+    for (int i = 0; i < slots.length; i++) {
+      if (i == 0 || !key(elements, slots[i]).equals(keys[entries - 1])) {
+        keys[entries++] = key(elements, slots[i]);
+      }
+    }
+
+    var index = new PrefixIndex(Arrays.copyOf(keys, entries));
+    int entry = -1;
+    for (int i = 0; i < slots.length; i++) {
+      int slot = slots[i];
+      int id = slot % size;
+      String key = key(elements, slot);
+      if (entry < 0 || !key.equals(index.keys[entry])) {
+        entry++;
+        index.ids[entry] = id;
+        index.names[entry] = slot < size ? elements.name(id) : elements.nameEn(id);
+      } else if (priority(elements, id) < priority(elements, index.ids[entry])) {
+        // Представитель имени - элемент высшего приоритета, при равенстве - первый по идентификатору
+        index.ids[entry] = id;
+        index.names[entry] = slot < size ? elements.name(id) : elements.nameEn(id);
+      }
+      index.definitions[entry]++;
+    }
+    for (int i = 0; i < entries; i++) {
+      index.weights[i] = (long) priority(elements, index.ids[i]) << 32 | (Integer.MAX_VALUE - index.definitions[i]);
+    }
+    return index;
+  }
+
+  private static String key(ElementTable elements, int slot) {
+    return slot < elements.size() ? elements.lowerName(slot) : elements.lowerNameEn(slot - elements.size());
+  }
+
+  /**
+   * Приоритет вида элемента: меньше - выше
+   */
+  private static int priority(ElementTable elements, int id) {
+    if (elements.kind(id) == SearchResultType.type) {
+      return 0;
+    }
+    return elements.owner(id) == ElementTable.NO_OWNER ? 1 : 2;
+  }
+
+  /**
+   * Лучшие дополнения префикса в порядке убывания веса. Имя, совпадающее с префиксом, идет первым
+   *
+   * @param lowerPrefix префикс в нижнем регистре
+   * @param limit       количество дополнений
+   * @return номера записей индекса
+   */
+  public int[] complete(String lowerPrefix, int limit) {
+    int from = lowerBound(lowerPrefix);
+    int to = upperBound(lowerPrefix, from);
+    var collector = new TopKCollector(limit, to - from);
+    for (int i = from; i < to; i++) {
+      collector.offer(i - from, i == from && keys[i].equals(lowerPrefix) ? Long.MIN_VALUE : weights[i]);
+    }
+    int[] result = collector.drain();
+    for (int i = 0; i < result.length; i++) {
+      result[i] += from;
+    }
+    return result;
+  }
+
+  /**
+   * Количество имен, начинающихся с префикса
+   *
+   * @param lowerPrefix префикс в нижнем регистре
+   */
+  public int count(String lowerPrefix) {
+    int from = lowerBound(lowerPrefix);
+    return upperBound(lowerPrefix, from) - from;
+  }
+
+  /**
+   * Нечеткий поиск: имена, расстояние Левенштейна от которых до запроса не больше допустимого
+   *
+   * @param lowerQuery запрос в нижнем регистре
+   * @param maxEdits   допустимое число вставок, удалений и замен символов
+   * @param consumer   получатель номеров записей и расстояний в порядке имен
+   */
+  public void matchWithin(String lowerQuery, int maxEdits, FuzzyMatchConsumer consumer) {
+    int length = lowerQuery.length();
+    // rows[d] - строка матрицы расстояний для первых d символов текущего имени
+    int[][] rows = new int[maxKeyLength + 1][length + 1];
+    for (int j = 0; j <= length; j++) {
+      rows[0][j] = j;
+    }
+    String previous = "";
+    int computed = 0;
+    int entry = 0;
+    while (entry < keys.length) {
+      String key = keys[entry];
+      int depth = Math.min(commonPrefix(previous, key), computed);
+      boolean pruned = false;
+      while (depth < key.length()) {
+        int[] row = rows[depth];
+        int[] next = rows[depth + 1];
+        char c = key.charAt(depth);
+        next[0] = depth + 1;
+        int min = next[0];
+        for (int j = 1; j <= length; j++) {
+          int cost = lowerQuery.charAt(j - 1) == c ? 0 : 1;
+          next[j] = Math.min(Math.min(next[j - 1] + 1, row[j] + 1), row[j - 1] + cost);
+          min = Math.min(min, next[j]);
+        }
+        depth++;
+        if (min > maxEdits) {
+          pruned = true;
+          break;
+        }
+      }
+      previous = key;
+      computed = depth;
+      if (pruned) {
+        // Ни одно имя с этим префиксом не укладывается в допустимое расстояние
+        entry = upperBound(key, depth, entry);
+        continue;
+      }
+      if (rows[depth][length] <= maxEdits) {
+        consumer.accept(entry, rows[depth][length]);
+      }
+      entry++;
+    }
+  }
+
+  private static int commonPrefix(String first, String second) {
+    int length = Math.min(first.length(), second.length());
+    int i = 0;
+    while (i < length && first.charAt(i) == second.charAt(i)) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Первая запись, не меньшая префикса
+   */
+  private int lowerBound(String lowerPrefix) {
+    int low = 0;
+    int high = keys.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (keys[middle].compareTo(lowerPrefix) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Первая запись после диапазона имен, начинающихся с префикса
+   */
+  private int upperBound(String lowerPrefix, int from) {
+    return upperBound(lowerPrefix, lowerPrefix.length(), from);
+  }
+
+  /**
+   * Первая запись после диапазона имен, начинающихся с первых {@code length} символов строки
+   */
+  private int upperBound(String text, int length, int from) {
+    int low = from;
+    int high = keys.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (keys[middle].length() >= length && keys[middle].regionMatches(0, text, 0, length)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Имя записи в исходном регистре
+   */
+  public String name(int entry) {
+    return names[entry];
+  }
+
+  /**
+   * Идентификатор элемента-представителя имени: тип, глобальный элемент или первый член типа
+   */
+  public int elementId(int entry) {
+    return ids[entry];
+  }
+
+  /**
+   * Количество элементов с этим именем
+   */
+  public int definitions(int entry) {
+    return definitions[entry];
+  }
+
+  /**
+   * Количество различных имен в индексе
+   */
+  public int size() {
+    return keys.length;
+  }
+
+  /**
+   * Имя записи в нижнем регистре
+   */
+  public String key(int entry) {
+    return keys[entry];
+  }
+
+  /**
+   * Получатель результатов нечеткого поиска
+   */
+  @FunctionalInterface
+  public interface FuzzyMatchConsumer {
+
+    /**
+     * @param entry    номер записи индекса
+     * @param distance расстояние Левенштейна до запроса
+     */
+    void accept(int entry, int distance);
+  }
+}
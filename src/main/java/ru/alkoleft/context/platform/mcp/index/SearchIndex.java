@@ -0,0 +1,35 @@
+package ru.alkoleft.context.platform.mcp.index;
+
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
+
+/**
+ * Неизменяемый снимок поисковых индексов контекста платформы.
+ * <p>
+ * Снимок строится целиком до публикации и после этого не изменяется,
+ * поэтому читается из любого потока без блокировок.
+ *
+ * @param elements плоская таблица всех элементов, поиск по имени выполняется по ее группам имен
+ * @param trigrams индекс триграмм по именам таблицы элементов
+ * @param prefixes префиксный индекс имен таблицы элементов для автодополнения
+ */
+public record SearchIndex(
+        ElementTable elements,
+        TrigramIndex trigrams,
+        PrefixIndex prefixes
+) {
+
+  /**
+   * Строит индексы по описанию контекста платформы
+   *
+   * @param definition описание контекста платформы
+   * @return снимок индексов
+   */
+  public static SearchIndex build(PlatformContextDefinition definition) {
+    // Таблица и индекс триграмм охватывают все элементы, включая члены типов, по обоим именам
+    ElementTable elements = ElementTable.of(definition);
+    TrigramIndex trigrams = TrigramIndex.build(elements.lowerNames(), elements.lowerNamesEn());
+    PrefixIndex prefixes = PrefixIndex.build(elements);
+
+    return new SearchIndex(elements, trigrams, prefixes);
+  }
+}
@@ -0,0 +1,89 @@
+package ru.alkoleft.context.platform.mcp.index;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Неизменяемый набор снимков индексов загруженных версий платформы.
+ * <p>
+ * Замена индекса одной версии создает новый набор, поэтому запрос, получивший набор,
+ * работает с согласованными снимками всех версий.
+ *
+ * @param defaultVersion версия, используемая, если в запросе версия не указана
+ * @param byVersion      снимки индексов по номеру версии
+ */
+public record SearchIndexes(String defaultVersion, Map<String, SearchIndex> byVersion) {
+
+  /**
+   * Создает набор индексов. Если версия по умолчанию не задана или не загружена,
+   * используется последняя версия набора
+   *
+   * @param defaultVersion версия по умолчанию или {@code null}
+   * @param byVersion      снимки индексов в порядке возрастания версий
+   */
+  public static SearchIndexes of(String defaultVersion, Map<String, SearchIndex> byVersion) {
+    if (byVersion.isEmpty()) {
+      throw new IllegalStateException("Не загружена ни одна версия платформы");
+    }
+    String effectiveDefault = defaultVersion;
+    if (effectiveDefault == null || !byVersion.containsKey(effectiveDefault)) {
+      for (String version : byVersion.keySet()) {
+        effectiveDefault = version;
+      }
+    }
+    return new SearchIndexes(effectiveDefault, Collections.unmodifiableMap(new LinkedHashMap<>(byVersion)));
+  }
+
+  /**
+   * Снимок индексов запрошенной версии.
+   * Версия может быть указана полностью (8.3.25.1257) или префиксом (8.3.25) -
+   * тогда выбирается наибольшая подходящая из загруженных
+   *
+   * @param version номер версии или {@code null} - версия по умолчанию
+   * @return снимок индексов
+   * @throws IllegalArgumentException если версия не загружена
+   */
+  public SearchIndex resolve(String version) {
+    if (version == null || version.isBlank()) {
+      return byVersion.get(defaultVersion);
+    }
+    String requested = version.trim();
+    SearchIndex index = byVersion.get(requested);
+    if (index != null) {
+      return index;
+    }
+    for (Map.Entry<String, SearchIndex> entry : byVersion.entrySet()) {
+      if (entry.getKey().startsWith(requested + ".")) {
+        // Версии упорядочены по возрастанию, побеждает последняя подходящая
+        index = entry.getValue();
+      }
+    }
+    if (index == null) {
+      throw new IllegalArgumentException(String.format("Версия платформы %s не загружена. Доступные версии: %s",
+              requested, String.join(", ", byVersion.keySet())));
+    }
+    return index;
+  }
+
+  /**
+   * Набор с заданным составом версий: новые снимки заменяют или добавляют версии,
+   * остальные версии состава сохраняют прежние снимки, версии вне состава исключаются
+   *
+   * @param defaultVersion версия по умолчанию или {@code null} - последняя версия состава
+   * @param versions       загруженные версии в порядке возрастания
+   * @param rebuilt        новые снимки индексов по номеру версии
+   * @return новый набор индексов
+   */
+  public SearchIndexes update(String defaultVersion, Collection<String> versions, Map<String, SearchIndex> rebuilt) {
+    Map<String, SearchIndex> updated = new LinkedHashMap<>();
+    for (String version : versions) {
+      SearchIndex index = rebuilt.containsKey(version) ? rebuilt.get(version) : byVersion.get(version);
+      if (index != null) {
+        updated.put(version, index);
+      }
+    }
+    return of(defaultVersion, updated);
+  }
+}
@@ -0,0 +1,131 @@
+package ru.alkoleft.context.platform.mcp.index;
+
+import java.util.BitSet;
+
+/**
+ * Ограниченный сборщик лучших K элементов таблицы по заранее вычисленному ключу.
+ * <p>
+ * Хранит не более K элементов в куче, корнем которой является худший из отобранных,
+ * поэтому стоимость добавления - O(log K) независимо от общего числа совпадений.
+ * Меньший ключ означает более высокое место, при равных ключах выше элемент с меньшим идентификатором.
+ * Каждый элемент учитывается один раз: повторные предложения того же элемента игнорируются,
+ * поэтому этапы поиска должны предлагать элементы в порядке убывания приоритета.
+ */
+public final class TopKCollector {
+
+  private final int limit;
+  private final long[] keys;
+  private final int[] ids;
+  private final BitSet offered;
+  private int size;
+  private int matched;
+
+  /**
+   * @param limit    количество отбираемых элементов
+   * @param universe количество элементов в таблице
+   */
+  public TopKCollector(int limit, int universe) {
+    this.limit = Math.max(limit, 0);
+    this.keys = new long[this.limit];
+    this.ids = new int[this.limit];
+    this.offered = new BitSet(universe);
+  }
+
+  /**
+   * Предлагает элемент сборщику
+   *
+   * @param id  идентификатор элемента таблицы
+   * @param key ключ сортировки, меньше - лучше
+   * @return {@code false}, если элемент уже предлагался ранее
+   */
+  public boolean offer(int id, long key) {
+    if (offered.get(id)) {
+      return false;
+    }
+    offered.set(id);
+    matched++;
+
+    if (size < limit) {
+      keys[size] = key;
+      ids[size] = id;
+      siftUp(size++);
+    } else if (limit > 0 && worse(keys[0], ids[0], key, id)) {
+      keys[0] = key;
+      ids[0] = id;
+      siftDown(0);
+    }
+    return true;
+  }
+
+  /**
+   * Количество различных предложенных элементов, включая не попавшие в результат
+   */
+  public int matched() {
+    return matched;
+  }
+
+  /**
+   * Проверяет, набрано ли уже K элементов
+   */
+  public boolean isFull() {
+    return size == limit;
+  }
+
+  /**
+   * Отобранные элементы в порядке возрастания ключа. Сборщик после вызова пуст
+   */
+  public int[] drain() {
+    int[] result = new int[size];
+    for (int i = result.length - 1; i >= 0; i--) {
+      result[i] = ids[0];
+      size--;
+      keys[0] = keys[size];
+      ids[0] = ids[size];
+      siftDown(0);
+    }
+    return result;
+  }
+
+  /**
+   * Проверяет, что элемент (key1, id1) стоит ниже элемента (key2, id2)
+   */
+  private static boolean worse(long key1, int id1, long key2, int id2) {
+    return key1 > key2 || key1 == key2 && id1 > id2;
+  }
+
+  private void siftUp(int index) {
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (!worse(keys[index], ids[index], keys[parent], ids[parent])) {
+        return;
+      }
+      swap(index, parent);
+      index = parent;
+    }
+  }
+
+  private void siftDown(int index) {
+    while (true) {
+      int left = 2 * index + 1;
+      if (left >= size) {
+        return;
+      }
+      int right = left + 1;
+      int worst = right < size && worse(keys[right], ids[right], keys[left], ids[left]) ? right : left;
+      if (!worse(keys[worst], ids[worst], keys[index], ids[index])) {
+        return;
+      }
+      swap(index, worst);
+      index = worst;
+    }
+  }
+
+  private void swap(int i, int j) {
+    long key = keys[i];
+    keys[i] = keys[j];
+    keys[j] = key;
+    int id = ids[i];
+    ids[i] = ids[j];
+    ids[j] = id;
+  }
+}
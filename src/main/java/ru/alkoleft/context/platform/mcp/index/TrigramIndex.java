@@ -0,0 +1,157 @@
+package ru.alkoleft.context.platform.mcp.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Инвертированный индекс триграмм по именам элементов API.
+ * <p>
+ * Для каждой триграммы хранится отсортированный список номеров имен, в которых она встречается.
+ * Поиск подстроки пересекает списки триграмм запроса и возвращает кандидатов,
+ * которые затем проверяются точным {@link String#contains}.
+ */
+public final class TrigramIndex {
+
+  /**
+   * Минимальная длина запроса, для которой индекс сужает выборку
+   */
+  public static final int GRAM_SIZE = 3;
+
+  private static final int[] EMPTY = new int[0];
+
+  private final Map<Long, int[]> postings;
+
+  private TrigramIndex(Map<Long, int[]> postings) {
+    this.postings = postings;
+  }
+
+  /**
+   * Строит индекс по именам в нижнем регистре. Номер имени в массиве является идентификатором элемента.
+   *
+   * @param names имена элементов в нижнем регистре
+   * @return индекс триграмм
+   */
+  public static TrigramIndex build(String[] names) {
+    return build(names, null);
+  }
+
+  /**
+   * Строит индекс по русским и английским именам в нижнем регистре.
+   * Триграммы обоих имен ссылаются на один идентификатор элемента.
+   *
+   * @param names   имена элементов в нижнем регистре
+   * @param namesEn английские имена элементов в нижнем регистре, {@code null} в массиве - имени нет
+   * @return индекс триграмм
+   */
+  public static TrigramIndex build(String[] names, String[] namesEn) {
+    Map<Long, IntList> lists = new HashMap<>();
+    for (int id = 0; id < names.length; id++) {
+      addTrigrams(lists, names[id], id);
+      if (namesEn != null && namesEn[id] != null) {
+        addTrigrams(lists, namesEn[id], id);
+      }
+    }
+
+    Map<Long, int[]> postings = new HashMap<>(lists.size() * 4 / 3 + 1);
+    lists.forEach((key, list) -> postings.put(key, list.toArray()));
+    return new TrigramIndex(postings);
+  }
+
+  private static void addTrigrams(Map<Long, IntList> lists, String name, int id) {
+    for (int i = 0; i + GRAM_SIZE <= name.length(); i++) {
+      // Идентификаторы добавляются по возрастанию, поэтому повтор триграммы в имени - это последний элемент
+      lists.computeIfAbsent(trigram(name, i), key -> new IntList()).addIfLast(id);
+    }
+  }
+
+  /**
+   * Проверяет, может ли индекс сузить выборку для запроса
+   */
+  public static boolean isApplicable(String query) {
+    return query.length() >= GRAM_SIZE;
+  }
+
+  /**
+   * Возвращает отсортированные идентификаторы имен, содержащих все триграммы запроса.
+   * Результат требует проверки подстрокой: совпадение всех триграмм не гарантирует вхождение запроса.
+   *
+   * @param query запрос в нижнем регистре длиной не менее {@link #GRAM_SIZE}
+   * @return идентификаторы кандидатов
+   */
+  public int[] candidates(String query) {
+    int gramCount = query.length() - GRAM_SIZE + 1;
+    int[][] lists = new int[gramCount][];
+    for (int i = 0; i < gramCount; i++) {
+      int[] list = postings.get(trigram(query, i));
+      if (list == null) {
+        return EMPTY;
+      }
+      lists[i] = list;
+    }
+
+    // Пересекаем начиная с самых коротких списков
+    Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+    int[] result = lists[0];
+    for (int i = 1; i < lists.length && result.length > 0; i++) {
+      if (lists[i] != lists[i - 1]) {
+        result = intersect(result, lists[i]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Количество различных триграмм в индексе
+   */
+  public int size() {
+    return postings.size();
+  }
+
+  private static long trigram(String value, int offset) {
+    return ((long) value.charAt(offset) << 32)
+            | ((long) value.charAt(offset + 1) << 16)
+            | value.charAt(offset + 2);
+  }
+
+  private static int[] intersect(int[] left, int[] right) {
+    int[] result = new int[Math.min(left.length, right.length)];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < left.length && j < right.length) {
+      if (left[i] < right[j]) {
+        i++;
+      } else if (left[i] > right[j]) {
+        j++;
+      } else {
+        result[size++] = left[i];
+        i++;
+        j++;
+      }
+    }
+    return size == result.length ? result : Arrays.copyOf(result, size);
+  }
+
+  /**
+   * Растущий список int без упаковки значений
+   */
+  private static final class IntList {
+    private int[] values = new int[4];
+    private int size;
+
+    void addIfLast(int value) {
+      if (size > 0 && values[size - 1] == value) {
+        return;
+      }
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+  }
+}
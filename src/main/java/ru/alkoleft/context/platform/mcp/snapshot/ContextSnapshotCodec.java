@@ -0,0 +1,579 @@
+package ru.alkoleft.context.platform.mcp.snapshot;
+
+import ru.alkoleft.context.platform.dto.CompactText;
+import ru.alkoleft.context.platform.dto.ISignature;
+import ru.alkoleft.context.platform.dto.LazyMembers;
+import ru.alkoleft.context.platform.dto.MethodDefinition;
+import ru.alkoleft.context.platform.dto.ParameterDefinition;
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
+import ru.alkoleft.context.platform.dto.PlatformTypeDefinition;
+import ru.alkoleft.context.platform.dto.PropertyDefinition;
+import ru.alkoleft.context.platform.dto.Signature;
+import ru.alkoleft.context.platform.dto.StringTable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Бинарный формат индексного файла контекста платформы.
+ * <p>
+ * Файл предназначен для чтения через {@link java.nio.channels.FileChannel#map} и состоит из секций
+ * с фиксированными смещениями, записанными в заголовке:
+ * <pre>
+ * заголовок      сигнатура, версия формата, ключ {@link SnapshotKey}, количества и смещения секций
+ * словарь строк  int[stringCount + 1] смещений + UTF-8 блоб (имена, типы и описания хранятся один раз)
+ * глобальные     int[globalMethodCount + globalPropertyCount] смещений записей
+ * типы           int[typeCount] смещений записей
+ * записи         методы, свойства и типы; строки заданы номерами в словаре, -1 - null
+ * </pre>
+ * Все смещения записей отсчитываются от начала секции записей.
+ * <p>
+ * Запись типа начинается с количеств, имен и типов значений и параметров членов, за которыми следуют
+ * описания членов. Это позволяет читать типы с отложенной загрузкой членов ({@link #readLazy}): при чтении
+ * декодируются только имена и типы, описания членов типа декодируются из отображения при первом обращении.
+ */
+final class ContextSnapshotCodec {
+
+  static final int MAGIC = 0x50435853; // "PCXS"
+  static final int FORMAT_VERSION = 5;
+
+  private static final int HASH_SIZE = 32;
+  private static final int NULL_STRING = -1;
+  private static final String[] NO_STRINGS = new String[0];
+  // Размер записи свойства: имя, английское имя, описание, признак только чтения, тип
+  private static final int PROPERTY_RECORD_SIZE = 4 + 4 + 4 + 1 + 4;
+  // Размер записи параметра: признак обязательности, имя, описание, тип
+  private static final int PARAMETER_RECORD_SIZE = 1 + 4 + 4 + 4;
+
+  // Смещения полей заголовка
+  private static final int MAGIC_OFFSET = 0;
+  private static final int VERSION_OFFSET = 4;
+  private static final int SIZE_OFFSET = 8;
+  private static final int MODIFIED_OFFSET = 16;
+  private static final int HASH_OFFSET = 24;
+  private static final int STRING_COUNT_OFFSET = HASH_OFFSET + HASH_SIZE;
+  private static final int GLOBAL_METHOD_COUNT_OFFSET = STRING_COUNT_OFFSET + 4;
+  private static final int GLOBAL_PROPERTY_COUNT_OFFSET = GLOBAL_METHOD_COUNT_OFFSET + 4;
+  private static final int TYPE_COUNT_OFFSET = GLOBAL_PROPERTY_COUNT_OFFSET + 4;
+  private static final int STRINGS_SECTION_OFFSET = TYPE_COUNT_OFFSET + 4;
+  private static final int GLOBALS_SECTION_OFFSET = STRINGS_SECTION_OFFSET + 8;
+  private static final int TYPES_SECTION_OFFSET = GLOBALS_SECTION_OFFSET + 8;
+  private static final int RECORDS_SECTION_OFFSET = TYPES_SECTION_OFFSET + 8;
+  private static final int HEADER_SIZE = RECORDS_SECTION_OFFSET + 8;
+
+  private ContextSnapshotCodec() {
+  }
+
+  /**
+   * Читает ключ из заголовка
+   *
+   * @return ключ снимка или {@code null}, если сигнатура или версия формата не совпадают
+   */
+  static SnapshotKey readKey(ByteBuffer buffer) {
+    if (buffer.limit() < HEADER_SIZE
+            || buffer.getInt(MAGIC_OFFSET) != MAGIC
+            || buffer.getInt(VERSION_OFFSET) != FORMAT_VERSION) {
+      return null;
+    }
+    byte[] hash = new byte[HASH_SIZE];
+    buffer.get(HASH_OFFSET, hash);
+    return new SnapshotKey(buffer.getLong(SIZE_OFFSET), buffer.getLong(MODIFIED_OFFSET), HexFormat.of().formatHex(hash));
+  }
+
+  /**
+   * Записывает индексный файл
+   */
+  static void write(WritableByteChannel channel, SnapshotKey key, PlatformContextDefinition definition) throws IOException {
+    var writer = new RecordWriter();
+
+    int[] globals = new int[definition.globalMethods().size() + definition.globalProperties().size()];
+    int index = 0;
+    for (MethodDefinition method : definition.globalMethods()) {
+      globals[index++] = writer.method(method);
+    }
+    for (PropertyDefinition property : definition.globalProperties()) {
+      globals[index++] = writer.property(property);
+    }
+
+    int[] types = new int[definition.types().size()];
+    index = 0;
+    for (PlatformTypeDefinition type : definition.types()) {
+      types[index++] = writer.type(type);
+    }
+
+    byte[] records = writer.records.toByteArray();
+    byte[] strings = writer.stringSection();
+
+    long stringsOffset = HEADER_SIZE;
+    long globalsOffset = stringsOffset + strings.length;
+    long typesOffset = globalsOffset + 4L * globals.length;
+    long recordsOffset = typesOffset + 4L * types.length;
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.putInt(MAGIC_OFFSET, MAGIC);
+    header.putInt(VERSION_OFFSET, FORMAT_VERSION);
+    header.putLong(SIZE_OFFSET, key.size());
+    header.putLong(MODIFIED_OFFSET, key.lastModified());
+    header.put(HASH_OFFSET, HexFormat.of().parseHex(key.contentHash()));
+    header.putInt(STRING_COUNT_OFFSET, writer.strings.size());
+    header.putInt(GLOBAL_METHOD_COUNT_OFFSET, definition.globalMethods().size());
+    header.putInt(GLOBAL_PROPERTY_COUNT_OFFSET, definition.globalProperties().size());
+    header.putInt(TYPE_COUNT_OFFSET, definition.types().size());
+    header.putLong(STRINGS_SECTION_OFFSET, stringsOffset);
+    header.putLong(GLOBALS_SECTION_OFFSET, globalsOffset);
+    header.putLong(TYPES_SECTION_OFFSET, typesOffset);
+    header.putLong(RECORDS_SECTION_OFFSET, recordsOffset);
+
+    writeFully(channel, header);
+    writeFully(channel, ByteBuffer.wrap(strings));
+    writeFully(channel, intTable(globals));
+    writeFully(channel, intTable(types));
+    writeFully(channel, ByteBuffer.wrap(records));
+  }
+
+  /**
+   * Читает граф описаний из отображенного в память файла.
+   * Каждая строка словаря декодируется не более одного раза, одинаковые строки разделяются между DTO.
+   */
+  static PlatformContextDefinition read(ByteBuffer buffer) {
+    return read(buffer, false);
+  }
+
+  /**
+   * Читает граф описаний, в котором члены типов загружаются при первом обращении.
+   * Глобальные методы и свойства читаются сразу. Буфер должен оставаться доступным,
+   * пока используются описания типов
+   */
+  static PlatformContextDefinition readLazy(ByteBuffer buffer) {
+    return read(buffer, true);
+  }
+
+  private static PlatformContextDefinition read(ByteBuffer buffer, boolean lazyTypes) {
+    var reader = new RecordReader(buffer, !lazyTypes);
+
+    int globalMethodCount = buffer.getInt(GLOBAL_METHOD_COUNT_OFFSET);
+    int globalPropertyCount = buffer.getInt(GLOBAL_PROPERTY_COUNT_OFFSET);
+    int typeCount = buffer.getInt(TYPE_COUNT_OFFSET);
+    int globalsOffset = (int) buffer.getLong(GLOBALS_SECTION_OFFSET);
+    int typesOffset = (int) buffer.getLong(TYPES_SECTION_OFFSET);
+
+    List<MethodDefinition> globalMethods = new ArrayList<>(globalMethodCount);
+    for (int i = 0; i < globalMethodCount; i++) {
+      globalMethods.add(reader.seek(buffer.getInt(globalsOffset + 4 * i)).method());
+    }
+
+    List<PropertyDefinition> globalProperties = new ArrayList<>(globalPropertyCount);
+    for (int i = 0; i < globalPropertyCount; i++) {
+      globalProperties.add(reader.seek(buffer.getInt(globalsOffset + 4 * (globalMethodCount + i))).property());
+    }
+
+    List<PlatformTypeDefinition> types = new ArrayList<>(typeCount);
+    for (int i = 0; i < typeCount; i++) {
+      reader.seek(buffer.getInt(typesOffset + 4 * i));
+      types.add(lazyTypes ? reader.lazyType() : reader.type());
+    }
+
+    return new PlatformContextDefinition(globalMethods, globalProperties, types);
+  }
+
+  private static ByteBuffer intTable(int[] values) {
+    ByteBuffer table = ByteBuffer.allocate(4 * values.length);
+    table.asIntBuffer().put(values);
+    return table;
+  }
+
+  private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * Последовательная запись секции записей со сбором словаря строк
+   */
+  private static final class RecordWriter {
+    private final ByteArrayOutputStream records = new ByteArrayOutputStream(1 << 20);
+    private final DataOutputStream out = new DataOutputStream(records);
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    int type(PlatformTypeDefinition type) throws IOException {
+      int offset = out.size();
+      string(type.name());
+      string(type.nameEn());
+      text(type.description());
+      out.writeInt(type.methods().size());
+      out.writeInt(type.properties().size());
+      out.writeInt(type.constructors().size());
+      // Таблица имен и типов членов для чтения без загрузки описаний
+      for (MethodDefinition method : type.methods()) {
+        string(method.name());
+        string(method.nameEn());
+        string(method.returnType());
+        List<String> parameterTypes = method.parameterTypes();
+        out.writeInt(parameterTypes.size());
+        for (String parameterType : parameterTypes) {
+          string(parameterType);
+        }
+      }
+      for (PropertyDefinition property : type.properties()) {
+        string(property.name());
+        string(property.nameEn());
+        string(property.type());
+      }
+      for (MethodDefinition method : type.methods()) {
+        method(method);
+      }
+      for (PropertyDefinition property : type.properties()) {
+        property(property);
+      }
+      for (ISignature constructor : type.constructors()) {
+        signature(constructor);
+      }
+      return offset;
+    }
+
+    int method(MethodDefinition method) throws IOException {
+      int offset = out.size();
+      string(method.name());
+      string(method.nameEn());
+      text(method.description());
+      List<Signature> signatures = method.signature() != null ? method.signature() : List.of();
+      out.writeInt(signatures.size());
+      for (Signature signature : signatures) {
+        signature(signature);
+      }
+      string(method.returnType());
+      return offset;
+    }
+
+    int property(PropertyDefinition property) throws IOException {
+      int offset = out.size();
+      string(property.name());
+      string(property.nameEn());
+      text(property.description());
+      out.writeBoolean(property.readonly());
+      string(property.type());
+      return offset;
+    }
+
+    private void signature(ISignature signature) throws IOException {
+      string(signature.name());
+      text(signature.description());
+      out.writeInt(signature.params().size());
+      for (ParameterDefinition parameter : signature.params()) {
+        out.writeBoolean(parameter.required());
+        string(parameter.name());
+        text(parameter.description());
+        string(parameter.type());
+      }
+    }
+
+    private void text(CharSequence value) throws IOException {
+      string(value != null ? value.toString() : null);
+    }
+
+    private void string(String value) throws IOException {
+      if (value == null) {
+        out.writeInt(NULL_STRING);
+        return;
+      }
+      Integer id = stringIds.get(value);
+      if (id == null) {
+        id = strings.size();
+        stringIds.put(value, id);
+        strings.add(value);
+      }
+      out.writeInt(id);
+    }
+
+    /**
+     * Секция словаря: таблица смещений (на одно больше числа строк) и UTF-8 блоб
+     */
+    byte[] stringSection() {
+      var blob = new ByteArrayOutputStream(strings.size() * 16);
+      int[] offsets = new int[strings.size() + 1];
+      for (int i = 0; i < strings.size(); i++) {
+        offsets[i] = blob.size();
+        blob.writeBytes(strings.get(i).getBytes(StandardCharsets.UTF_8));
+      }
+      offsets[strings.size()] = blob.size();
+
+      ByteBuffer section = ByteBuffer.allocate(4 * offsets.length + blob.size());
+      section.asIntBuffer().put(offsets);
+      section.position(4 * offsets.length);
+      section.put(blob.toByteArray());
+      return section.array();
+    }
+  }
+
+  /**
+   * Члены одного типа
+   */
+  private record Members(List<MethodDefinition> methods, List<PropertyDefinition> properties,
+                         List<ISignature> constructors) {
+  }
+
+  /**
+   * Чтение записей по абсолютным смещениям без копирования буфера.
+   * Декодированные строки словаря разделяются всеми курсорами одного буфера: запись
+   * ссылки на неизменяемую строку в массив безопасна при одновременном чтении.
+   * Имена берутся из {@link StringTable}, описания хранятся в компактном представлении.
+   * <p>
+   * При отложенной загрузке словарь живет, пока не загружены члены всех типов, поэтому описания
+   * в нем не запоминаются: иначе словарь удерживал бы копии описаний, замененных общим хранилищем.
+   */
+  private static final class RecordReader {
+    private final ByteBuffer buffer;
+    private final int stringOffsetsStart;
+    private final int stringBlobStart;
+    private final int recordsStart;
+    private final CharSequence[] strings;
+    private final boolean shareTexts;
+    private int position;
+
+    /**
+     * @param shareTexts запоминать ли декодированные описания в словаре
+     */
+    RecordReader(ByteBuffer buffer, boolean shareTexts) {
+      this.buffer = buffer;
+      int stringCount = buffer.getInt(STRING_COUNT_OFFSET);
+      this.stringOffsetsStart = (int) buffer.getLong(STRINGS_SECTION_OFFSET);
+      this.stringBlobStart = stringOffsetsStart + 4 * (stringCount + 1);
+      this.recordsStart = (int) buffer.getLong(RECORDS_SECTION_OFFSET);
+      this.strings = new CharSequence[stringCount];
+      this.shareTexts = shareTexts;
+    }
+
+    /**
+     * Курсор, разделяющий буфер и декодированные строки словаря с другим курсором
+     */
+    private RecordReader(RecordReader other, int position) {
+      this.buffer = other.buffer;
+      this.stringOffsetsStart = other.stringOffsetsStart;
+      this.stringBlobStart = other.stringBlobStart;
+      this.recordsStart = other.recordsStart;
+      this.strings = other.strings;
+      this.shareTexts = other.shareTexts;
+      this.position = position;
+    }
+
+    RecordReader seek(int recordOffset) {
+      position = recordsStart + recordOffset;
+      return this;
+    }
+
+    PlatformTypeDefinition type() {
+      String name = string();
+      String nameEn = string();
+      CharSequence description = text();
+      int methodCount = nextInt();
+      int propertyCount = nextInt();
+      int constructorCount = nextInt();
+      // Таблица имен нужна только для отложенной загрузки
+      for (int i = 0; i < methodCount; i++) {
+        position += 12;
+        int parameterTypeCount = nextInt();
+        position += 4 * parameterTypeCount;
+      }
+      position += 12 * propertyCount;
+      Members members = members(methodCount, propertyCount, constructorCount);
+      return new PlatformTypeDefinition(name, nameEn, description,
+              members.methods(), members.properties(), members.constructors());
+    }
+
+    /**
+     * Тип, каждый список членов которого декодируется при первом обращении к нему
+     */
+    PlatformTypeDefinition lazyType() {
+      String name = string();
+      String nameEn = string();
+      CharSequence description = text();
+      int methodCount = nextInt();
+      int propertyCount = nextInt();
+      int constructorCount = nextInt();
+
+      String[] methodNames = new String[methodCount];
+      String[] methodNamesEn = new String[methodCount];
+      String[] returnTypes = new String[methodCount];
+      String[][] parameterTypes = new String[methodCount][];
+      for (int i = 0; i < methodCount; i++) {
+        methodNames[i] = string();
+        methodNamesEn[i] = string();
+        returnTypes[i] = string();
+        int parameterTypeCount = nextInt();
+        parameterTypes[i] = parameterTypeCount == 0 ? NO_STRINGS : new String[parameterTypeCount];
+        for (int j = 0; j < parameterTypes[i].length; j++) {
+          parameterTypes[i][j] = string();
+        }
+      }
+      String[] propertyNames = new String[propertyCount];
+      String[] propertyNamesEn = new String[propertyCount];
+      String[] propertyTypes = new String[propertyCount];
+      for (int i = 0; i < propertyCount; i++) {
+        propertyNames[i] = string();
+        propertyNamesEn[i] = string();
+        propertyTypes[i] = string();
+      }
+
+      // Каждый список декодируется отдельным курсором: чтение может выполняться из любого потока.
+      // Загрузчики не запоминают результат, поэтому после загрузки всех списков тип не удерживает
+      // ни курсор, ни словарь строк, ни декодированные описания, замененные общим хранилищем
+      int methodsPosition = position;
+      return new PlatformTypeDefinition(name, nameEn, description,
+              new LazyMembers<>(methodNames, methodNamesEn, returnTypes, parameterTypes,
+                      () -> cursor(methodsPosition).methods(methodCount)),
+              new LazyMembers<>(propertyNames, propertyNamesEn, propertyTypes, null,
+                      () -> cursor(methodsPosition).skipMethods(methodCount).properties(propertyCount)),
+              new LazyMembers<>(constructorCount,
+                      () -> cursor(methodsPosition).skipMethods(methodCount).skipProperties(propertyCount)
+                              .signatures(constructorCount)));
+    }
+
+    private RecordReader cursor(int position) {
+      return new RecordReader(this, position);
+    }
+
+    /**
+     * Пропускает записи методов, не декодируя строки
+     */
+    private RecordReader skipMethods(int methodCount) {
+      for (int i = 0; i < methodCount; i++) {
+        position += 12;
+        int signatureCount = nextInt();
+        for (int j = 0; j < signatureCount; j++) {
+          position += 8;
+          int parameterCount = nextInt();
+          position += PARAMETER_RECORD_SIZE * parameterCount;
+        }
+        position += 4;
+      }
+      return this;
+    }
+
+    private RecordReader skipProperties(int propertyCount) {
+      position += PROPERTY_RECORD_SIZE * propertyCount;
+      return this;
+    }
+
+    private Members members(int methodCount, int propertyCount, int constructorCount) {
+      return new Members(methods(methodCount), properties(propertyCount), signatures(constructorCount));
+    }
+
+    private List<MethodDefinition> methods(int count) {
+      List<MethodDefinition> methods = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        methods.add(method());
+      }
+      return methods;
+    }
+
+    private List<PropertyDefinition> properties(int count) {
+      List<PropertyDefinition> properties = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        properties.add(property());
+      }
+      return properties;
+    }
+
+    private List<ISignature> signatures(int count) {
+      List<ISignature> signatures = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        signatures.add(signature());
+      }
+      return signatures;
+    }
+
+    MethodDefinition method() {
+      String name = string();
+      String nameEn = string();
+      CharSequence description = text();
+      int signatureCount = nextInt();
+      List<Signature> signatures = new ArrayList<>(signatureCount);
+      for (int i = 0; i < signatureCount; i++) {
+        signatures.add(signature());
+      }
+      return new MethodDefinition(name, nameEn, description, signatures, string());
+    }
+
+    PropertyDefinition property() {
+      String name = string();
+      String nameEn = string();
+      CharSequence description = text();
+      boolean readonly = nextBoolean();
+      return new PropertyDefinition(name, nameEn, description, readonly, string());
+    }
+
+    private Signature signature() {
+      String name = string();
+      CharSequence description = text();
+      int parameterCount = nextInt();
+      List<ParameterDefinition> parameters = new ArrayList<>(parameterCount);
+      for (int i = 0; i < parameterCount; i++) {
+        boolean required = nextBoolean();
+        String parameterName = string();
+        CharSequence parameterDescription = text();
+        parameters.add(new ParameterDefinition(required, parameterName, parameterDescription, string()));
+      }
+      return new Signature(name, description, parameters);
+    }
+
+    private String string() {
+      int id = nextInt();
+      if (id == NULL_STRING) {
+        return null;
+      }
+      if (strings[id] instanceof String value) {
+        return value;
+      }
+      String value = StringTable.intern(decode(id));
+      strings[id] = value;
+      return value;
+    }
+
+    /**
+     * Описание в компактном представлении: строка словаря не удерживается курсором
+     */
+    private CharSequence text() {
+      int id = nextInt();
+      if (id == NULL_STRING) {
+        return null;
+      }
+      CharSequence value = strings[id];
+      if (value == null) {
+        value = CompactText.of(decode(id));
+        if (shareTexts) {
+          strings[id] = value;
+        }
+      }
+      return value;
+    }
+
+    private String decode(int id) {
+      int start = buffer.getInt(stringOffsetsStart + 4 * id);
+      int end = buffer.getInt(stringOffsetsStart + 4 * (id + 1));
+      byte[] bytes = new byte[end - start];
+      buffer.get(stringBlobStart + start, bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int nextInt() {
+      int value = buffer.getInt(position);
+      position += 4;
+      return value;
+    }
+
+    private boolean nextBoolean() {
+      return buffer.get(position++) != 0;
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package ru.alkoleft.context.platform.mcp.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Хранилище бинарных снимков разобранного контекста платформы.
+ * <p>
+ * Снимок привязан к файлу справки по размеру, времени изменения и хешу содержимого,
+ * что позволяет пропустить распаковку и разбор HBK при повторном запуске.
+ * Снимок читается через отображение файла в память, формат описан в {@link ContextSnapshotCodec}.
+ * <p>
+ * В режиме отложенной загрузки типов ({@code platform.context.lazy-types}) при чтении снимка
+ * декодируются только имена членов типов, а описания членов - при первом обращении к типу.
+ * Отображение файла при этом остается в памяти, пока используется описание контекста.
+ * <p>
+ * Имя снимка содержит идентификатор ключа, поэтому новый снимок не заменяет отображенный в память
+ * прежний (в Windows заменить или удалить отображенный файл нельзя): прежние снимки файла справки
+ * удаляются после сохранения нового, а занятые - при одном из следующих сохранений.
+ */
+@Slf4j
+@Component
+public class ContextSnapshotStore {
+
+  private static final String SNAPSHOT_EXTENSION = ".snapshot";
+
+  private final boolean enabled;
+  private final Path snapshotDirectory;
+  private final boolean lazyTypes;
+
+  ContextSnapshotStore(boolean enabled, String snapshotDirectory) {
+    this(enabled, snapshotDirectory, true);
+  }
+
+  @Autowired
+  public ContextSnapshotStore(@Value("${platform.context.snapshot.enabled:true}") boolean enabled,
+                              @Value("${platform.context.snapshot.dir:${user.home}/.cache/platform-context-exporter}") String snapshotDirectory,
+                              @Value("${platform.context.lazy-types:true}") boolean lazyTypes) {
+    this.enabled = enabled;
+    this.snapshotDirectory = Paths.get(snapshotDirectory);
+    this.lazyTypes = lazyTypes;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Загружаются ли члены типов из снимка при первом обращении
+   */
+  public boolean isLazyTypes() {
+    return lazyTypes;
+  }
+
+  /**
+   * Загружает снимок для файла справки, если он существует и соответствует ключу
+   *
+   * @param contextFile файл справки
+   * @param key         актуальный ключ файла справки
+   * @return описание контекста или пустое значение, если снимок отсутствует или устарел
+   */
+  public Optional<PlatformContextDefinition> load(Path contextFile, SnapshotKey key) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+
+    Path snapshotFile = snapshotFile(contextFile, key);
+    if (!Files.isRegularFile(snapshotFile)) {
+      log.debug("Снимок контекста не найден: {}", snapshotFile);
+      return Optional.empty();
+    }
+
+    try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+      // Отображение остается действительным после закрытия канала
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      SnapshotKey storedKey = ContextSnapshotCodec.readKey(buffer);
+      if (!key.equals(storedKey)) {
+        log.info("Снимок контекста {} устарел и будет перестроен", snapshotFile);
+        return Optional.empty();
+      }
+
+      PlatformContextDefinition definition = lazyTypes
+              ? ContextSnapshotCodec.readLazy(buffer)
+              : ContextSnapshotCodec.read(buffer);
+      log.info("Контекст платформы загружен из снимка {}", snapshotFile);
+      return Optional.of(definition);
+    } catch (Exception e) {
+      log.warn("Не удалось прочитать снимок контекста {}", snapshotFile, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Сохраняет снимок для файла справки. Запись выполняется во временный файл
+   * с последующим атомарным переименованием, после чего удаляются прежние снимки файла справки.
+   *
+   * @param contextFile файл справки
+   * @param key         ключ файла справки
+   * @param definition  описание контекста
+   */
+  public void save(Path contextFile, SnapshotKey key, PlatformContextDefinition definition) {
+    if (!enabled) {
+      return;
+    }
+
+    Path snapshotFile = snapshotFile(contextFile, key);
+    Path tmpFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    try {
+      Files.createDirectories(snapshotDirectory);
+      try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+        ContextSnapshotCodec.write(channel, key, definition);
+      }
+      Files.move(tmpFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      log.info("Снимок контекста сохранен: {}", snapshotFile);
+      deleteOutdated(contextFile, snapshotFile);
+    } catch (Exception e) {
+      log.warn("Не удалось сохранить снимок контекста {}", snapshotFile, e);
+      try {
+        Files.deleteIfExists(tmpFile);
+      } catch (IOException ignored) {
+        // временный файл будет перезаписан при следующей попытке
+      }
+    }
+  }
+
+  /**
+   * Удаляет прежние снимки файла справки. Снимок, который не удалось удалить
+   * (например, отображенный в память в Windows), удаляется при одном из следующих сохранений
+   */
+  private void deleteOutdated(Path contextFile, Path snapshotFile) {
+    String glob = contextPrefix(contextFile) + "*" + SNAPSHOT_EXTENSION;
+    try (DirectoryStream<Path> snapshots = Files.newDirectoryStream(snapshotDirectory, glob)) {
+      for (Path outdated : snapshots) {
+        if (outdated.equals(snapshotFile)) {
+          continue;
+        }
+        try {
+          Files.deleteIfExists(outdated);
+        } catch (IOException e) {
+          log.debug("Прежний снимок контекста {} занят и будет удален позже: {}", outdated, e.getMessage());
+        }
+      }
+    } catch (IOException e) {
+      log.debug("Не удалось найти прежние снимки контекста в {}: {}", snapshotDirectory, e.getMessage());
+    }
+  }
+
+  /**
+   * Имя снимка строится по абсолютному пути файла справки, чтобы разные установки платформы
+   * не перезаписывали снимки друг друга, и по ключу, чтобы новый снимок не заменял прежний
+   */
+  Path snapshotFile(Path contextFile, SnapshotKey key) {
+    String keyText = key.size() + ":" + key.lastModified() + ":" + key.contentHash();
+    String keyId = UUID.nameUUIDFromBytes(keyText.getBytes(StandardCharsets.UTF_8)).toString();
+    return snapshotDirectory.resolve(contextPrefix(contextFile) + "-" + keyId + SNAPSHOT_EXTENSION);
+  }
+
+  private static String contextPrefix(Path contextFile) {
+    String absolutePath = contextFile.toAbsolutePath().normalize().toString();
+    return "context-" + UUID.nameUUIDFromBytes(absolutePath.getBytes(StandardCharsets.UTF_8));
+  }
+}
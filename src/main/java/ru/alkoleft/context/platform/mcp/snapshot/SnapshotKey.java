@@ -0,0 +1,77 @@
+package ru.alkoleft.context.platform.mcp.snapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Ключ снимка контекста: размер, время изменения и хеш содержимого файла справки.
+ * Если снимок содержит английские имена, хеш охватывает также размер, время изменения
+ * и содержимое файла справки на английском языке
+ *
+ * @param size         размер файла в байтах
+ * @param lastModified время последнего изменения файла (мс)
+ * @param contentHash  SHA-256 содержимого файла и, если есть, файла на английском языке
+ */
+public record SnapshotKey(long size, long lastModified, String contentHash) {
+
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  /**
+   * Вычисляет ключ для файла справки
+   *
+   * @param file файл справки (shcntx_ru.hbk)
+   * @return ключ снимка
+   * @throws IOException если файл не удалось прочитать
+   */
+  public static SnapshotKey of(Path file) throws IOException {
+    return of(file, null);
+  }
+
+  /**
+   * Вычисляет ключ для файла справки и файла справки на английском языке:
+   * добавление, изменение или удаление английского файла изменяет ключ
+   *
+   * @param file        файл справки (shcntx_ru.hbk)
+   * @param englishFile файл справки на английском языке (shcntx_en.hbk) или {@code null}
+   * @return ключ снимка
+   * @throws IOException если файл не удалось прочитать
+   */
+  public static SnapshotKey of(Path file, Path englishFile) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 не поддерживается", e);
+    }
+
+    byte[] buffer = new byte[BUFFER_SIZE];
+    update(digest, file, buffer);
+    if (englishFile != null) {
+      digest.update(ByteBuffer.allocate(2 * Long.BYTES)
+              .putLong(Files.size(englishFile))
+              .putLong(Files.getLastModifiedTime(englishFile).toMillis())
+              .flip());
+      update(digest, englishFile, buffer);
+    }
+    return new SnapshotKey(
+            Files.size(file),
+            Files.getLastModifiedTime(file).toMillis(),
+            HexFormat.of().formatHex(digest.digest())
+    );
+  }
+
+  private static void update(MessageDigest digest, Path file, byte[] buffer) throws IOException {
+    try (InputStream input = Files.newInputStream(file)) {
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+  }
+}
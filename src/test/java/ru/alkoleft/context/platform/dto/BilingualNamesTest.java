@@ -0,0 +1,67 @@
+package ru.alkoleft.context.platform.dto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link BilingualNames}
+ */
+@DisplayName("BilingualNames")
+class BilingualNamesTest {
+
+    @Test
+    @DisplayName("должен дополнять типы и члены английскими именами")
+    void shouldAddEnglishNames() {
+        // given
+        var russian = new PlatformContextDefinition(
+                List.of(new MethodDefinition("Сообщить", null, List.of(), null)),
+                List.of(),
+                List.of(new PlatformTypeDefinition("ТаблицаЗначений", null,
+                        List.of(new MethodDefinition("Количество", null, List.of(), "Число")),
+                        List.of(new PropertyDefinition("Колонки", null, null, true, "КоллекцияКолонок")),
+                        List.of())));
+        // в английской справке имя и синоним переставлены местами
+        var english = new PlatformContextDefinition(
+                List.of(new MethodDefinition("Message", "Сообщить", null, List.of(), null)),
+                List.of(),
+                List.of(new PlatformTypeDefinition("ValueTable", "ТаблицаЗначений", null,
+                        List.of(new MethodDefinition("Count", "Количество", null, List.of(), "Number")),
+                        List.of(new PropertyDefinition("Columns", "Колонки", null, true, "ColumnCollection")),
+                        List.of())));
+
+        // when
+        PlatformContextDefinition merged = BilingualNames.merge(russian, english);
+
+        // then
+        assertThat(merged.globalMethods().get(0).nameEn()).isEqualTo("Message");
+        PlatformTypeDefinition type = merged.types().get(0);
+        assertThat(type.name()).isEqualTo("ТаблицаЗначений");
+        assertThat(type.nameEn()).isEqualTo("ValueTable");
+        assertThat(type.methods().get(0).nameEn()).isEqualTo("Count");
+        assertThat(type.methods().get(0).returnType()).isEqualTo("Число");
+        assertThat(type.properties().get(0).nameEn()).isEqualTo("Columns");
+    }
+
+    @Test
+    @DisplayName("должен сохранять английское имя из русской справки и пропускать неизвестные элементы")
+    void shouldKeepExistingNames() {
+        // given
+        var method = new MethodDefinition("НайтиПоКоду", "FindByCode", null, List.of(), null);
+        var unknown = new MethodDefinition("ТолькоВРусской", null, List.of(), null);
+        var russian = new PlatformContextDefinition(List.of(method, unknown), List.of(), List.of());
+        var english = new PlatformContextDefinition(
+                List.of(new MethodDefinition("FindByCodeOld", "НайтиПоКоду", null, List.of(), null)),
+                List.of(), List.of());
+
+        // when
+        PlatformContextDefinition merged = BilingualNames.merge(russian, english);
+
+        // then
+        assertThat(merged.globalMethods().get(0)).isSameAs(method);
+        assertThat(merged.globalMethods().get(1)).isSameAs(unknown);
+    }
+}
@@ -0,0 +1,52 @@
+package ru.alkoleft.context.platform.dto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link CompactText}
+ */
+@DisplayName("CompactText")
+class CompactTextTest {
+
+    @Test
+    @DisplayName("должен хранить кириллицу по байту на символ и выводить исходный текст")
+    void shouldEncodeCyrillicDescription() {
+        // given
+        String description = "Возвращает «количество» элементов коллекции — №1";
+
+        // when
+        CharSequence text = CompactText.of(description);
+
+        // then
+        assertThat(text).isInstanceOf(CompactText.class);
+        assertThat(text.length()).isEqualTo(description.length());
+        assertThat(text.charAt(1)).isEqualTo('о');
+        assertThat(text.toString()).isEqualTo(description);
+        assertThat(text.subSequence(0, 10).toString()).isEqualTo("Возвращает");
+    }
+
+    @Test
+    @DisplayName("должен оставлять строкой текст без кириллицы и с непредставимыми символами")
+    void shouldKeepStringWhenNotCompact() {
+        assertThat(CompactText.of("Returns the number of items")).isInstanceOf(String.class);
+        assertThat(CompactText.of("Символ ∑ не представим")).isInstanceOf(String.class);
+        assertThat(CompactText.of(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("записи с одинаковым описанием должны быть равны")
+    void shouldKeepRecordEquality() {
+        var first = new PropertyDefinition("Колонки", null, "Коллекция колонок", true, "КоллекцияКолонок");
+        var second = new PropertyDefinition("Колонки", null, new StringBuilder("Коллекция колонок"), true,
+                "КоллекцияКолонок");
+
+        assertThat(second).isEqualTo(first);
+        assertThat(second.hashCode()).isEqualTo(first.hashCode());
+        assertThat(new Signature("Основной", "Описание", List.of()).description().toString()).isEqualTo("Описание");
+    }
+}
@@ -0,0 +1,153 @@
+package ru.alkoleft.context.platform.dto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link DefinitionPool}
+ */
+@DisplayName("DefinitionPool")
+class DefinitionPoolTest {
+
+    @Test
+    @DisplayName("должен хранить одинаковые описания разных версий в одном экземпляре")
+    void shouldShareEqualDefinitionsBetweenVersions() {
+        // given
+        var pool = new DefinitionPool();
+        PlatformContextDefinition first = version("Количество элементов");
+        PlatformContextDefinition second = version("Количество элементов");
+        PlatformContextDefinition changed = version("Количество элементов коллекции");
+
+        // when
+        PlatformContextDefinition internedFirst = pool.intern(first);
+        PlatformContextDefinition internedSecond = pool.intern(second);
+        PlatformContextDefinition internedChanged = pool.intern(changed);
+
+        // then
+        assertThat(internedSecond).isEqualTo(second);
+        assertThat(internedSecond.types().get(0)).isSameAs(internedFirst.types().get(0));
+        assertThat(internedSecond.globalMethods()).isSameAs(internedFirst.globalMethods());
+
+        PlatformTypeDefinition changedType = internedChanged.types().get(0);
+        assertThat(changedType).isNotSameAs(internedFirst.types().get(0));
+        // неизменившиеся свойства разделяются и с измененной версией типа
+        assertThat(changedType.properties().get(0)).isSameAs(internedFirst.types().get(0).properties().get(0));
+        assertThat(pool.sharedCount()).isPositive();
+    }
+
+    @Test
+    @DisplayName("должен разделять одинаковые члены разных типов и не учитывать повторную обработку")
+    void shouldFoldMembersRepeatedAcrossTypes() {
+        // given
+        var pool = new DefinitionPool();
+        var manager = new PlatformTypeDefinition("СправочникМенеджер.Валюты", null,
+                List.of(new MethodDefinition("Выбрать", new String("Формирует выборку"), List.of(), "СправочникВыборка")),
+                List.of(), List.of());
+        var other = new PlatformTypeDefinition("СправочникМенеджер.Банки", null,
+                List.of(new MethodDefinition("Выбрать", new String("Формирует выборку"), List.of(), "СправочникВыборка")),
+                List.of(), List.of());
+
+        // when
+        PlatformTypeDefinition first = pool.type(manager);
+        PlatformTypeDefinition second = pool.type(other);
+        long shared = pool.sharedCount();
+        long saved = pool.savedBytes();
+        PlatformTypeDefinition again = pool.type(second);
+
+        // then
+        assertThat(second.methods().get(0)).isSameAs(first.methods().get(0));
+        assertThat(second.methods()).isSameAs(first.methods());
+        assertThat(saved).isPositive();
+        assertThat(again).isSameAs(second);
+        assertThat(pool.sharedCount()).isEqualTo(shared);
+        assertThat(pool.savedBytes()).isEqualTo(saved);
+    }
+
+    @Test
+    @DisplayName("должен учитывать элементы один раз при повторной канонизации объединенного описания")
+    void shouldCountMergedDefinitionOnce() {
+        // given
+        var pool = new DefinitionPool();
+        PlatformContextDefinition extracted = pool.intern(version("Количество элементов"));
+        var message = pool.method(new MethodDefinition("Сообщить", "Выводит сообщение", List.of(), null));
+        var merged = new PlatformContextDefinition(
+                List.of(new MethodDefinition("Сообщить", "Message", message.description(), message.signature(), null)),
+                List.of(), extracted.types());
+        DefinitionPool.Statistics before = pool.statistics();
+
+        // when
+        PlatformContextDefinition reinterned = pool.reintern(merged);
+
+        // then
+        assertThat(reinterned).isEqualTo(merged);
+        assertThat(reinterned.types().get(0)).isSameAs(extracted.types().get(0));
+        assertThat(pool.statistics().since(before)).isEqualTo(new DefinitionPool.Statistics(0, 0, 0));
+    }
+
+    @Test
+    @DisplayName("не должен загружать члены типов с отложенной загрузкой")
+    void shouldNotMaterializeLazyTypes() {
+        // given
+        var pool = new DefinitionPool();
+        var method = new MethodDefinition("Количество", "Количество элементов", List.of(), "Число");
+        var methods = new LazyMembers<MethodDefinition>(new String[]{"Количество"}, new String[]{null},
+                () -> List.of(method));
+        var type = new PlatformTypeDefinition("Массив", null, methods, List.of(), List.of());
+
+        // when
+        PlatformContextDefinition interned = pool.intern(new PlatformContextDefinition(List.of(), List.of(), List.of(type)));
+
+        // then
+        assertThat(methods.isMaterialized()).isFalse();
+        assertThat(interned.types().get(0).methods().get(0)).isEqualTo(method);
+    }
+
+    @Test
+    @DisplayName("не должен удерживать исходные описания членов после загрузки типа")
+    void shouldReleaseLoadedOriginalsOfLazyTypes() throws InterruptedException {
+        // given
+        var pool = new DefinitionPool();
+        MethodDefinition canonical = pool.method(new MethodDefinition("Количество", "Количество элементов", List.of(), "Число"));
+        List<WeakReference<MethodDefinition>> originals = new ArrayList<>();
+        var methods = new LazyMembers<MethodDefinition>(new String[]{"Количество"}, new String[]{null}, () -> {
+            var original = new MethodDefinition("Количество", new String("Количество элементов"), List.of(), "Число");
+            originals.add(new WeakReference<>(original));
+            return List.of(original);
+        });
+        var type = new PlatformTypeDefinition("Массив", null, methods, List.of(), List.of());
+
+        // when
+        PlatformTypeDefinition interned = pool.type(type);
+        MethodDefinition loaded = interned.methods().get(0);
+
+        // then
+        assertThat(loaded).isSameAs(canonical);
+        assertThat(methods.isMaterialized()).isFalse();
+        assertThat(originals).hasSize(1);
+        assertThat(isCollected(originals.get(0))).isTrue();
+    }
+
+    private static boolean isCollected(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        return reference.get() == null;
+    }
+
+    private PlatformContextDefinition version(String countDescription) {
+        var parameter = new ParameterDefinition(true, "Индекс", "Индекс элемента", "Число");
+        var method = new MethodDefinition("Количество", new String(countDescription),
+                List.of(new Signature("Основной", null, List.of(parameter))), "Число");
+        var property = new PropertyDefinition("Колонки", null, "Коллекция колонок", true, "КоллекцияКолонок");
+        var type = new PlatformTypeDefinition("ТаблицаЗначений", null, List.of(method), List.of(property), List.of());
+        var global = new MethodDefinition("Сообщить", "Выводит сообщение", List.of(), null);
+        return new PlatformContextDefinition(List.of(global), List.of(), List.of(type));
+    }
+}
@@ -0,0 +1,153 @@
+package ru.alkoleft.context.platform.mcp;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тесты для {@link ContextFileLocator}
+ */
+@DisplayName("ContextFileLocator")
+class ContextFileLocatorTest {
+
+    @TempDir
+    private Path tempDirectory;
+
+    @Test
+    @DisplayName("должен выбирать наибольшую версию среди установленных")
+    void shouldPickHighestVersion() throws IOException {
+        // given
+        Path root = tempDirectory.resolve("1cv8");
+        createContextFile(root.resolve("8.3.9.2170").resolve("bin"));
+        Path expected = createContextFile(root.resolve("8.3.23.1912").resolve("bin"));
+        createContextFile(root.resolve("8.3.18.1208").resolve("bin"));
+
+        // when
+        Path found = new ContextFileLocator().locate(root);
+
+        // then
+        assertThat(found).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("должен находить указанную версию в каталоге архитектуры")
+    void shouldFindRequestedVersionUnderArchitectureDirectory() throws IOException {
+        // given
+        Path root = tempDirectory.resolve("opt");
+        Path expected = createContextFile(root.resolve("x86_64").resolve("8.3.18.1208"));
+        createContextFile(root.resolve("x86_64").resolve("8.3.25.1257"));
+
+        // when
+        Path found = new ContextFileLocator("8.3.18.1208", 0, null).locate(root);
+
+        // then
+        assertThat(found).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("должен сообщать об отсутствии указанной версии")
+    void shouldFailForMissingVersion() throws IOException {
+        // given
+        Path root = tempDirectory.resolve("1cv8");
+        createContextFile(root.resolve("8.3.23.1912").resolve("bin"));
+
+        // when & then
+        assertThatThrownBy(() -> new ContextFileLocator("8.3.25.1257", 0, null).locate(root))
+            .isInstanceOf(FileNotFoundException.class)
+            .hasMessageContaining("для версии 8.3.25.1257");
+    }
+
+    @Test
+    @DisplayName("должен ограничивать глубину обхода")
+    void shouldLimitWalkDepth() throws IOException {
+        // given
+        Path root = tempDirectory.resolve("platform");
+        createContextFile(root.resolve("a").resolve("b").resolve("c"));
+
+        // when & then
+        assertThatThrownBy(() -> new ContextFileLocator(null, 3, null).locate(root))
+            .isInstanceOf(FileNotFoundException.class);
+        assertThat(new ContextFileLocator(null, 4, null).locate(root)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("должен выбирать наибольшую версию среди найденных обходом")
+    void shouldPickHighestVersionFoundByWalk() throws IOException {
+        // given
+        Path root = tempDirectory.resolve("platform");
+        createContextFile(root.resolve("a"));
+        createContextFile(root.resolve("b").resolve("old").resolve("8.3.18.1208").resolve("data"));
+        Path newest = createContextFile(root.resolve("c").resolve("new").resolve("8.3.25.1257").resolve("data"));
+        createContextFile(root.resolve("d").resolve("8.3.9.1").resolve("data"));
+
+        // when & then
+        for (int i = 0; i < 5; i++) {
+            assertThat(new ContextFileLocator(null, 0, null).locate(root)).isEqualTo(newest);
+        }
+    }
+
+    @Test
+    @DisplayName("должен запоминать найденный путь между запусками")
+    void shouldRememberResolvedPath() throws IOException {
+        // given
+        Path root = tempDirectory.resolve("platform");
+        Path contextFile = createContextFile(root.resolve("help").resolve("system"));
+        Path stateFile = tempDirectory.resolve("state").resolve("context-files.properties");
+
+        // when
+        Path first = new ContextFileLocator(null, 0, stateFile).locate(root);
+        // другой файл, найденный обходом раньше, не заменяет запомненный путь
+        createContextFile(root);
+        Path second = new ContextFileLocator(null, 0, stateFile).locate(root);
+
+        // then
+        assertThat(stateFile).exists();
+        assertThat(first).isEqualTo(contextFile);
+        assertThat(second).isEqualTo(contextFile.toAbsolutePath().normalize());
+    }
+
+    @Test
+    @DisplayName("должен выбирать установленную позже версию вместо запомненного пути")
+    void shouldPreferNewerVersionOverRememberedPath() throws IOException {
+        // given
+        Path root = tempDirectory.resolve("1cv8");
+        Path previous = createContextFile(root.resolve("8.3.25.1257").resolve("bin"));
+        Path stateFile = tempDirectory.resolve("state").resolve("context-files.properties");
+        Path first = new ContextFileLocator(null, 0, stateFile).locate(root);
+
+        // when
+        Files.createDirectories(root.resolve("8.3.27.1000").resolve("bin"));
+        Path withoutHelp = new ContextFileLocator(null, 0, stateFile).locate(root);
+        Path upgraded = createContextFile(root.resolve("8.3.26.1521").resolve("bin"));
+        Path found = new ContextFileLocator(null, 0, stateFile).locate(root);
+        Path requested = new ContextFileLocator("8.3.25.1257", 0, stateFile).locate(root);
+
+        // then
+        assertThat(first).isEqualTo(previous);
+        // каталог новой версии без справки не отменяет запомненный путь
+        assertThat(withoutHelp).isEqualTo(previous.toAbsolutePath().normalize());
+        assertThat(found).isEqualTo(upgraded);
+        assertThat(requested).isEqualTo(previous);
+    }
+
+    @Test
+    @DisplayName("должен сравнивать версии по числовым компонентам")
+    void shouldCompareVersionsNumerically() {
+        assertThat(ContextFileLocator.compareVersions("8.3.9.2170", "8.3.10.1")).isNegative();
+        assertThat(ContextFileLocator.compareVersions("8.3.25.1257", "8.3.25.1257")).isZero();
+        assertThat(ContextFileLocator.compareVersions("8.5.1.1", "8.3.25.1257")).isPositive();
+    }
+
+    private Path createContextFile(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return Files.createFile(directory.resolve(ContextFileLocator.CONTEXT_FILE_NAME));
+    }
+}
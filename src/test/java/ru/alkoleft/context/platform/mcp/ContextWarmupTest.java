@@ -0,0 +1,72 @@
+package ru.alkoleft.context.platform.mcp;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
+import ru.alkoleft.context.platform.mcp.index.SearchIndexes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для {@link ContextWarmup}
+ */
+@DisplayName("ContextWarmup")
+class ContextWarmupTest {
+
+    @Test
+    @DisplayName("должен отвечать о ходе загрузки, пока прогрев не завершен")
+    void shouldReportProgressWhileWarmingUp() {
+        // given
+        var release = new CountDownLatch(1);
+        PlatformContextService contextService = mock(PlatformContextService.class);
+        when(contextService.getContextDefinitions()).thenAnswer(invocation -> {
+            release.await();
+            return Map.of("8.3.25.1257", new PlatformContextDefinition(List.of(), List.of(), List.of()));
+        });
+        var warmup = new ContextWarmup(contextService, Duration.ofMillis(50));
+
+        try {
+            // when & then
+            assertThatThrownBy(warmup::await)
+                .isInstanceOf(ContextWarmup.WarmingUpException.class)
+                .hasMessageStartingWith(ContextWarmup.WARMING_UP_MARK)
+                .hasMessageContaining("загрузка контекста платформы");
+            assertThat(warmup.isReady()).isFalse();
+        } finally {
+            release.countDown();
+        }
+
+        // после завершения прогрева запрос получает индексы
+        SearchIndexes indexes = warmup.start().join();
+        assertThat(warmup.isReady()).isTrue();
+        assertThat(warmup.await()).isSameAs(indexes);
+    }
+
+    @Test
+    @DisplayName("должен повторять прогрев после ошибки")
+    void shouldRestartAfterFailure() {
+        // given
+        PlatformContextService contextService = mock(PlatformContextService.class);
+        when(contextService.getContextDefinitions())
+            .thenThrow(new IllegalStateException("Путь к контексту платформы не настроен"))
+            .thenReturn(Map.of("8.3.25.1257", new PlatformContextDefinition(List.of(), List.of(), List.of())));
+        var warmup = new ContextWarmup(contextService, Duration.ofSeconds(10));
+
+        // when & then
+        assertThatThrownBy(warmup::await)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("не настроен");
+        assertThat(warmup.stage()).isEqualTo(ContextWarmup.Stage.FAILED);
+
+        assertThat(warmup.await()).isNotNull();
+        assertThat(warmup.isReady()).isTrue();
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import ru.alkoleft.context.platform.dto.*;
+import ru.alkoleft.context.platform.mcp.dto.MemberReference;
 
 import java.util.List;
 import java.util.Collections;
@@ -63,6 +64,22 @@ class MarkdownFormatterServiceTest {
                     .contains("Описание метода Добавить")
                     .contains("Описание свойства Количество");
         }
+
+        @Test
+        @DisplayName("Одноименные члены разных типов выводятся с типом-владельцем")
+        void sameMemberOfDifferentOwners() {
+            PropertyDefinition count = new PropertyDefinition(
+                    "Количество", null, "Количество элементов", true, "Число"
+            );
+            String result = service.formatSearchResults("количество", List.of(
+                    new MemberReference("Массив", count),
+                    new MemberReference("ТаблицаЗначений", count)
+            ));
+            assertThat(result)
+                    .contains("## ⭐ Массив.Количество\n")
+                    .contains("## ТаблицаЗначений.Количество\n")
+                    .contains("Количество: Число");
+        }
     }
 
     @Nested
@@ -84,6 +101,18 @@ class MarkdownFormatterServiceTest {
                     .contains("Булево");
         }
 
+        @Test
+        @DisplayName("Описание возвращаемого типа из индекса")
+        void methodReturnTypeDescription() {
+            MethodDefinition method = new MethodDefinition("Выполнить", "Выполняет запрос", List.of(), "РезультатЗапроса");
+            PlatformTypeDefinition returnType = new PlatformTypeDefinition(
+                    "РезультатЗапроса", "Содержит результат выполнения запроса", List.of(), List.of(), List.of());
+
+            String result = service.formatDetailedInfo(method, returnType);
+
+            assertThat(result).contains("**РезультатЗапроса** - Содержит результат выполнения запроса");
+        }
+
         @Test
         @DisplayName("Детальная информация о свойстве")
         void propertyDetail() {
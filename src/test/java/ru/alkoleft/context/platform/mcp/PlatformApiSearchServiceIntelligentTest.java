@@ -7,16 +7,23 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import ru.alkoleft.context.platform.dto.MethodDefinition;
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
 import ru.alkoleft.context.platform.dto.PlatformTypeDefinition;
 import ru.alkoleft.context.platform.dto.PropertyDefinition;
-import ru.alkoleft.context.platform.exporter.BaseExporterLogic;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -37,9 +44,6 @@ class PlatformApiSearchServiceIntelligentTest {
     @Mock 
     private MarkdownFormatterService formatter;
     
-    @Mock
-    private BaseExporterLogic exporterLogic;
-    
     private PlatformApiSearchService searchService;
     
     // Тестовые данные
@@ -49,17 +53,17 @@ class PlatformApiSearchServiceIntelligentTest {
     
     @BeforeEach
     void setUp() throws Exception {
-        searchService = new PlatformApiSearchService(contextService, formatter, exporterLogic);
+        searchService = new PlatformApiSearchService(new ContextWarmup(contextService, Duration.ofSeconds(10)), formatter,
+                new ConcurrentMapCacheManager());
         
         // Настраиваем тестовые индексы
         setupTestIndexes();
         
-        // Инициализируем индексы в сервисе через рефлексию
+        // Индексы сервиса строятся из описания контекста при первом поиске
         initializeServiceIndexes();
         
         // Настраиваем мок для форматтера
-        when(formatter.formatSearchResults(org.mockito.ArgumentMatchers.anyString(), 
-                                         org.mockito.ArgumentMatchers.anyList()))
+        when(formatter.formatSearchResults(anyString(), anyList()))
             .thenReturn("Formatted results");
     }
     
@@ -91,18 +95,13 @@ class PlatformApiSearchServiceIntelligentTest {
         globalPropertiesIndex.put("текущаядата", текущаяДата);
     }
     
-    private void initializeServiceIndexes() throws Exception {
-        // Используем рефлексию для установки индексов
-        setPrivateField("typesIndex", typesIndex);
-        setPrivateField("globalMethodsIndex", globalMethodsIndex);
-        setPrivateField("globalPropertiesIndex", globalPropertiesIndex);
-        setPrivateField("indexInitialized", true);
-    }
-    
-    private void setPrivateField(String fieldName, Object value) throws Exception {
-        Field field = PlatformApiSearchService.class.getDeclaredField(fieldName);
-        field.setAccessible(true);
-        field.set(searchService, value);
+    private void initializeServiceIndexes() {
+        // Отдаем тестовые данные через сервис контекста, чтобы сервис поиска построил все свои индексы
+        when(contextService.getContextDefinitions()).thenReturn(Map.of("8.3.25.1257", new PlatformContextDefinition(
+            new ArrayList<>(globalMethodsIndex.values()),
+            new ArrayList<>(globalPropertiesIndex.values()),
+            new ArrayList<>(typesIndex.values())
+        )));
     }
     
     private PlatformTypeDefinition createTestType(String name, List<String> methodNames, List<String> propertyNames) {
@@ -129,7 +128,7 @@ class PlatformApiSearchServiceIntelligentTest {
     @Test
     void testPriority1_CompoundTypes_TableValues() {
         // Приоритет 1: "Таблица значений" → "ТаблицаЗначений"
-        String result = searchService.search("Таблица значений", null, 10);
+        String result = searchService.search("Таблица значений", null, 10, null, null);
         
         assertThat(result).isEqualTo("Formatted results");
         
@@ -158,7 +157,7 @@ class PlatformApiSearchServiceIntelligentTest {
     @Test 
     void testPriority2_TypeMember_TableValuesCount() {
         // Приоритет 2: "Таблица значений количество" → тип "ТаблицаЗначений" + метод "количество"
-        String result = searchService.search("Таблица значений количество", null, 10);
+        String result = searchService.search("Таблица значений количество", null, 10, null, null);
         
         assertThat(result).isEqualTo("Formatted results");
         // Должен найти метод "Количество" в типе "ТаблицаЗначений"
@@ -167,16 +166,39 @@ class PlatformApiSearchServiceIntelligentTest {
     @Test
     void testPriority4_WordOrder_QuerySelection() {
         // Приоритет 4: "Запрос выборка" → "ВыборкаИзРезультатаЗапроса"
-        String result = searchService.search("Запрос выборка", null, 10);
+        String result = searchService.search("Запрос выборка", null, 10, null, null);
         
         assertThat(result).isEqualTo("Formatted results");
         // Должен найти тип содержащий слова "запрос" и "выборка"
     }
     
+    @Test
+    void testFormatsNormalizedQuery() {
+        // Ответ кэшируется по нормализованному запросу, заголовок не зависит от написания
+        searchService.search("  Таблица   Значений ", null, 10, null, null);
+
+        verify(formatter).formatSearchResults(eq("таблица значений"), argThat(results -> !results.isEmpty()));
+    }
+
+    @Test
+    void testPriority5_Fuzzy_Typo() {
+        // Приоритет 5: "ТаблицаЗначеней" с опечаткой → "ТаблицаЗначений", только если точные этапы пусты
+        searchService.search("ТаблицаЗначеней", null, 10, null, null);
+        verify(formatter).formatSearchResults(eq("таблицазначеней"), argThat(results -> results.size() == 1));
+
+        // Латинские "a" в русском слове не мешают найти тип
+        searchService.search("Тaблицa значений", "type", 10, null, null);
+        verify(formatter).formatSearchResults(eq("тaблицa значений"), argThat(results -> results.size() == 1));
+
+        // Нечеткий поиск отключен параметром запроса
+        searchService.search("ТаблицаЗначеней", null, 10, null, 0);
+        verify(formatter).formatSearchResults(eq("таблицазначеней"), argThat(List::isEmpty));
+    }
+
     @Test
     void testRussianAliases_ObjectType() {
         // Тестируем русскоязычные алиасы: "объект" → "type"
-        String result = searchService.search("таблица", "объект", 10);
+        String result = searchService.search("таблица", "объект", 10, null, null);
         
         assertThat(result).isEqualTo("Formatted results");
         // Алиас "объект" должен быть преобразован в "type"
@@ -185,7 +207,7 @@ class PlatformApiSearchServiceIntelligentTest {
     @Test
     void testRussianAliases_MethodType() {
         // Тестируем русскоязычные алиасы: "метод" → "method"
-        String result = searchService.search("найти", "метод", 10);
+        String result = searchService.search("найти", "метод", 10, null, null);
         
         assertThat(result).isEqualTo("Formatted results");
         // Алиас "метод" должен быть преобразован в "method"
@@ -194,12 +216,32 @@ class PlatformApiSearchServiceIntelligentTest {
     @Test
     void testRussianAliases_PropertyType() {
         // Тестируем русскоязычные алиасы: "свойство" → "property"  
-        String result = searchService.search("дата", "свойство", 10);
+        String result = searchService.search("дата", "свойство", 10, null, null);
         
         assertThat(result).isEqualTo("Formatted results");
         // Алиас "свойство" должен быть преобразован в "property"
     }
     
+    @Test
+    void testWhereDefined_MemberOfSeveralTypes() {
+        // "Количество" - метод ТаблицыЗначений и свойство ВыборкиИзРезультатаЗапроса
+        when(formatter.formatMemberReferences(eq("Определения Количество"), anyList(), eq(2)))
+            .thenReturn("Formatted references");
+
+        assertThat(searchService.whereDefined("количество", null, 10, null)).isEqualTo("Formatted references");
+        assertThat(searchService.getInfo("Количество", null, null)).isEqualTo("Formatted references");
+        assertThat(searchService.whereDefined("Количество", "type", 10, null)).startsWith("❌ **Не найдено:**");
+    }
+
+    @Test
+    void testInfo_SingleMemberDefinition() {
+        // Единственное определение члена выводится полностью
+        when(formatter.formatDetailedInfo(any(), any()))
+            .thenReturn("Formatted info");
+
+        assertThat(searchService.getInfo("Следующий", "method", null)).isEqualTo("Formatted info");
+    }
+
     @Test
     void testCountWordsInVariant() throws Exception {
         // Тестируем метод countWordsInVariant напрямую
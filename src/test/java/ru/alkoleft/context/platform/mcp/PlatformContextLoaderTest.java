@@ -10,6 +10,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
@@ -195,4 +196,21 @@ class PlatformContextLoaderTest {
         assertThatThrownBy(() -> platformContextLoader.loadPlatformContext(platformPath))
             .isNotInstanceOf(FileNotFoundException.class);
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("должен удалять каталог распаковки даже при ошибке разбора")
+    void shouldCleanUpScratchDirectory() throws IOException {
+        // given
+        Files.write(contextFile, new byte[]{1, 2, 3});
+        Path scratchDirectory = tempDirectory.resolve("scratch");
+        var loader = new PlatformContextLoader(new ContextFileLocator(), scratchDirectory.toString());
+
+        // when
+        assertThatThrownBy(() -> loader.loadContextFile(contextFile)).isInstanceOf(Exception.class);
+
+        // then
+        try (var entries = Files.list(scratchDirectory)) {
+            assertThat(entries).isEmpty();
+        }
+    }
+}
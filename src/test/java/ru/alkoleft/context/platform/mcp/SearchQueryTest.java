@@ -0,0 +1,63 @@
+package ru.alkoleft.context.platform.mcp;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link SearchQuery}
+ */
+@DisplayName("SearchQuery")
+class SearchQueryTest {
+
+    @Test
+    @DisplayName("должен совпадать для запросов, различающихся регистром и пробелами")
+    void shouldNormalizeCaseAndWhitespace() {
+        // when
+        SearchQuery first = SearchQuery.of("Таблица значений", null, 10);
+        SearchQuery second = SearchQuery.of("  таблица \t значений ", "", null);
+
+        // then
+        assertThat(first).isEqualTo(second);
+        assertThat(first.query()).isEqualTo("таблица значений");
+        assertThat(first.words()).containsExactly("таблица", "значений");
+    }
+
+    @Test
+    @DisplayName("должен разрешать алиасы типа")
+    void shouldResolveTypeAliases() {
+        // when
+        SearchQuery alias = SearchQuery.of("таблица", "Тип", 10);
+        SearchQuery canonical = SearchQuery.of("таблица", "type", 10);
+
+        // then
+        assertThat(alias).isEqualTo(canonical);
+        assertThat(SearchQuery.normalizeType("реквизит")).isEqualTo("property");
+        assertThat(SearchQuery.normalizeType(" ")).isNull();
+    }
+
+    @Test
+    @DisplayName("должен ограничивать лимит допустимыми пределами")
+    void shouldClampLimit() {
+        assertThat(SearchQuery.of("код", null, 500).limit()).isEqualTo(SearchQuery.MAX_LIMIT);
+        assertThat(SearchQuery.of("код", null, -1).limit()).isZero();
+        assertThat(SearchQuery.of("код", null, null).limit()).isEqualTo(SearchQuery.DEFAULT_LIMIT);
+    }
+
+    @Test
+    @DisplayName("должен определять число опечаток по длине запроса и ограничивать заданное")
+    void shouldNormalizeMaxEdits() {
+        assertThat(SearchQuery.of("код", null, 10).maxEdits()).isZero();
+        assertThat(SearchQuery.of("найтипокоду", null, 10).maxEdits()).isEqualTo(2);
+        assertThat(SearchQuery.of("найтипокоду", null, 10, 0).maxEdits()).isZero();
+        assertThat(SearchQuery.of("найтипокоду", null, 10, 10).maxEdits()).isEqualTo(SearchQuery.MAX_EDITS);
+    }
+
+    @Test
+    @DisplayName("должен заменять латинские буквы, похожие на кириллические, только в русских словах")
+    void shouldFoldLookalikes() {
+        assertThat(SearchQuery.foldLookalikes("тaблицa знaчений")).isEqualTo("таблица значений");
+        assertThat(SearchQuery.foldLookalikes("valuetable тaблицa")).isEqualTo("valuetable таблица");
+    }
+}
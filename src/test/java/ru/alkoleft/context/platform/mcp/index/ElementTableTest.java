@@ -0,0 +1,196 @@
+package ru.alkoleft.context.platform.mcp.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.alkoleft.context.platform.dto.MethodDefinition;
+import ru.alkoleft.context.platform.dto.ParameterDefinition;
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
+import ru.alkoleft.context.platform.dto.PlatformTypeDefinition;
+import ru.alkoleft.context.platform.dto.PropertyDefinition;
+import ru.alkoleft.context.platform.dto.Signature;
+import ru.alkoleft.context.platform.mcp.dto.SearchResultType;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link ElementTable}
+ */
+@DisplayName("ElementTable")
+class ElementTableTest {
+
+    @Test
+    @DisplayName("должен размещать члены типа в непрерывном диапазоне со ссылкой на владельца")
+    void shouldKeepTypeMembersInContiguousRange() {
+        // given
+        var count = new MethodDefinition("Количество", null, List.of(), "Число");
+        var columns = new PropertyDefinition("Колонки", null, null, true, "КоллекцияКолонок");
+        var table = new PlatformTypeDefinition("ТаблицаЗначений", null, List.of(count), List.of(columns), List.of());
+        var globalMethod = new MethodDefinition("Сообщить", null, List.of(), null);
+
+        // when
+        ElementTable elements = ElementTable.of(new PlatformContextDefinition(List.of(globalMethod), List.of(), List.of(table)));
+
+        // then
+        int typeId = elements.typeId("таблицазначений");
+        assertThat(elements.size()).isEqualTo(4);
+        assertThat(elements.globalCount(SearchResultType.method)).isEqualTo(1);
+        assertThat(elements.globalCount(SearchResultType.property)).isZero();
+        assertThat(elements.typeCount()).isEqualTo(1);
+        assertThat(elements.owner(0)).isEqualTo(ElementTable.NO_OWNER);
+        assertThat(elements.kind(typeId)).isEqualTo(SearchResultType.type);
+        assertThat(elements.memberEnd(typeId) - elements.memberStart(typeId)).isEqualTo(2);
+
+        int memberId = elements.memberStart(typeId);
+        assertThat(elements.lowerName(memberId)).isEqualTo("количество");
+        assertThat(elements.kind(memberId)).isEqualTo(SearchResultType.method);
+        assertThat(elements.owner(memberId)).isEqualTo(typeId);
+        assertThat(elements.item(memberId)).isSameAs(count);
+        assertThat(elements.kind(memberId + 1)).isEqualTo(SearchResultType.property);
+    }
+
+    @Test
+    @DisplayName("должен хранить одноименные члены разных типов как разные элементы")
+    void shouldKeepSameNamedMembersSeparate() {
+        // given
+        var first = new PlatformTypeDefinition("Массив", null,
+                List.of(new MethodDefinition("Количество", null, List.of(), "Число")), List.of(), List.of());
+        var second = new PlatformTypeDefinition("Структура", null,
+                List.of(new MethodDefinition("Количество", null, List.of(), "Число")), List.of(), List.of());
+
+        // when
+        ElementTable elements = ElementTable.of(new PlatformContextDefinition(List.of(), List.of(), List.of(first, second)));
+
+        // then
+        int firstMember = elements.memberStart(elements.typeId("массив"));
+        int secondMember = elements.memberStart(elements.typeId("структура"));
+        assertThat(firstMember).isNotEqualTo(secondMember);
+        assertThat(elements.lowerName(firstMember)).isEqualTo(elements.lowerName(secondMember));
+        assertThat(elements.typeId("соответствие")).isEqualTo(ElementTable.NO_OWNER);
+    }
+
+    @Test
+    @DisplayName("должен находить элементы по английскому имени")
+    void shouldFindByEnglishName() {
+        // given
+        var findByCode = new MethodDefinition("НайтиПоКоду", "FindByCode", null, List.of(), null);
+        var table = new PlatformTypeDefinition("ТаблицаЗначений", "ValueTable", null, List.of(findByCode), List.of(), List.of());
+
+        // when
+        ElementTable elements = ElementTable.of(new PlatformContextDefinition(List.of(), List.of(), List.of(table)));
+
+        // then
+        int typeId = elements.typeId("valuetable");
+        assertThat(typeId).isEqualTo(elements.typeId("таблицазначений"));
+        int memberId = elements.memberStart(typeId);
+        assertThat(elements.lowerName(memberId)).isEqualTo("найтипокоду");
+        assertThat(elements.lowerNameEn(memberId)).isEqualTo("findbycode");
+        assertThat(elements.nameContains(memberId, "bycode")).isTrue();
+        assertThat(elements.nameContains(memberId, "покоду")).isTrue();
+    }
+
+    @Test
+    @DisplayName("должен разрешать типы значений и параметров в идентификаторы типов")
+    void shouldResolveValueAndParameterTypes() {
+        // given
+        var parameter = new ParameterDefinition(true, "Индекс", null, "Число");
+        var get = new MethodDefinition("Получить", null, List.of(new Signature("Основной", null, List.of(parameter))),
+                "Произвольный");
+        var count = new MethodDefinition("Количество", null, List.of(), "Число");
+        var array = new PlatformTypeDefinition("Массив", null, List.of(get, count), List.of(), List.of());
+        var number = new PlatformTypeDefinition("Число", "Number", null, List.of(), List.of(), List.of());
+
+        // when
+        ElementTable elements = ElementTable.of(new PlatformContextDefinition(List.of(), List.of(), List.of(array, number)));
+
+        // then
+        int numberId = elements.typeId("число");
+        int getId = elements.memberStart(elements.typeId("массив"));
+        assertThat(elements.valueType(getId + 1)).isEqualTo(numberId);
+        assertThat(elements.valueType(getId)).isEqualTo(ElementTable.NO_TYPE);
+        assertThat(elements.parameterTypeEnd(getId) - elements.parameterTypeStart(getId)).isEqualTo(1);
+        assertThat(elements.parameterType(elements.parameterTypeStart(getId))).isEqualTo(numberId);
+        assertThat(elements.unresolvedTypeReferences()).isEqualTo(1);
+        assertThat(elements.unresolvedTypeNames()).containsExactly("Произвольный");
+    }
+
+    @Test
+    @DisplayName("должен строить обратные списки возвращающих и принимающих тип членов")
+    void shouldIndexTypeUsages() {
+        // given
+        var index = new ParameterDefinition(true, "Индекс", null, "Число");
+        var bound = new ParameterDefinition(true, "Граница", null, "Число");
+        var get = new MethodDefinition("Получить", null,
+                List.of(new Signature("Основной", null, List.of(index, bound))), "Произвольный");
+        var count = new MethodDefinition("Количество", null, List.of(), "Число");
+        var size = new PropertyDefinition("Размер", null, null, true, "Число");
+        var array = new PlatformTypeDefinition("Массив", null, List.of(get, count), List.of(size), List.of());
+        var number = new PlatformTypeDefinition("Число", "Number", null, List.of(), List.of(), List.of());
+
+        // when
+        ElementTable elements = ElementTable.of(new PlatformContextDefinition(List.of(), List.of(), List.of(array, number)));
+
+        // then
+        int numberId = elements.typeId("число");
+        int getId = elements.memberStart(elements.typeId("массив"));
+        assertThat(elements.returnedByEnd(numberId) - elements.returnedByStart(numberId)).isEqualTo(2);
+        assertThat(elements.returnedBy(elements.returnedByStart(numberId))).isEqualTo(getId + 1);
+        assertThat(elements.returnedBy(elements.returnedByStart(numberId) + 1)).isEqualTo(getId + 2);
+        // метод с двумя числовыми параметрами попадает в список один раз
+        assertThat(elements.acceptedByEnd(numberId) - elements.acceptedByStart(numberId)).isEqualTo(1);
+        assertThat(elements.acceptedBy(elements.acceptedByStart(numberId))).isEqualTo(getId);
+        int arrayId = elements.typeId("массив");
+        assertThat(elements.returnedByEnd(arrayId)).isEqualTo(elements.returnedByStart(arrayId));
+    }
+
+    @Test
+    @DisplayName("должен группировать методы и свойства по русскому и английскому имени")
+    void shouldGroupMembersByName() {
+        // given
+        var write = new MethodDefinition("Записать", "Write", null, List.of(), null);
+        var globalWrite = new MethodDefinition("Записать", null, List.of(), null);
+        var object = new PlatformTypeDefinition("ДокументОбъект", null, List.of(write), List.of(), List.of());
+        var recordSet = new PlatformTypeDefinition("РегистрСведенийНаборЗаписей", null, List.of(write), List.of(), List.of());
+
+        // when
+        ElementTable elements = ElementTable.of(new PlatformContextDefinition(List.of(globalWrite), List.of(),
+                List.of(object, recordSet)));
+
+        // then
+        int nameId = elements.memberNameId("записать");
+        assertThat(elements.membersByNameEnd(nameId) - elements.membersByNameStart(nameId)).isEqualTo(3);
+        assertThat(elements.owner(elements.memberByName(elements.membersByNameStart(nameId))))
+                .isEqualTo(ElementTable.NO_OWNER);
+        int nameEnId = elements.memberNameId("write");
+        assertThat(elements.membersByNameEnd(nameEnId) - elements.membersByNameStart(nameEnId)).isEqualTo(2);
+        assertThat(elements.memberNameId("документобъект")).isEqualTo(ElementTable.NO_NAME);
+    }
+
+    @Test
+    @DisplayName("должен находить член типа по имени без перебора членов")
+    void shouldFindMemberOfType() {
+        // given
+        var count = new MethodDefinition("Количество", "Count", null, List.of(), "Число");
+        var columns = new PropertyDefinition("Колонки", "Columns", null, true, null);
+        var countProperty = new PropertyDefinition("Количество", null, null, true, "Число");
+        var table = new PlatformTypeDefinition("ТаблицаЗначений", null, List.of(count), List.of(columns), List.of());
+        var selection = new PlatformTypeDefinition("Выборка", null, List.of(), List.of(countProperty), List.of());
+        var query = new PlatformTypeDefinition("Запрос", null, List.of(), List.of(), List.of());
+
+        // when
+        ElementTable elements = ElementTable.of(new PlatformContextDefinition(List.of(), List.of(),
+                List.of(table, selection, query)));
+
+        // then
+        int tableId = elements.typeId("таблицазначений");
+        int selectionId = elements.typeId("выборка");
+        assertThat(elements.memberId(tableId, "количество")).isEqualTo(elements.memberStart(tableId));
+        assertThat(elements.memberId(tableId, "count")).isEqualTo(elements.memberStart(tableId));
+        assertThat(elements.memberId(tableId, "columns")).isEqualTo(elements.memberStart(tableId) + 1);
+        assertThat(elements.memberId(selectionId, "количество")).isEqualTo(elements.memberStart(selectionId));
+        assertThat(elements.memberId(selectionId, "колонки")).isEqualTo(ElementTable.NO_OWNER);
+        assertThat(elements.memberId(elements.typeId("запрос"), "количество")).isEqualTo(ElementTable.NO_OWNER);
+        assertThat(elements.memberId(tableId, "нет")).isEqualTo(ElementTable.NO_OWNER);
+    }
+}
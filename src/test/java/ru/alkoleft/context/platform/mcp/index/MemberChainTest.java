@@ -0,0 +1,82 @@
+package ru.alkoleft.context.platform.mcp.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.alkoleft.context.platform.dto.MethodDefinition;
+import ru.alkoleft.context.platform.dto.ParameterDefinition;
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
+import ru.alkoleft.context.platform.dto.PlatformTypeDefinition;
+import ru.alkoleft.context.platform.dto.PropertyDefinition;
+import ru.alkoleft.context.platform.dto.Signature;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тесты для {@link MemberChain}
+ */
+@DisplayName("MemberChain")
+class MemberChainTest {
+
+    private final ElementTable elements = build();
+
+    private static ElementTable build() {
+        var text = new ParameterDefinition(true, "Текст", null, "Строка");
+        var execute = new MethodDefinition("Выполнить", "Execute", null, List.of(), "РезультатЗапроса");
+        var select = new MethodDefinition("Выбрать", "Select", null, List.of(), "ВыборкаИзРезультатаЗапроса");
+        var next = new MethodDefinition("Следующий", "Next", null, List.of(), "Булево");
+        var owner = new PropertyDefinition("Владелец", null, null, true, null);
+        var catalogs = new PropertyDefinition("Справочники", "Catalogs", null, true, "СправочникиМенеджер");
+        var newQuery = new MethodDefinition("НовыйЗапрос", null,
+                List.of(new Signature("Основной", null, List.of(text))), "Запрос");
+        return ElementTable.of(new PlatformContextDefinition(List.of(newQuery), List.of(catalogs), List.of(
+                new PlatformTypeDefinition("Запрос", "Query", null, List.of(execute), List.of(), List.of()),
+                new PlatformTypeDefinition("РезультатЗапроса", null, List.of(select), List.of(), List.of()),
+                new PlatformTypeDefinition("ВыборкаИзРезультатаЗапроса", null, List.of(next), List.of(owner), List.of()),
+                new PlatformTypeDefinition("СправочникиМенеджер", null, List.of(), List.of(), List.of()))));
+    }
+
+    @Test
+    @DisplayName("должен разбирать шаги без аргументов и начало имени после последней точки")
+    void shouldParseStepsAndPrefix() {
+        // when
+        MemberChain chain = MemberChain.parse("Новый Запрос(\"ВЫБРАТЬ 1.5\").Выполнить( ).Выбрать().Сле");
+
+        // then
+        assertThat(chain.steps()).containsExactly("новый запрос()", "выполнить()", "выбрать()");
+        assertThat(chain.prefix()).isEqualTo("сле");
+        assertThat(chain.key()).isEqualTo("новый запрос().выполнить().выбрать()");
+    }
+
+    @Test
+    @DisplayName("должен разрешать цепочку через возвращаемые типы")
+    void shouldResolveThroughReturnTypes() {
+        // when
+        MemberChain.Resolution resolution = MemberChain.parse("Запрос.Выполнить().Select().").resolve(elements);
+
+        // then
+        assertThat(resolution.isResolved()).isTrue();
+        assertThat(resolution.typeId()).isEqualTo(elements.typeId("выборкаизрезультатазапроса"));
+        assertThat(MemberChain.parse("Справочники.").resolve(elements).typeId())
+                .isEqualTo(elements.typeId("справочникименеджер"));
+        assertThat(MemberChain.parse("НовыйЗапрос(Текст).Execute().").resolve(elements).typeId())
+                .isEqualTo(elements.typeId("результатзапроса"));
+    }
+
+    @Test
+    @DisplayName("должен сообщать шаг, который не удалось разрешить")
+    void shouldReportFailedStep() {
+        // when
+        MemberChain.Resolution resolution = MemberChain.parse("Запрос.Выполнить().Выбрать().Владелец.").resolve(elements);
+
+        // then
+        assertThat(resolution.isResolved()).isFalse();
+        assertThat(resolution.failedStep()).isEqualTo(3);
+        assertThat(resolution.ownerId()).isEqualTo(elements.typeId("выборкаизрезультатазапроса"));
+        assertThat(MemberChain.parse("Неизвестно.").resolve(elements).failedStep()).isZero();
+        assertThatThrownBy(() -> MemberChain.parse("Запрос")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MemberChain.parse("Запрос.Выполнить(.")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,94 @@
+package ru.alkoleft.context.platform.mcp.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.alkoleft.context.platform.dto.MethodDefinition;
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
+import ru.alkoleft.context.platform.dto.PlatformTypeDefinition;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link PrefixIndex}
+ */
+@DisplayName("PrefixIndex")
+class PrefixIndexTest {
+
+    private final PrefixIndex index = build();
+
+    private static PrefixIndex build() {
+        var findByCode = new MethodDefinition("НайтиПоКоду", "FindByCode", null, List.of(), null);
+        var findByName = new MethodDefinition("НайтиПоНаименованию", null, List.of(), null);
+        var find = new MethodDefinition("Найти", "Find", null, List.of(), null);
+        var catalogManager = new PlatformTypeDefinition("СправочникМенеджер", null,
+                List.of(findByCode, findByName), List.of(), List.of());
+        var chartManager = new PlatformTypeDefinition("ПланВидовХарактеристикМенеджер", null,
+                List.of(findByCode), List.of(), List.of());
+        var table = new PlatformTypeDefinition("ТаблицаЗначений", "ValueTable", null,
+                List.of(find), List.of(), List.of());
+        var tabs = new PlatformTypeDefinition("Табло", null, List.of(), List.of(), List.of());
+        return PrefixIndex.build(ElementTable.of(new PlatformContextDefinition(List.of(), List.of(),
+                List.of(catalogManager, chartManager, table, tabs))));
+    }
+
+    @Test
+    @DisplayName("должен дополнять имя типа по началу")
+    void shouldCompleteTypeName() {
+        // when
+        int[] entries = index.complete("таблицазн", 10);
+
+        // then
+        assertThat(names(entries)).containsExactly("ТаблицаЗначений");
+        assertThat(names(index.complete("valuet", 10))).containsExactly("ValueTable");
+    }
+
+    @Test
+    @DisplayName("должен ставить совпадающее имя первым, затем имена с большим числом определений")
+    void shouldRankByExactMatchAndDefinitions() {
+        // when
+        int[] entries = index.complete("найти", 10);
+
+        // then
+        assertThat(names(entries)).containsExactly("Найти", "НайтиПоКоду", "НайтиПоНаименованию");
+        assertThat(index.definitions(entries[1])).isEqualTo(2);
+        assertThat(index.count("найти")).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("должен ставить типы выше членов и соблюдать лимит")
+    void shouldPreferTypesAndRespectLimit() {
+        // when
+        int[] entries = index.complete("т", 1);
+
+        // then
+        assertThat(names(entries)).containsExactly("ТаблицаЗначений");
+        assertThat(index.count("т")).isEqualTo(2);
+        assertThat(index.complete("щ", 10)).isEmpty();
+    }
+
+    private String[] names(int[] entries) {
+        return Arrays.stream(entries).mapToObj(index::name).toArray(String[]::new);
+    }
+
+    @Test
+    @DisplayName("должен находить имена в пределах допустимого числа опечаток")
+    void shouldMatchWithinEditDistance() {
+        // given
+        var matches = new TreeMap<String, Integer>();
+
+        // when
+        index.matchWithin("найтипонаименовнию", 2, (entry, distance) -> matches.put(index.name(entry), distance));
+
+        // then
+        assertThat(matches).containsExactly(Map.entry("НайтиПоНаименованию", 1));
+
+        matches.clear();
+        index.matchWithin("тало", 1, (entry, distance) -> matches.put(index.name(entry), distance));
+        assertThat(matches).containsOnlyKeys("Табло");
+    }
+}
@@ -0,0 +1,87 @@
+package ru.alkoleft.context.platform.mcp.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тесты для {@link SearchIndexes}
+ */
+@DisplayName("SearchIndexes")
+class SearchIndexesTest {
+
+    private final SearchIndex v18 = emptyIndex();
+    private final SearchIndex v25old = emptyIndex();
+    private final SearchIndex v25 = emptyIndex();
+
+    @Test
+    @DisplayName("должен выбирать версию по полному номеру, префиксу и по умолчанию")
+    void shouldResolveVersions() {
+        // given
+        SearchIndexes indexes = SearchIndexes.of(null, versions());
+
+        // when & then
+        assertThat(indexes.defaultVersion()).isEqualTo("8.3.25.1257");
+        assertThat(indexes.resolve(null)).isSameAs(v25);
+        assertThat(indexes.resolve("8.3.18.1208")).isSameAs(v18);
+        assertThat(indexes.resolve("8.3.25")).isSameAs(v25);
+        assertThat(SearchIndexes.of("8.3.18.1208", versions()).resolve(" ")).isSameAs(v18);
+    }
+
+    @Test
+    @DisplayName("должен сообщать о незагруженной версии")
+    void shouldRejectUnknownVersion() {
+        SearchIndexes indexes = SearchIndexes.of(null, versions());
+
+        assertThatThrownBy(() -> indexes.resolve("8.3.2"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("8.3.18.1208, 8.3.25.1100, 8.3.25.1257");
+    }
+
+    @Test
+    @DisplayName("должен заменять индекс одной версии, не изменяя исходный набор")
+    void shouldReplaceSingleVersion() {
+        SearchIndexes indexes = SearchIndexes.of(null, versions());
+        SearchIndex replacement = emptyIndex();
+
+        SearchIndexes updated = indexes.update(null, indexes.byVersion().keySet(), Map.of("8.3.18.1208", replacement));
+
+        assertThat(updated.resolve("8.3.18.1208")).isSameAs(replacement);
+        assertThat(updated.resolve(null)).isSameAs(v25);
+        assertThat(indexes.resolve("8.3.18.1208")).isSameAs(v18);
+    }
+
+    @Test
+    @DisplayName("должен добавлять новую версию и исключать версии вне состава")
+    void shouldUpdateVersionSet() {
+        SearchIndexes indexes = SearchIndexes.of(null, versions());
+        SearchIndex upgraded = emptyIndex();
+
+        SearchIndexes updated = indexes.update(null, List.of("8.3.18.1208", "8.3.25.1257", "8.3.26.1521"),
+            Map.of("8.3.26.1521", upgraded));
+
+        assertThat(updated.byVersion()).containsOnlyKeys("8.3.18.1208", "8.3.25.1257", "8.3.26.1521");
+        assertThat(updated.defaultVersion()).isEqualTo("8.3.26.1521");
+        assertThat(updated.resolve(null)).isSameAs(upgraded);
+        assertThat(updated.resolve("8.3.25")).isSameAs(v25);
+    }
+
+    private Map<String, SearchIndex> versions() {
+        Map<String, SearchIndex> versions = new LinkedHashMap<>();
+        versions.put("8.3.18.1208", v18);
+        versions.put("8.3.25.1100", v25old);
+        versions.put("8.3.25.1257", v25);
+        return versions;
+    }
+
+    private static SearchIndex emptyIndex() {
+        return SearchIndex.build(new PlatformContextDefinition(List.of(), List.of(), List.of()));
+    }
+}
@@ -0,0 +1,78 @@
+package ru.alkoleft.context.platform.mcp.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link TopKCollector}
+ */
+@DisplayName("TopKCollector")
+class TopKCollectorTest {
+
+    @Test
+    @DisplayName("должен отбирать K элементов с наименьшими ключами в порядке возрастания")
+    void shouldKeepBestElementsInOrder() {
+        // given
+        var collector = new TopKCollector(3, 10);
+
+        // when
+        long[] keys = {50, 10, 40, 30, 20, 60};
+        for (int id = 0; id < keys.length; id++) {
+            collector.offer(id, keys[id]);
+        }
+
+        // then
+        assertThat(collector.matched()).isEqualTo(6);
+        assertThat(collector.drain()).containsExactly(1, 4, 3);
+    }
+
+    @Test
+    @DisplayName("должен учитывать элемент только при первом предложении")
+    void shouldKeepFirstOfferOfElement() {
+        // given
+        var collector = new TopKCollector(2, 10);
+
+        // when
+        boolean first = collector.offer(5, 30);
+        boolean repeated = collector.offer(5, 1);
+        collector.offer(7, 20);
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(repeated).isFalse();
+        assertThat(collector.matched()).isEqualTo(2);
+        assertThat(collector.drain()).containsExactly(7, 5);
+    }
+
+    @Test
+    @DisplayName("должен упорядочивать элементы с равными ключами по идентификатору")
+    void shouldOrderEqualKeysById() {
+        // given
+        var collector = new TopKCollector(2, 10);
+
+        // when
+        collector.offer(9, 1);
+        collector.offer(3, 1);
+        collector.offer(6, 1);
+
+        // then
+        assertThat(collector.drain()).containsExactly(3, 6);
+    }
+
+    @Test
+    @DisplayName("должен считать совпадения при нулевом лимите")
+    void shouldCountMatchesWithZeroLimit() {
+        // given
+        var collector = new TopKCollector(0, 10);
+
+        // when
+        collector.offer(1, 1);
+
+        // then
+        assertThat(collector.isFull()).isTrue();
+        assertThat(collector.matched()).isEqualTo(1);
+        assertThat(collector.drain()).isEmpty();
+    }
+}
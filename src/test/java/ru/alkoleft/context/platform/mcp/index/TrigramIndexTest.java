@@ -0,0 +1,67 @@
+package ru.alkoleft.context.platform.mcp.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link TrigramIndex}
+ */
+@DisplayName("TrigramIndex")
+class TrigramIndexTest {
+
+    private final String[] names = {
+            "найтипоссылке",
+            "таблицазначений",
+            "количество",
+            "найтипокоду",
+            "строки"
+    };
+
+    @Test
+    @DisplayName("должен возвращать имена, содержащие все триграммы запроса")
+    void shouldReturnCandidatesContainingQuery() {
+        // given
+        TrigramIndex index = TrigramIndex.build(names);
+
+        // when
+        int[] candidates = index.candidates("найтипо");
+
+        // then
+        assertThat(candidates).containsExactly(0, 3);
+    }
+
+    @Test
+    @DisplayName("должен возвращать пустой результат для отсутствующей триграммы")
+    void shouldReturnEmptyForUnknownTrigram() {
+        // given
+        TrigramIndex index = TrigramIndex.build(names);
+
+        // when
+        int[] candidates = index.candidates("запрос");
+
+        // then
+        assertThat(candidates).isEmpty();
+    }
+
+    @Test
+    @DisplayName("должен учитывать повторяющиеся триграммы в имени один раз")
+    void shouldStoreRepeatedTrigramOnce() {
+        // given
+        TrigramIndex index = TrigramIndex.build(new String[]{"ааааа", "ааа"});
+
+        // when
+        int[] candidates = index.candidates("аааа");
+
+        // then
+        assertThat(candidates).containsExactly(0, 1);
+    }
+
+    @Test
+    @DisplayName("не должен применяться к запросам короче триграммы")
+    void shouldNotApplyToShortQueries() {
+        assertThat(TrigramIndex.isApplicable("ко")).isFalse();
+        assertThat(TrigramIndex.isApplicable("код")).isTrue();
+    }
+}
@@ -0,0 +1,249 @@
+package ru.alkoleft.context.platform.mcp.snapshot;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.alkoleft.context.platform.dto.DefinitionPool;
+import ru.alkoleft.context.platform.dto.LazyMembers;
+import ru.alkoleft.context.platform.dto.MethodDefinition;
+import ru.alkoleft.context.platform.dto.ParameterDefinition;
+import ru.alkoleft.context.platform.dto.PlatformContextDefinition;
+import ru.alkoleft.context.platform.dto.PlatformTypeDefinition;
+import ru.alkoleft.context.platform.dto.PropertyDefinition;
+import ru.alkoleft.context.platform.dto.Signature;
+import ru.alkoleft.context.platform.mcp.index.ElementTable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link ContextSnapshotStore}
+ */
+@DisplayName("ContextSnapshotStore")
+class ContextSnapshotStoreTest {
+
+    @TempDir
+    private Path tempDirectory;
+
+    private ContextSnapshotStore store;
+    private Path contextFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new ContextSnapshotStore(true, tempDirectory.resolve("snapshots").toString());
+        contextFile = tempDirectory.resolve("shcntx_ru.hbk");
+        Files.writeString(contextFile, "содержимое справки");
+    }
+
+    @Test
+    @DisplayName("должен восстанавливать сохраненный граф описаний")
+    void shouldRestoreSavedDefinition() throws IOException {
+        // given
+        PlatformContextDefinition definition = createDefinition();
+        SnapshotKey key = SnapshotKey.of(contextFile);
+
+        // when
+        store.save(contextFile, key, definition);
+        Optional<PlatformContextDefinition> restored = store.load(contextFile, key);
+
+        // then
+        assertThat(restored).contains(definition);
+    }
+
+    @Test
+    @DisplayName("должен разделять одинаковые строки словаря между описаниями")
+    void shouldShareDictionaryStrings() throws IOException {
+        // given
+        SnapshotKey key = SnapshotKey.of(contextFile);
+        store.save(contextFile, key, createDefinition());
+
+        // when
+        PlatformContextDefinition restored = store.load(contextFile, key).orElseThrow();
+
+        // then
+        PropertyDefinition globalProperty = restored.globalProperties().get(0);
+        PropertyDefinition typeProperty = restored.types().get(0).properties().get(0);
+        assertThat(globalProperty.name()).isSameAs(typeProperty.name());
+        assertThat(globalProperty.type()).isSameAs(typeProperty.type());
+    }
+
+    @Test
+    @DisplayName("должен загружать члены типа при первом обращении")
+    void shouldMaterializeTypeMembersOnFirstAccess() throws IOException {
+        // given
+        SnapshotKey key = SnapshotKey.of(contextFile);
+        store.save(contextFile, key, createDefinition());
+
+        // when
+        PlatformContextDefinition restored = store.load(contextFile, key).orElseThrow();
+        PlatformTypeDefinition type = restored.types().get(0);
+        ElementTable elements = ElementTable.of(restored);
+
+        // then
+        assertThat(type.methods()).isInstanceOf(LazyMembers.class);
+        var methods = (LazyMembers<MethodDefinition>) type.methods();
+        // построение таблицы элементов использует только имена членов
+        assertThat(methods.isMaterialized()).isFalse();
+        assertThat(elements.lowerName(elements.memberStart(elements.typeId("справочникменеджер")))).isEqualTo("найтипокоду");
+        // типы значений и параметров членов разрешаются по таблице имен снимка
+        assertThat(elements.unresolvedTypeNames()).containsExactly("Дата", "СправочникСсылка", "Строка");
+        assertThat(methods.isMaterialized()).isFalse();
+
+        // обращение к элементу загружает описание
+        Object member = elements.item(elements.memberStart(elements.typeId("справочникменеджер")));
+        assertThat(member).isEqualTo(createDefinition().types().get(0).methods().get(0));
+        assertThat(methods.get(0).signature()).hasSize(1);
+        assertThat(methods.isMaterialized()).isTrue();
+    }
+
+    @Test
+    @DisplayName("должен разделять загруженные члены типа с общим хранилищем и освобождать снимок")
+    void shouldShareLoadedMembersWithPoolAndReleaseSnapshot() throws Exception {
+        // given
+        var pool = new DefinitionPool();
+        PlatformTypeDefinition canonical = pool.intern(createDefinition()).types().get(0);
+        var bytes = new ByteArrayOutputStream();
+        ContextSnapshotCodec.write(Channels.newChannel(bytes), SnapshotKey.of(contextFile), createDefinition());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        var snapshot = new WeakReference<>(buffer);
+
+        // when
+        PlatformTypeDefinition type = pool.intern(ContextSnapshotCodec.readLazy(buffer)).types().get(0);
+        buffer = null;
+
+        // then
+        assertThat(snapshot.get()).isNotNull();
+        assertThat(type.methods().get(0)).isSameAs(canonical.methods().get(0));
+        assertThat(type.properties().get(0)).isSameAs(canonical.properties().get(0));
+        assertThat(type.constructors().get(0)).isSameAs(canonical.constructors().get(0));
+        // загруженный тип не удерживает курсор, словарь строк и декодированные копии описаний
+        assertThat(isCollected(snapshot)).isTrue();
+    }
+
+    @Test
+    @DisplayName("должен игнорировать снимок после изменения файла справки")
+    void shouldIgnoreSnapshotWhenContextFileChanged() throws IOException {
+        // given
+        store.save(contextFile, SnapshotKey.of(contextFile), createDefinition());
+
+        // when
+        Files.writeString(contextFile, "обновленное содержимое справки");
+        Optional<PlatformContextDefinition> restored = store.load(contextFile, SnapshotKey.of(contextFile));
+
+        // then
+        assertThat(restored).isEmpty();
+    }
+
+    @Test
+    @DisplayName("должен сохранять новый снимок рядом с загруженным и удалять прежний")
+    void shouldSaveNewSnapshotBesideLoadedOne() throws IOException {
+        // given
+        SnapshotKey oldKey = SnapshotKey.of(contextFile);
+        store.save(contextFile, oldKey, createDefinition());
+        Optional<PlatformContextDefinition> loaded = store.load(contextFile, oldKey);
+        Files.writeString(contextFile, "обновленное содержимое справки");
+        SnapshotKey newKey = SnapshotKey.of(contextFile);
+
+        // when
+        store.save(contextFile, newKey, createDefinition());
+
+        // then
+        assertThat(loaded).isPresent();
+        assertThat(store.snapshotFile(contextFile, newKey)).isNotEqualTo(store.snapshotFile(contextFile, oldKey));
+        assertThat(store.load(contextFile, newKey)).contains(createDefinition());
+        try (var snapshots = Files.list(tempDirectory.resolve("snapshots"))) {
+            assertThat(snapshots).containsExactly(store.snapshotFile(contextFile, newKey));
+        }
+    }
+
+    @Test
+    @DisplayName("должен игнорировать снимок после добавления или изменения английского файла справки")
+    void shouldIgnoreSnapshotWhenEnglishFileChanged() throws IOException {
+        // given
+        SnapshotKey russianOnly = SnapshotKey.of(contextFile);
+        store.save(contextFile, russianOnly, createDefinition());
+        Path englishFile = tempDirectory.resolve("shcntx_en.hbk");
+        Files.writeString(englishFile, "english help");
+        SnapshotKey bilingual = SnapshotKey.of(contextFile, englishFile);
+        store.save(contextFile, bilingual, createDefinition());
+
+        // when
+        Files.writeString(englishFile, "updated english help");
+        SnapshotKey updated = SnapshotKey.of(contextFile, englishFile);
+
+        // then
+        assertThat(SnapshotKey.of(contextFile, null)).isEqualTo(russianOnly);
+        assertThat(bilingual).isNotEqualTo(russianOnly);
+        assertThat(store.load(contextFile, russianOnly)).isEmpty();
+        assertThat(store.load(contextFile, bilingual)).contains(createDefinition());
+        assertThat(store.load(contextFile, updated)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("должен игнорировать поврежденный снимок")
+    void shouldIgnoreCorruptedSnapshot() throws IOException {
+        // given
+        SnapshotKey key = SnapshotKey.of(contextFile);
+        store.save(contextFile, key, createDefinition());
+        Files.write(store.snapshotFile(contextFile, key), new byte[]{1, 2, 3});
+
+        // when
+        Optional<PlatformContextDefinition> restored = store.load(contextFile, key);
+
+        // then
+        assertThat(restored).isEmpty();
+    }
+
+    @Test
+    @DisplayName("не должен создавать снимок если хранилище отключено")
+    void shouldNotSaveWhenDisabled() throws IOException {
+        // given
+        var disabledStore = new ContextSnapshotStore(false, tempDirectory.resolve("disabled").toString());
+        SnapshotKey key = SnapshotKey.of(contextFile);
+
+        // when
+        disabledStore.save(contextFile, key, createDefinition());
+
+        // then
+        assertThat(Files.exists(tempDirectory.resolve("disabled"))).isFalse();
+        assertThat(disabledStore.load(contextFile, key)).isEmpty();
+    }
+
+    private static boolean isCollected(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        return reference.get() == null;
+    }
+
+    private PlatformContextDefinition createDefinition() {
+        var parameter = new ParameterDefinition(true, "Код", "Код элемента", "Строка");
+        var method = new MethodDefinition(
+                "НайтиПоКоду",
+                "Поиск элемента по коду",
+                List.of(new Signature("Основной", "Основная сигнатура", List.of(parameter))),
+                "СправочникСсылка"
+        );
+        var property = new PropertyDefinition("Наименование", "Description", null, false, "Строка");
+        var type = new PlatformTypeDefinition(
+                "СправочникМенеджер",
+                null,
+                List.of(method),
+                List.of(property),
+                List.of(new Signature("Новый", "Конструктор", List.of()))
+        );
+        var globalMethod = new MethodDefinition("ТекущаяДата", "Текущая дата", List.of(), "Дата");
+        return new PlatformContextDefinition(List.of(globalMethod), List.of(property), List.of(type));
+    }
+}